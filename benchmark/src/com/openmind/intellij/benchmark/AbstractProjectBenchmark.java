@@ -0,0 +1,64 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Synthetic project of the benchmark parameters, created once by trial in a temporary folder
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractProjectBenchmark
+{
+    @Param({ "10", "100", "500" })
+    public int modules;
+
+    @Param({ "2" })
+    public int sourceRoots;
+
+    @Param({ "8" })
+    public int packageDepth;
+
+    @Param({ "20" })
+    public int classesPerPackage;
+
+    @Param({ "3" })
+    public int innerClasses;
+
+    @Param({ "0", "100", "1000" })
+    public int mappings;
+
+    protected SyntheticProject project;
+    protected HeadlessEnvironment environment;
+    private int next;
+
+    protected void createProject() throws IOException {
+        project = new SyntheticProject(modules, sourceRoots, packageDepth, classesPerPackage, innerClasses, mappings)
+            .create();
+        environment = new HeadlessEnvironment();
+    }
+
+    /**
+     * Index of the next item, to call the benchmarked method on a different file each time
+     * @param size
+     * @return
+     */
+    protected int nextIndex(int size) {
+        next = next + 1 < size ? next + 1 : 0;
+        return next;
+    }
+
+    @TearDown
+    public void deleteProject() throws IOException {
+        if (environment != null) {
+            environment.dispose();
+        }
+        if (project != null) {
+            project.delete();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.openmind.intellij.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Run benchmarks headless, with throughput and allocation rate by operation.
+ * Arguments: benchmark name regex (default all), result file (default benchmark-result.json)
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*")
+            .addProfiler(GCProfiler.class)
+            .timeUnit(TimeUnit.SECONDS)
+            .warmupIterations(3)
+            .warmupTime(TimeValue.seconds(2))
+            .measurementIterations(5)
+            .measurementTime(TimeValue.seconds(2))
+            .forks(1)
+            .jvmArgsAppend("-Djava.awt.headless=true")
+            .resultFormat(ResultFormatType.JSON)
+            .result(args.length > 1 ? args[1] : "benchmark-result.json")
+            .build();
+        new Runner(options).run();
+    }
+}
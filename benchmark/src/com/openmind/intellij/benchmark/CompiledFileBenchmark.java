@@ -0,0 +1,44 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.service.impl.OutputFileServiceImpl;
+
+
+/**
+ * Compiled file of a source file, found by the compile mappings, and the upload plan: compiled file,
+ * deploy path and inner classes
+ */
+public class CompiledFileBenchmark extends AbstractProjectBenchmark
+{
+    private static final String DEPLOYED_PROJECT_PATH = "project/";
+
+    private OutputFileServiceImpl outputFileService;
+    private List<VirtualFile> sourceFiles;
+    private final UploadMetrics metrics = new UploadMetrics("benchmark");
+
+    @Setup
+    public void setup() throws IOException {
+        createProject();
+        outputFileService = environment.createOutputFileService(project);
+        sourceFiles = environment.findFiles(project.getSourceFiles());
+    }
+
+    @Benchmark
+    public VirtualFile getCompiledOrOriginalFile() {
+        return outputFileService.getCompiledOrOriginalFile(null, sourceFiles.get(nextIndex(sourceFiles.size())));
+    }
+
+    @Benchmark
+    public List<UploadItem> planUpload() {
+        return outputFileService.planUpload(null, sourceFiles.get(nextIndex(sourceFiles.size())),
+            DEPLOYED_PROJECT_PATH, metrics);
+    }
+}
@@ -0,0 +1,42 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.service.impl.DeployPathResolver;
+import com.openmind.intellij.service.impl.OutputFileServiceImpl;
+
+
+/**
+ * Deploy path of a source file: through the service, and the mapping rules alone on plain paths
+ */
+public class DeployPathBenchmark extends AbstractProjectBenchmark
+{
+    private OutputFileServiceImpl outputFileService;
+    private DeployPathResolver deployPathResolver;
+    private List<VirtualFile> sourceFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        createProject();
+        outputFileService = environment.createOutputFileService(project);
+        sourceFiles = environment.findFiles(project.getSourceFiles());
+        deployPathResolver = DeployPathResolver.create(project.getBasePath(), project.getContentRoots(),
+            project.getSourceRoots(), project.getProperties());
+    }
+
+    @Benchmark
+    public String getProjectRelativeDeployPath() {
+        return outputFileService.getProjectRelativeDeployPath(sourceFiles.get(nextIndex(sourceFiles.size())));
+    }
+
+    @Benchmark
+    public String matchMappingRules() {
+        return deployPathResolver.getProjectRelativeDeployPath(
+            project.getSourceFiles().get(nextIndex(sourceFiles.size())));
+    }
+}
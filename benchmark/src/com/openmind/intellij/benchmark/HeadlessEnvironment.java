@@ -0,0 +1,58 @@
+package com.openmind.intellij.benchmark;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import com.intellij.core.CoreApplicationEnvironment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.service.impl.OutputFileServiceImpl;
+
+
+/**
+ * IntelliJ core application without the IDE: local file system and progress manager, no project model.
+ * Services are built from a synthetic project layout
+ */
+public class HeadlessEnvironment
+{
+    private final Disposable disposable = Disposer.newDisposable();
+    private final CoreApplicationEnvironment environment = new CoreApplicationEnvironment(disposable);
+
+    /**
+     * @param path
+     * @return
+     * @throws IllegalArgumentException if not found
+     */
+    public VirtualFile findFile(String path) {
+        final VirtualFile file = environment.getLocalFileSystem().findFileByPath(path);
+        if (file == null) {
+            throw new IllegalArgumentException("File not found: " + path);
+        }
+        return file;
+    }
+
+    public List<VirtualFile> findFiles(List<String> paths) {
+        return paths.stream().map(this::findFile).collect(Collectors.toList());
+    }
+
+    /**
+     * Service of the project, configured by its properties. Files without module are resolved by mappings
+     * @param project
+     * @return
+     */
+    public OutputFileServiceImpl createOutputFileService(SyntheticProject project) {
+        return createOutputFileService(project, project.getProperties());
+    }
+
+    public OutputFileServiceImpl createOutputFileService(SyntheticProject project, Properties properties) {
+        return OutputFileServiceImpl.create(project.getBasePath(), project.getContentRoots(),
+            project.getSourceRoots(), Module.EMPTY_ARRAY, properties);
+    }
+
+    public void dispose() {
+        Disposer.dispose(disposable);
+    }
+}
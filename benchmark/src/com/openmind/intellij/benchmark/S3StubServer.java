@@ -0,0 +1,317 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * In-process S3 compatible server for uploads, with path style requests: put object, multipart upload and head.
+ * Only sizes and ETags are kept. Latency before each response, a bandwidth shared by all connections
+ * and throttling (503 SlowDown) can be injected
+ */
+public class S3StubServer
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final long latencyMillis;
+    private final RateLimiter bandwidth;
+    private final double throttleRate;
+
+    private final Map<String, String> objectETags = new ConcurrentHashMap<>();
+    private final Map<String, Long> objectSizes = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latencyMillis wait before each response
+     * @param bandwidthBytesPerSecond upload bandwidth of all connections, 0 for unlimited
+     * @param throttleRate fraction of requests answered with 503 SlowDown, eg: 0.01
+     */
+    public S3StubServer(long latencyMillis, long bandwidthBytesPerSecond, double throttleRate) {
+        this.latencyMillis = latencyMillis;
+        this.bandwidth = bandwidthBytesPerSecond > 0 ? RateLimiter.create(bandwidthBytesPerSecond) : null;
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Start on a free port of the loopback interface
+     * @return this
+     * @throws IOException
+     */
+    public S3StubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1000);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "S3StubServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Endpoint for the client, with path style access
+     */
+    public String getEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getThrottledRequests() {
+        return throttledRequests.get();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    /**
+     * Forget stored objects and counters, between runs
+     */
+    public void reset() {
+        objectETags.clear();
+        objectSizes.clear();
+        requests.set(0);
+        throttledRequests.set(0);
+        receivedBytes.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            final String method = exchange.getRequestMethod();
+            final String path = exchange.getRequestURI().getRawPath().substring(1);
+            final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            // body is read first, as by S3, so that the connection can be reused
+            final Body body = readBody(exchange);
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            if (throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate) {
+                throttledRequests.incrementAndGet();
+                sendError(exchange, 503, "SlowDown", "Please reduce your request rate.");
+                return;
+            }
+
+            final int keyStart = path.indexOf('/');
+            final String bucket = keyStart >= 0 ? path.substring(0, keyStart) : path;
+            final String key = keyStart >= 0 ? path.substring(keyStart + 1) : "";
+
+            if ("PUT".equals(method)) {
+                // object or part
+                if (!query.containsKey("uploadId")) {
+                    objectETags.put(path, body.md5Hex);
+                    objectSizes.put(path, body.size);
+                }
+                exchange.getResponseHeaders().add("ETag", "\"" + body.md5Hex + "\"");
+                send(exchange, 200, null);
+
+            } else if ("POST".equals(method) && query.containsKey("uploads")) {
+                send(exchange, 200, "<InitiateMultipartUploadResult xmlns=\"" + S3_NAMESPACE + "\"><Bucket>" + bucket
+                    + "</Bucket><Key>" + key + "</Key><UploadId>" + UUID.randomUUID()
+                    + "</UploadId></InitiateMultipartUploadResult>");
+
+            } else if ("POST".equals(method) && query.containsKey("uploadId")) {
+                final String eTag = body.md5Hex + "-" + query.get("uploadId").length();
+                objectETags.put(path, eTag);
+                objectSizes.put(path, 0L);
+                send(exchange, 200, "<CompleteMultipartUploadResult xmlns=\"" + S3_NAMESPACE + "\"><Location>"
+                    + getEndpoint() + "/" + path + "</Location><Bucket>" + bucket + "</Bucket><Key>" + key
+                    + "</Key><ETag>&quot;" + eTag + "&quot;</ETag></CompleteMultipartUploadResult>");
+
+            } else if ("HEAD".equals(method)) {
+                final String eTag = objectETags.get(path);
+                if (key.isEmpty()) {
+                    send(exchange, 200, null);
+                } else if (eTag == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.getResponseHeaders().add("ETag", "\"" + eTag + "\"");
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(objectSizes.get(path)));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+
+            } else if ("DELETE".equals(method)) {
+                if (!query.containsKey("uploadId")) {
+                    objectETags.remove(path);
+                    objectSizes.remove(path);
+                }
+                exchange.sendResponseHeaders(204, -1);
+
+            } else {
+                sendError(exchange, 501, "NotImplemented", method + " is not implemented by the stub");
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Read body at the configured bandwidth, decoding aws-chunked content of signed streaming uploads
+     */
+    private Body readBody(HttpExchange exchange) throws IOException {
+        final String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        final boolean chunked = contentSha256 != null && contentSha256.startsWith("STREAMING-");
+        final MessageDigest digest = md5();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+
+        try (InputStream input = exchange.getRequestBody()) {
+            if (chunked) {
+                long chunkSize;
+                while ((chunkSize = readChunkSize(input)) > 0) {
+                    size += copy(input, chunkSize, digest, buffer);
+                    readLine(input);
+                }
+                readLine(input);
+            } else {
+                size += copy(input, Long.MAX_VALUE, digest, buffer);
+            }
+        }
+        receivedBytes.addAndGet(size);
+        return new Body(size, toHex(digest.digest()));
+    }
+
+    private long copy(InputStream input, long length, MessageDigest digest, byte[] buffer) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            final int read = input.read(buffer, 0, (int) Math.min(buffer.length, length - copied));
+            if (read < 0) {
+                if (length == Long.MAX_VALUE) {
+                    break;
+                }
+                throw new EOFException("Body ended after " + copied + " of " + length + " bytes");
+            }
+            if (bandwidth != null) {
+                bandwidth.acquire(read);
+            }
+            digest.update(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    /**
+     * Chunk header: hex size;chunk-signature=...
+     */
+    private static long readChunkSize(InputStream input) throws IOException {
+        final String header = readLine(input);
+        final int extension = header.indexOf(';');
+        return Long.parseLong(extension >= 0 ? header.substring(0, extension) : header, 16);
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Chunk header not ended");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+        if (xml == null) {
+            exchange.getResponseHeaders().add("Content-Length", "0");
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        final byte[] content = (XML_HEADER + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, content.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(content);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String message)
+        throws IOException {
+        send(exchange, status, "<Error><Code>" + code + "</Code><Message>" + message + "</Message><RequestId>"
+            + UUID.randomUUID() + "</RequestId></Error>");
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        final Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                final int equals = parameter.indexOf('=');
+                parameters.put(equals >= 0 ? parameter.substring(0, equals) : parameter,
+                    equals >= 0 ? parameter.substring(equals + 1) : "");
+            }
+        }
+        return parameters;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static class Body
+    {
+        private final long size;
+        private final String md5Hex;
+
+        Body(long size, String md5Hex) {
+            this.size = size;
+            this.md5Hex = md5Hex;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.openmind.intellij.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.helper.FileHelper;
+import com.openmind.intellij.service.impl.OutputFileServiceImpl;
+
+
+/**
+ * Scale checks on synthetic projects of 1k, 10k and 100k selected files: maven modules with webapps,
+ * Hybris bin/custom extensions and inner class heavy packages. Each phase is timed once, cold, and checked
+ * against time and memory budgets by file, so the same budgets hold at every scale and a cost growing faster
+ * than the number of files fails at the biggest one.
+ * Phases run the code of an upload: service construction, enumeration of full module selections (all files of
+ * source roots and webapps, with the parallel walk of the plugin), upload planning with the planner of the plugin
+ * (compiled file, deploy path and inner classes of each file). Allocations are measured in the calling thread,
+ * so they are not checked for the enumeration, which walks folders in its own pool.
+ * Arguments: scenario name regex (default all). Budgets can be relaxed on slow machines with
+ * -Dscale.budget.factor=2. Exit status is 1 if a budget is exceeded
+ */
+public class ScaleSuite
+{
+    private static final String DEPLOYED_PROJECT_PATH = "project/";
+
+    // budgets, construction does not depend on the number of files
+    private static final long CONSTRUCTION_MILLIS = 250;
+    private static final long CONSTRUCTION_ALLOCATED_BYTES = 32L * 1024 * 1024;
+    private static final long ENUMERATION_MICROS_PER_FILE = 100;
+    private static final long PLANNING_MICROS_PER_FILE = 300;
+    private static final long PLANNING_ALLOCATED_BYTES_PER_FILE = 32 * 1024;
+    private static final long PLANNING_RETAINED_BYTES_PER_ITEM = 2 * 1024;
+
+    private static final List<Scenario> SCENARIOS = Arrays.asList(
+        new Scenario("maven-1k", () -> new SyntheticProject(10, 2, 8, 40, 3, 100).withWebappFiles(20)),
+        new Scenario("maven-10k", () -> new SyntheticProject(100, 2, 8, 40, 3, 100).withWebappFiles(20)),
+        new Scenario("maven-100k", () -> new SyntheticProject(500, 2, 8, 80, 3, 100).withWebappFiles(40)),
+        new Scenario("hybris-10k", () -> new SyntheticProject(100, 2, 8, 40, 3, 100).withWebappFiles(20)
+            .withHybrisLayout(true)),
+        new Scenario("inner-classes-10k", () -> new SyntheticProject(100, 1, 8, 100, 10, 100)));
+
+    private final double budgetFactor = Double.parseDouble(System.getProperty("scale.budget.factor", "1"));
+    private final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private int exceededBudgets;
+
+    public static void main(String[] args) throws Exception {
+        final Pattern scenarioPattern = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        final ScaleSuite suite = new ScaleSuite();
+
+        System.out.printf("%-18s %-12s %8s %10s %10s %12s %12s  %s%n", "scenario", "phase", "files", "ms",
+            "us/file", "alloc/file", "heap/item", "budget");
+        for (Scenario scenario : SCENARIOS) {
+            if (scenarioPattern.matcher(scenario.name).matches()) {
+                suite.run(scenario);
+            }
+        }
+        System.out.println(suite.exceededBudgets == 0 ? "All budgets met" : suite.exceededBudgets
+            + " budgets exceeded");
+        System.exit(suite.exceededBudgets == 0 ? 0 : 1);
+    }
+
+    private void run(Scenario scenario) throws Exception {
+        final SyntheticProject project = scenario.layout.get().create();
+        final HeadlessEnvironment environment = new HeadlessEnvironment();
+        try {
+            final int files = project.getSourceFiles().size();
+
+            // construction
+            final Measure<OutputFileServiceImpl> construction = measure(
+                () -> environment.createOutputFileService(project));
+            check(scenario, "construct", files, construction, CONSTRUCTION_MILLIS * 1000, CONSTRUCTION_ALLOCATED_BYTES,
+                0, 0);
+            final OutputFileServiceImpl service = construction.result;
+
+            // all files of selected modules, as enumerated for an upload
+            final List<String> selectedFolders = new ArrayList<>(project.getSourceRoots());
+            selectedFolders.addAll(project.getWebappFolders());
+            final VirtualFile[] selection = environment.findFiles(selectedFolders).toArray(VirtualFile.EMPTY_ARRAY);
+            final Measure<List<VirtualFile>> enumeration = measure(() -> {
+                final List<VirtualFile> selectedFiles = Collections.synchronizedList(new ArrayList<>());
+                FileHelper.visitFiles(selection, f -> false, selectedFiles::add);
+                return selectedFiles;
+            });
+            check(scenario, "enumerate", files, enumeration, ENUMERATION_MICROS_PER_FILE * files, 0, 0, 0);
+
+            // items to upload
+            final List<VirtualFile> selectedFiles = enumeration.result;
+            final Measure<List<UploadItem>> planning = measure(() -> plan(service, selectedFiles));
+            final int items = planning.result.size();
+            check(scenario, "plan", files, planning, PLANNING_MICROS_PER_FILE * files,
+                PLANNING_ALLOCATED_BYTES_PER_FILE * files, items, PLANNING_RETAINED_BYTES_PER_ITEM * items);
+
+        } finally {
+            environment.dispose();
+            project.delete();
+        }
+    }
+
+    /**
+     * Compiled file, deploy path and inner classes of each file, with the planner of the plugin
+     */
+    private static List<UploadItem> plan(OutputFileServiceImpl service, List<VirtualFile> files) {
+        final UploadMetrics metrics = new UploadMetrics("scale");
+        final List<UploadItem> items = new ArrayList<>();
+        for (VirtualFile file : files) {
+            items.addAll(service.planUpload(null, file, DEPLOYED_PROJECT_PATH, metrics));
+        }
+        return items;
+    }
+
+    /**
+     * Run once in the current thread: time, allocated bytes and heap retained by the result
+     */
+    private <T> Measure<T> measure(Callable<T> phase) throws Exception {
+        final long heapBefore = getUsedHeap();
+        final long allocatedBefore = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        final long startTime = System.nanoTime();
+        final T result = phase.call();
+        final long nanos = System.nanoTime() - startTime;
+        final long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        return new Measure<>(result, nanos, allocated, getUsedHeap() - heapBefore);
+    }
+
+    private static long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Print phase and compare with budgets, allocated and retained budgets of 0 are not checked
+     */
+    private void check(Scenario scenario, String phase, int files, Measure<?> measure, long budgetMicros,
+        long budgetAllocatedBytes, int items, long budgetRetainedBytes) {
+        final List<String> exceeded = new ArrayList<>();
+        final long micros = TimeUnit.NANOSECONDS.toMicros(measure.nanos);
+        if (micros > budgetMicros * budgetFactor) {
+            exceeded.add("time > " + budgetMicros / 1000 + " ms");
+        }
+        if (budgetAllocatedBytes > 0 && measure.allocatedBytes > budgetAllocatedBytes * budgetFactor) {
+            exceeded.add("allocated > " + budgetAllocatedBytes / 1024 + " KB");
+        }
+        if (budgetRetainedBytes > 0 && measure.retainedBytes > budgetRetainedBytes * budgetFactor) {
+            exceeded.add("retained > " + budgetRetainedBytes / 1024 + " KB");
+        }
+        exceededBudgets += exceeded.size();
+
+        System.out.printf("%-18s %-12s %8d %10.1f %10.1f %12s %12s  %s%n", scenario.name, phase, files,
+            measure.nanos / 1e6, micros / (double) files,
+            budgetAllocatedBytes > 0 ? String.valueOf(measure.allocatedBytes / files) : "-",
+            items > 0 ? String.valueOf(measure.retainedBytes / items) : "-",
+            exceeded.isEmpty() ? "ok" : "EXCEEDED: " + String.join(", ", exceeded));
+    }
+
+    private static class Scenario
+    {
+        private final String name;
+        private final Supplier<SyntheticProject> layout;
+
+        Scenario(String name, Supplier<SyntheticProject> layout) {
+            this.name = name;
+            this.layout = layout;
+        }
+    }
+
+    private static class Measure<T>
+    {
+        private final T result;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long retainedBytes;
+
+        Measure(T result, long nanos, long allocatedBytes, long retainedBytes) {
+            this.result = result;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.retainedBytes = retainedBytes;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.openmind.intellij.benchmark;
+
+import static org.apache.commons.lang.StringUtils.replaceOnce;
+import static org.apache.commons.lang.StringUtils.substringBeforeLast;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.openmind.intellij.bean.SegmentPath;
+import com.openmind.intellij.service.impl.DeployPathResolver;
+
+
+/**
+ * Allocation of deploy path resolution before and after the segment path model: compare the
+ * gc.alloc.rate.norm of stringDeployPath (string matching of the original service, default FROM_SOURCES
+ * strategy) with segmentDeployPath, and parse alone, which is paid by every resolution
+ */
+public class SegmentPathBenchmark extends AbstractProjectBenchmark
+{
+    private static final String SEPARATOR = "/";
+    private static final String DEPLOY_PATH_MAPPINGS_KEY = "deploy.path.mappings.";
+    private static final String DEFAULT_DEPLOY_SOURCE_OUTPUT = "/WEB-INF/classes/";
+
+    private DeployPathResolver deployPathResolver;
+    private List<String> sourceFiles;
+    private final Map<String, String> customDeployMappings = new TreeMap<>();
+
+    @Setup
+    public void setup() throws IOException {
+        createProject();
+        sourceFiles = project.getSourceFiles();
+        deployPathResolver = DeployPathResolver.create(project.getBasePath(), project.getContentRoots(),
+            project.getSourceRoots(), project.getProperties());
+        project.getProperties().forEach((k, v) -> {
+            if (k.toString().startsWith(DEPLOY_PATH_MAPPINGS_KEY)) {
+                customDeployMappings.put(k.toString().substring(DEPLOY_PATH_MAPPINGS_KEY.length()), v.toString());
+            }
+        });
+    }
+
+    @Benchmark
+    public String segmentDeployPath() {
+        return deployPathResolver.getProjectRelativeDeployPath(sourceFiles.get(nextIndex(sourceFiles.size())));
+    }
+
+    @Benchmark
+    public String stringDeployPath() {
+        return getStringDeployPath(sourceFiles.get(nextIndex(sourceFiles.size())));
+    }
+
+    @Benchmark
+    public SegmentPath parse() {
+        return SegmentPath.of(sourceFiles.get(nextIndex(sourceFiles.size())));
+    }
+
+    /**
+     * Deploy folder as computed before the segment path model, without the prefix
+     */
+    private String getStringDeployPath(String sourceFile) {
+        final String originalPath = substringBeforeLast(sourceFile, SEPARATOR);
+        final Optional<String> contentRoot = project.getContentRoots().stream()
+            .filter(r -> originalPath.startsWith(r))
+            .findFirst();
+        final Optional<String> sourceRoot = project.getSourceRoots().stream()
+            .filter(r -> originalPath.startsWith(r))
+            .findFirst();
+
+        // custom mappings, unmatched in synthetic projects
+        final String originalFolder = originalPath + SEPARATOR;
+        for (Map.Entry<String, String> mapping : customDeployMappings.entrySet()) {
+            if (originalFolder.contains(mapping.getKey())) {
+                return replaceOnce(originalPath, substringBeforeLast(mapping.getKey(), SEPARATOR),
+                    substringBeforeLast(mapping.getValue(), SEPARATOR));
+            }
+        }
+
+        // auto source to output transformation
+        if (!contentRoot.isPresent() || !sourceRoot.isPresent()
+            || sourceRoot.get().length() <= contentRoot.get().length()) {
+            throw new IllegalArgumentException("No sourceRoot found for " + originalPath);
+        }
+        final String sourceFolders = SEPARATOR
+            + replaceOnce(sourceRoot.get(), contentRoot.get() + SEPARATOR, "") + SEPARATOR;
+        final String processedPath = replaceOnce(originalFolder, sourceFolders, DEFAULT_DEPLOY_SOURCE_OUTPUT);
+        return replaceOnce(processedPath, contentRoot.get() + SEPARATOR, "");
+    }
+}
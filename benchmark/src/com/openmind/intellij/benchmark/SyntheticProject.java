@@ -0,0 +1,237 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+
+/**
+ * Generated project layout on disk: modules with maven source roots, deep packages, compiled classes with
+ * inner classes, webapp folders, and mapping tables in s3upload.properties. Unmatched mappings are listed before
+ * the matching one. The Hybris layout puts extensions in bin/custom, with src and classes folders
+ */
+public class SyntheticProject
+{
+    private static final String SOURCE_ROOT = "src/main/java";
+    private static final String OUTPUT_ROOT = "target/classes";
+    private static final String WEBAPP_ROOT = "src/main/webapp";
+    private static final String HYBRIS_MODULES = "bin/custom";
+    private static final String HYBRIS_SOURCE_ROOT = "src";
+    private static final String HYBRIS_OUTPUT_ROOT = "classes";
+    private static final String HYBRIS_WEBAPP_ROOT = "web/webroot";
+    private static final String[] WEBAPP_EXTENSIONS = { "jsp", "js", "css", "html", "tag" };
+    private static final int WEBAPP_FILES_PER_FOLDER = 50;
+
+    private final int modules;
+    private final int sourceRoots;
+    private final int packageDepth;
+    private final int classesPerPackage;
+    private final int innerClasses;
+    private final int mappings;
+    private int webappFiles;
+    private boolean hybris;
+
+    private final List<String> contentRoots = new ArrayList<>();
+    private final List<String> productionSourceRoots = new ArrayList<>();
+    private final List<String> sourceFiles = new ArrayList<>();
+    private final List<String> outputFolders = new ArrayList<>();
+    private final List<String> webappFolders = new ArrayList<>();
+    private final Properties properties = new Properties();
+    private Path basePath;
+
+    /**
+     * @param modules
+     * @param sourceRoots by module, the first is src/main/java, the others generated source roots
+     * @param packageDepth folders of each package
+     * @param classesPerPackage one package by source root
+     * @param innerClasses compiled inner classes by class, eg: Class$1.class
+     * @param mappings unmatched custom mappings, compile and deploy
+     */
+    public SyntheticProject(int modules, int sourceRoots, int packageDepth, int classesPerPackage, int innerClasses,
+        int mappings) {
+        this.modules = modules;
+        this.sourceRoots = sourceRoots;
+        this.packageDepth = packageDepth;
+        this.classesPerPackage = classesPerPackage;
+        this.innerClasses = innerClasses;
+        this.mappings = mappings;
+    }
+
+    /**
+     * Web resources by module, eg: jsp and js files
+     * @param webappFiles
+     * @return this
+     */
+    public SyntheticProject withWebappFiles(int webappFiles) {
+        this.webappFiles = webappFiles;
+        return this;
+    }
+
+    /**
+     * Hybris extensions in bin/custom instead of maven modules, the plugin then uses its Hybris defaults
+     * @param hybris
+     * @return this
+     */
+    public SyntheticProject withHybrisLayout(boolean hybris) {
+        this.hybris = hybris;
+        return this;
+    }
+
+    /**
+     * Write files in a new temporary folder
+     * @return this
+     * @throws IOException
+     */
+    public SyntheticProject create() throws IOException {
+        basePath = Files.createTempDirectory("s3upload-benchmark").toRealPath();
+
+        final StringBuilder compileMappings = new StringBuilder();
+        for (int i = 0; i < mappings; i++) {
+            compileMappings.append("/unmatched").append(i).append("/java:/target/unmatched").append(i).append(',');
+            properties.setProperty("deploy.path.mappings./custom" + i + "/", "/deploy" + i + "/");
+        }
+        for (int r = 0; r < sourceRoots; r++) {
+            compileMappings.append('/').append(getSourceRoot(r)).append(":/").append(getOutputRoot()).append(',');
+        }
+        properties.setProperty("compile.mapping.path.java", compileMappings.toString());
+
+        for (int m = 0; m < modules; m++) {
+            final Path module = Paths.get(getModulePath(m));
+            contentRoots.add(module.toString());
+            for (int r = 0; r < sourceRoots; r++) {
+                final String sourceRoot = getSourceRoot(r);
+                productionSourceRoots.add(module.resolve(sourceRoot).toString());
+                createPackage(module, sourceRoot, "m" + m + "r" + r);
+            }
+            if (webappFiles > 0) {
+                createWebapp(module.resolve(hybris ? HYBRIS_WEBAPP_ROOT : WEBAPP_ROOT));
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(basePath.resolve("s3upload.properties"),
+            StandardCharsets.ISO_8859_1)) {
+            properties.store(writer, null);
+        }
+        return this;
+    }
+
+    private String getSourceRoot(int index) {
+        if (hybris) {
+            return index == 0 ? HYBRIS_SOURCE_ROOT : "gensrc" + index;
+        }
+        return index == 0 ? SOURCE_ROOT : "src/gen" + index + "/java";
+    }
+
+    private String getOutputRoot() {
+        return hybris ? HYBRIS_OUTPUT_ROOT : OUTPUT_ROOT;
+    }
+
+    /**
+     * Package of a source root, all classes compiled to the module output folder
+     */
+    private void createPackage(Path module, String sourceRoot, String name) throws IOException {
+        final StringBuilder packagePath = new StringBuilder("com/example/").append(name);
+        for (int d = 0; d < packageDepth; d++) {
+            packagePath.append("/p").append(d);
+        }
+        final Path sourceFolder = Files.createDirectories(module.resolve(sourceRoot).resolve(packagePath.toString()));
+        final Path outputFolder = Files.createDirectories(module.resolve(getOutputRoot())
+            .resolve(packagePath.toString()));
+        outputFolders.add(outputFolder.toString());
+
+        final byte[] content = "class Synthetic {}".getBytes(StandardCharsets.UTF_8);
+        for (int c = 0; c < classesPerPackage; c++) {
+            final String className = "Class" + c;
+            final Path sourceFile = sourceFolder.resolve(className + ".java");
+            Files.write(sourceFile, content);
+            sourceFiles.add(sourceFile.toString());
+
+            Files.write(outputFolder.resolve(className + ".class"), content);
+            for (int i = 1; i <= innerClasses; i++) {
+                Files.write(outputFolder.resolve(className + "$" + i + ".class"), content);
+            }
+        }
+    }
+
+    /**
+     * Web resources in nested folders, as in a large webapp
+     */
+    private void createWebapp(Path webapp) throws IOException {
+        webappFolders.add(webapp.toString());
+        final byte[] content = "<html/>".getBytes(StandardCharsets.UTF_8);
+        for (int f = 0; f < webappFiles; f++) {
+            final int folder = f / WEBAPP_FILES_PER_FOLDER;
+            final Path folderPath = Files.createDirectories(webapp.resolve("WEB-INF/views/section" + folder % 10)
+                .resolve("page" + folder));
+            final Path sourceFile = folderPath.resolve("file" + f + "."
+                + WEBAPP_EXTENSIONS[f % WEBAPP_EXTENSIONS.length]);
+            Files.write(sourceFile, content);
+            sourceFiles.add(sourceFile.toString());
+        }
+    }
+
+    /**
+     * Delete generated files
+     * @throws IOException
+     */
+    public void delete() throws IOException {
+        if (basePath == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(basePath)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    public String getBasePath() {
+        return basePath.toString();
+    }
+
+    public List<String> getContentRoots() {
+        return contentRoots;
+    }
+
+    public List<String> getSourceRoots() {
+        return productionSourceRoots;
+    }
+
+    /**
+     * Java sources and web resources of all modules
+     */
+    public List<String> getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * Folders of compiled classes
+     */
+    public List<String> getOutputFolders() {
+        return outputFolders;
+    }
+
+    /**
+     * Webapp folders of all modules
+     */
+    public List<String> getWebappFolders() {
+        return webappFolders;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public String getModulePath(int module) {
+        return hybris
+            ? Paths.get(getBasePath(), HYBRIS_MODULES, "module" + module).toString()
+            : Paths.get(getBasePath(), "module" + module).toString();
+    }
+}
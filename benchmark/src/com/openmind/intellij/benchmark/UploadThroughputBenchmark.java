@@ -0,0 +1,227 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openmind.intellij.bean.LatencyHistogram;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Counter;
+import com.openmind.intellij.bean.UploadMetrics.Stage;
+import com.openmind.intellij.bean.UploadReport;
+import com.openmind.intellij.service.impl.S3RequestMetrics;
+import com.openmind.intellij.service.impl.S3Uploader;
+import com.openmind.intellij.service.impl.UploadPipeline;
+
+
+/**
+ * End-to-end upload throughput against the in-process S3 stub: generated files are hashed and uploaded by
+ * the plugin pipeline and uploader, with the client configuration, retry policy and request metrics
+ * of the plugin. Runs offline, by file profile, upload threads and engine (multipart threshold).
+ * Arguments: profile name regex (default all), result file (default upload-benchmark-result.json).
+ * Stub settings: -Dstub.latency=millis (default 5), -Dstub.bandwidth=bytes/s (default unlimited),
+ * -Dstub.throttle=fraction of 503 responses (default 0)
+ */
+public class UploadThroughputBenchmark
+{
+    private static final String BUCKET = "benchmark-bucket";
+    private static final String REGION = "us-east-1";
+    private static final int[] UPLOAD_THREADS = { 1, 4, 8, 16, 32 };
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final int HASH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int KB = 1024;
+    private static final int MB = 1024 * KB;
+
+    private enum Profile {
+        // compiled classes of a module
+        TINY(new int[] { 10000 }, new int[] { 2 * KB }),
+        // deployable archives
+        LARGE(new int[] { 4 }, new int[] { 40 * MB }),
+        MIXED(new int[] { 2000, 200, 2 }, new int[] { 2 * KB, 200 * KB, 32 * MB });
+
+        private final int[] counts;
+        private final int[] sizes;
+
+        Profile(int[] counts, int[] sizes) {
+            this.counts = counts;
+            this.sizes = sizes;
+        }
+
+        private int getMaxSize() {
+            int max = 0;
+            for (int size : sizes) {
+                max = Math.max(max, size);
+            }
+            return max;
+        }
+    }
+
+    private enum Engine {
+        SINGLE_REQUEST(Long.MAX_VALUE),
+        MULTIPART_16MB(S3Uploader.DEFAULT_MULTIPART_THRESHOLD),
+        MULTIPART_5MB(5 * MB);
+
+        private final long multipartThreshold;
+
+        Engine(long multipartThreshold) {
+            this.multipartThreshold = multipartThreshold;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Pattern profilePattern = Pattern.compile(args.length > 0 ? args[0] : ".*", Pattern.CASE_INSENSITIVE);
+        final File resultFile = new File(args.length > 1 ? args[1] : "upload-benchmark-result.json");
+        final S3StubServer server = new S3StubServer(Long.getLong("stub.latency", 5),
+            Long.getLong("stub.bandwidth", 0), Double.parseDouble(System.getProperty("stub.throttle", "0")))
+            .start();
+        final List<Map<String, Object>> results = new ArrayList<>();
+
+        System.out.printf("%-8s %-15s %7s %10s %9s %9s %9s %8s %7s%n", "profile", "engine", "threads", "files/s",
+            "MB/s", "PUT p50", "PUT p99", "retries", "failed");
+        try {
+            for (Profile profile : Profile.values()) {
+                if (!profilePattern.matcher(profile.name()).matches()) {
+                    continue;
+                }
+                final Path folder = Files.createTempDirectory("s3upload-upload-benchmark");
+                try {
+                    final List<File> files = createFiles(folder, profile);
+                    // warm up client, pipeline and server, not reported
+                    run(server, folder, files, Engine.SINGLE_REQUEST, UPLOAD_THREADS[UPLOAD_THREADS.length / 2]);
+
+                    for (Engine engine : Engine.values()) {
+                        // same requests as a single request below the threshold
+                        if (engine != Engine.SINGLE_REQUEST && profile.getMaxSize() < engine.multipartThreshold) {
+                            continue;
+                        }
+                        for (int threads : UPLOAD_THREADS) {
+                            results.add(print(profile, engine, threads,
+                                run(server, folder, files, engine, threads)));
+                        }
+                    }
+                } finally {
+                    delete(folder);
+                }
+            }
+        } finally {
+            server.stop();
+        }
+
+        try (OutputStream output = Files.newOutputStream(resultFile.toPath())) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(output, results);
+        }
+        System.out.println("Results: " + resultFile.getAbsolutePath());
+    }
+
+    /**
+     * Upload all files through a new client
+     * @return metrics, with the stub counters in settings
+     */
+    private static RunResult run(S3StubServer server, Path folder, List<File> files, Engine engine, int threads) {
+        server.reset();
+        final S3RequestMetrics requestMetrics = new S3RequestMetrics();
+        final AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
+            .withClientConfiguration(S3Uploader.createClientConfiguration(threads)
+                .withRetryPolicy(requestMetrics.toRetryPolicy()))
+            .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("benchmark", "benchmark")))
+            .withRequestHandlers(requestMetrics)
+            .withPathStyleAccessEnabled(true)
+            .withEndpointConfiguration(new EndpointConfiguration(server.getEndpoint(), REGION))
+            .build();
+        final UploadMetrics metrics = new UploadMetrics("benchmark");
+        metrics.setting("engine", engine.name());
+        metrics.setting("multipartThreshold", engine.multipartThreshold);
+        final S3Uploader uploader = new S3Uploader(s3Client, BUCKET, engine.multipartThreshold, metrics);
+        try {
+            final UploadPipeline<File> pipeline = new UploadPipeline<>(QUEUE_CAPACITY, 1, HASH_THREADS, threads,
+                () -> false, metrics);
+            final UploadReport report = pipeline.run(consumer -> files.forEach(consumer),
+                file -> Collections.singletonList(new UploadItem(file,
+                    folder.relativize(file.toPath()).toString().replace(File.separatorChar, '/'))),
+                uploader::upload);
+            return new RunResult(metrics, report);
+
+        } finally {
+            metrics.end();
+            metrics.setting("stubRequests", server.getRequests());
+            metrics.setting("stubThrottledRequests", server.getThrottledRequests());
+            metrics.setting("stubReceivedBytes", server.getReceivedBytes());
+            uploader.shutdown();
+            s3Client.shutdown();
+        }
+    }
+
+    private static Map<String, Object> print(Profile profile, Engine engine, int threads, RunResult result) {
+        final UploadMetrics metrics = result.metrics;
+        final LatencyHistogram putHistogram = metrics.getHistogram(Stage.PUT);
+        final double filesPerSecond = metrics.get(Counter.FILES_UPLOADED) * 1000.0
+            / Math.max(1, metrics.getDurationMillis());
+        System.out.printf("%-8s %-15s %7d %10.1f %9.2f %9.1f %9.1f %8d %7d%n", profile, engine, threads,
+            filesPerSecond, metrics.getThroughput(), putHistogram.getPercentileMillis(0.5),
+            putHistogram.getPercentileMillis(0.99), metrics.get(Counter.RETRIES), result.report.getFailed());
+
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("profile", profile.name());
+        map.put("engine", engine.name());
+        map.put("threads", threads);
+        map.put("filesPerSecond", filesPerSecond);
+        map.put("failed", result.report.getFailed());
+        map.put("metrics", metrics.toMap());
+        return map;
+    }
+
+    /**
+     * Random content, so that nothing is compressed or deduplicated on the way
+     */
+    private static List<File> createFiles(Path folder, Profile profile) throws IOException {
+        final List<File> files = new ArrayList<>();
+        final Random random = new Random(profile.ordinal());
+        for (int s = 0; s < profile.sizes.length; s++) {
+            final byte[] content = new byte[profile.sizes[s]];
+            for (int i = 0; i < profile.counts[s]; i++) {
+                // at most 100 files by folder, as in packages
+                final Path file = Files.createDirectories(folder.resolve("size" + s).resolve("p" + i / 100))
+                    .resolve("File" + i + ".bin");
+                random.nextBytes(content);
+                Files.write(file, content);
+                files.add(file.toFile());
+            }
+        }
+        return files;
+    }
+
+    private static void delete(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static class RunResult
+    {
+        private final UploadMetrics metrics;
+        private final UploadReport report;
+
+        RunResult(UploadMetrics metrics, UploadReport report) {
+            this.metrics = metrics;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.openmind.intellij.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.helper.FileHelper;
+
+
+/**
+ * All files of a selected module folder, sources and compiled classes, with the parallel walk of
+ * the upload enumerator. Nothing is skipped, there is no project model
+ */
+public class VisitFilesBenchmark extends AbstractProjectBenchmark
+{
+    private VirtualFile[][] moduleSelections;
+
+    @Setup
+    public void setup() throws IOException {
+        createProject();
+        moduleSelections = new VirtualFile[modules][];
+        for (int i = 0; i < modules; i++) {
+            moduleSelections[i] = new VirtualFile[] { environment.findFile(project.getModulePath(i)) };
+        }
+    }
+
+    @Benchmark
+    public int visitFiles() {
+        final AtomicInteger files = new AtomicInteger();
+        FileHelper.visitFiles(moduleSelections[nextIndex(modules)], f -> false, f -> files.incrementAndGet());
+        return files.get();
+    }
+}
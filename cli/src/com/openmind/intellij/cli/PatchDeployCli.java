@@ -0,0 +1,226 @@
+package com.openmind.intellij.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.services.s3.AmazonS3;
+import com.openmind.intellij.bean.ProjectLayout;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadReport;
+import com.openmind.intellij.helper.PathHelper;
+import com.openmind.intellij.helper.UploadIgnoreMatcher;
+import com.openmind.intellij.service.impl.PatchPlanner;
+import com.openmind.intellij.service.impl.S3ClientFactory;
+import com.openmind.intellij.service.impl.S3RequestMetrics;
+import com.openmind.intellij.service.impl.S3Uploader;
+import com.openmind.intellij.service.impl.UploadPipeline;
+
+
+/**
+ * Upload a patch from CI, without the IDE: same s3upload.properties, path resolution and upload pipeline
+ * of the plugin, modules read from a layout description.
+ * Credentials are read from the default AWS chain: environment, system properties, profile or instance role
+ */
+public class PatchDeployCli
+{
+    private static final String USAGE = "Usage: PatchDeployCli [options] <project folder> <deployed project path> "
+        + "[files or folders]" + System.lineSeparator()
+        + "  Without files, all source roots of the layout are uploaded" + System.lineSeparator()
+        + "  --layout <file>   layout description, default <project folder>/" + "s3upload-layout.properties"
+        + System.lineSeparator()
+        + "  --bucket <name>   default bucket.name of s3upload.properties, or {project.name}-releases"
+        + System.lineSeparator()
+        + "  --threads <n>     upload threads, default upload.threads of s3upload.properties, or 8"
+        + System.lineSeparator()
+        + "  --metrics <file>  write upload metrics as JSON" + System.lineSeparator()
+        + "  --dry-run         print the files to upload and their keys, without uploading";
+
+    // same keys and defaults of the plugin
+    private static final String PROJECT_PROPERTIES_FILE = "s3upload.properties";
+    private static final String LAYOUT_PROPERTIES_FILE = "s3upload-layout.properties";
+    private static final String S3_BUCKET_KEY = "bucket.name";
+    private static final String S3_BUCKET_SUFFIX = "-releases";
+    private static final String PROJECT_NAME = "project.name";
+    private static final String UPLOAD_THREADS_KEY = "upload.threads";
+    private static final int DEFAULT_UPLOAD_THREADS = 8;
+    private static final int PIPELINE_QUEUE_CAPACITY = 1000;
+    private static final int PIPELINE_RESOLVE_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int PIPELINE_HASH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private File projectFolder;
+    private String deployedProjectPath;
+    private final List<File> selection = new ArrayList<>();
+    private File layoutFile;
+    private String bucketName;
+    private Integer uploadThreads;
+    private File metricsFile;
+    private boolean dryRun;
+
+    public static void main(String[] args) {
+        final PatchDeployCli cli = new PatchDeployCli();
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(EXIT_USAGE);
+        }
+
+        try {
+            System.exit(cli.run() ? 0 : EXIT_FAILED);
+
+        } catch (Exception e) {
+            System.err.println("Upload failed: " + e.getMessage());
+            System.exit(EXIT_FAILED);
+        }
+    }
+
+    private void parseArguments(@NotNull String[] args) throws IllegalArgumentException {
+        final List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--layout":
+                    layoutFile = new File(getValue(args, ++i));
+                    break;
+                case "--bucket":
+                    bucketName = getValue(args, ++i);
+                    break;
+                case "--threads":
+                    uploadThreads = Integer.valueOf(getValue(args, ++i));
+                    break;
+                case "--metrics":
+                    metricsFile = new File(getValue(args, ++i));
+                    break;
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    positional.add(args[i]);
+            }
+        }
+        if (positional.size() < 2) {
+            throw new IllegalArgumentException("Project folder and deployed project path are required");
+        }
+        projectFolder = new File(positional.get(0)).getAbsoluteFile();
+        if (!projectFolder.isDirectory()) {
+            throw new IllegalArgumentException("Project folder not found: " + projectFolder);
+        }
+        deployedProjectPath = positional.get(1);
+        positional.subList(2, positional.size()).forEach(f -> {
+            final File file = new File(f);
+            selection.add(file.isAbsolute() ? file : new File(projectFolder, f));
+        });
+    }
+
+    @NotNull
+    private static String getValue(@NotNull String[] args, int index) throws IllegalArgumentException {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    /**
+     * Plan and upload selected files
+     * @return true if all files are uploaded
+     * @throws IOException
+     */
+    private boolean run() throws IOException {
+        final Properties customProperties = PathHelper.getProperties(
+            new File(projectFolder, PROJECT_PROPERTIES_FILE).getPath());
+        final ProjectLayout layout = ProjectLayout.load(projectFolder, PathHelper.getProperties(
+            (layoutFile != null ? layoutFile : new File(projectFolder, LAYOUT_PROPERTIES_FILE)).getPath()));
+        final PatchPlanner planner = new PatchPlanner(layout, customProperties);
+        final String deployedPrefix = PathHelper.toS3Key(deployedProjectPath, "");
+        if (selection.isEmpty()) {
+            layout.getSourceRoots().stream().map(File::new).filter(File::isDirectory).forEach(selection::add);
+        }
+        final UploadIgnoreMatcher ignoreMatcher = UploadIgnoreMatcher.load(projectFolder.getPath());
+
+        if (dryRun) {
+            final UploadMetrics metrics = new UploadMetrics("cli dry run");
+            final List<String> errors = new ArrayList<>();
+            enumerate(ignoreMatcher, file -> {
+                try {
+                    planner.plan(file, deployedPrefix, metrics)
+                        .forEach(item -> System.out.println(item.getFile() + " -> " + item.getKey()));
+                } catch (IllegalArgumentException e) {
+                    errors.add(file + ": " + e.getMessage());
+                }
+            });
+            errors.forEach(System.err::println);
+            return errors.isEmpty();
+        }
+
+        final String bucket = bucketName != null
+            ? bucketName
+            : customProperties.getProperty(S3_BUCKET_KEY,
+                customProperties.getProperty(PROJECT_NAME, projectFolder.getName()) + S3_BUCKET_SUFFIX);
+        final int threads = uploadThreads != null
+            ? uploadThreads
+            : Integer.parseInt(customProperties.getProperty(UPLOAD_THREADS_KEY,
+                String.valueOf(DEFAULT_UPLOAD_THREADS)));
+
+        final UploadMetrics metrics = new UploadMetrics("cli upload");
+        final AmazonS3 s3Client = S3ClientFactory.build(customProperties,
+            S3ClientFactory.getConfiguredRegion(customProperties), threads,
+            DefaultAWSCredentialsProviderChain.getInstance(), new S3RequestMetrics());
+        final S3Uploader uploader = new S3Uploader(s3Client, bucket, S3Uploader.DEFAULT_MULTIPART_THRESHOLD, metrics);
+        final UploadReport report;
+        try {
+            final UploadPipeline<File> pipeline = new UploadPipeline<>(PIPELINE_QUEUE_CAPACITY,
+                PIPELINE_RESOLVE_THREADS, PIPELINE_HASH_THREADS, threads, () -> false, metrics);
+            report = pipeline.run(consumer -> enumerate(ignoreMatcher, consumer),
+                file -> planner.plan(file, deployedPrefix, metrics), uploader::upload);
+
+        } finally {
+            metrics.end();
+            uploader.shutdown();
+            s3Client.shutdown();
+        }
+
+        System.out.println(report.getSummary(PathHelper.toS3Key(bucket, deployedProjectPath)));
+        System.out.printf("%.2f MB/s%n", metrics.getThroughput());
+        if (metricsFile != null) {
+            Files.write(metricsFile.toPath(), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+        return report.getFailed() == 0;
+    }
+
+    /**
+     * Selected files and files of selected folders, skipping the ones matching .s3uploadignore
+     */
+    private void enumerate(@NotNull UploadIgnoreMatcher ignoreMatcher, @NotNull Consumer<File> consumer)
+        throws IOException {
+        final Path basePath = projectFolder.toPath();
+        for (File selected : selection) {
+            if (!selected.exists()) {
+                throw new IllegalArgumentException("File not found: " + selected);
+            }
+            try (Stream<Path> files = Files.walk(selected.toPath())) {
+                files.filter(Files::isRegularFile)
+                    .filter(f -> ignoreMatcher.isEmpty() || !ignoreMatcher.isIgnored(
+                        basePath.relativize(f.toAbsolutePath()).toString().replace(File.separatorChar, '/')))
+                    .map(Path::toFile)
+                    .forEach(consumer);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.openmind.intellij.action;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.helper.FileHelper;
+import com.openmind.intellij.helper.WatchdogHelper;
+
+/**
+ * Action bound to an upload config.
+ * Menu item are shared between editor instances, so only the ones of the current S3 project are to be shown
+ */
+public abstract class AbstractUploadConfigAction extends AnAction implements Disposable {
+
+    // S3 project name of each project, read once
+    private static final Key<String> S3_PROJECT_NAME = Key.create("S3UploadPlugin.s3ProjectName");
+
+    private final String actionId;
+    private final String textPrefix;
+    private final String updateEntryPoint = getClass().getSimpleName() + ".update";
+    private final String actionEntryPoint = getClass().getSimpleName() + ".actionPerformed";
+    protected UploadConfig uploadConfig;
+
+    protected AbstractUploadConfigAction(@NotNull String actionName, @NotNull String textPrefix,
+        @NotNull UploadConfig uploadConfig) {
+        super(textPrefix + uploadConfig.getFileName() + " (" + uploadConfig.getVersion() + ")", null, null);
+        this.actionId = "S3UploadPlugin." + actionName + "." + uploadConfig.getFileName();
+        this.textPrefix = textPrefix;
+        this.uploadConfig = uploadConfig;
+    }
+
+    /**
+     * Menu click callback, timed
+     * @param event
+     */
+    @Override
+    public final void actionPerformed(AnActionEvent event) {
+        WatchdogHelper.run(actionEntryPoint, WatchdogHelper.ACTION_THRESHOLD_MILLIS, () -> performAction(event));
+    }
+
+    /**
+     * Handle action visibility and text, timed
+     * @param event
+     */
+    @Override
+    public final void update(AnActionEvent event) {
+        WatchdogHelper.run(updateEntryPoint, WatchdogHelper.UPDATE_THRESHOLD_MILLIS, () -> {
+            updateText(event);
+            updateAction(event);
+        });
+    }
+
+    /**
+     * Menu click callback
+     * @param event
+     */
+    protected abstract void performAction(@NotNull AnActionEvent event);
+
+    /**
+     * Called at every menu refresh, must be fast
+     * @param event
+     */
+    protected abstract void updateAction(@NotNull AnActionEvent event);
+
+    /**
+     * Show current version in menu, it changes while the IDE is open
+     * @param event
+     */
+    private void updateText(@NotNull AnActionEvent event) {
+        final UploadConfig config = uploadConfig;
+        if (config != null) {
+            event.getPresentation().setText(textPrefix + config.getFileName() + " (" + config.getVersion() + ")");
+        }
+    }
+
+    @Nullable
+    public UploadConfig getUploadConfig() {
+        return uploadConfig;
+    }
+
+    /**
+     * Check if config belongs to the S3 project of current project.
+     * The S3 project name is read once from the project properties and kept in the project: the upload service,
+     * which reads configs from S3 when created, is never created by a menu refresh
+     * @param project
+     * @return
+     */
+    protected boolean isSameS3Project(@NotNull Project project) {
+        String s3ProjectName = project.getUserData(S3_PROJECT_NAME);
+        if (s3ProjectName == null) {
+            s3ProjectName = FileHelper.getS3ProjectName(project);
+            project.putUserData(S3_PROJECT_NAME, s3ProjectName);
+        }
+        final UploadConfig config = uploadConfig;
+        return config != null && StringUtils.equals(s3ProjectName, config.getProjectName());
+    }
+
+    @NotNull
+    public String getActionId() {
+        return actionId;
+    }
+
+    @Override
+    public void dispose() {
+        ActionManager.getInstance().unregisterAction(actionId);
+        uploadConfig = null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.openmind.intellij.action;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.helper.FileHelper;
+import com.openmind.intellij.helper.NotificationHelper;
+import com.openmind.intellij.service.AmazonS3Service;
+
+/**
+ * Compare selected files with the deployed ones
+ */
+public class CompareWithS3Action extends AbstractUploadConfigAction {
+
+    public CompareWithS3Action(@NotNull UploadConfig uploadConfig){
+        super("CompareAction", "Compare with S3: ", uploadConfig);
+    }
+
+    /**
+     * Menu click callback: compare with S3
+     * @param event
+     */
+    protected void performAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        final Module module = event.getData(LangDataKeys.MODULE);
+        final VirtualFile[] files = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+
+        if (!FileHelper.canUploadFiles(files)) {
+            NotificationHelper.showEvent(project, "Could not find any selected file!", NotificationType.ERROR);
+            return;
+        }
+
+        // compare
+        AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
+        amazonS3Service.compareWithS3(module, files, uploadConfig);
+    }
+
+    /**
+     * Handle action visibility
+     * @param event
+     */
+    @Override
+    protected void updateAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        final VirtualFile[] files = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        event.getPresentation().setEnabledAndVisible(isSameS3Project(project) && FileHelper.canUploadSelection(files));
+    }
+}
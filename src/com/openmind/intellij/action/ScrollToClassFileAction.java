@@ -15,6 +15,7 @@ import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiManager;
 import com.openmind.intellij.helper.NotificationHelper;
 import com.openmind.intellij.helper.ScrollToFileHelper;
+import com.openmind.intellij.helper.WatchdogHelper;
 import com.openmind.intellij.service.OutputFileService;
 
 
@@ -23,6 +24,9 @@ import com.openmind.intellij.service.OutputFileService;
  */
 public class ScrollToClassFileAction extends AnAction {
 
+    private static final String ACTION_ENTRY_POINT = "ScrollToClassFileAction.actionPerformed";
+    private static final String UPDATE_ENTRY_POINT = "ScrollToClassFileAction.update";
+
     public ScrollToClassFileAction() {
     }
 
@@ -32,30 +36,33 @@ public class ScrollToClassFileAction extends AnAction {
      * @param event
      */
     public void actionPerformed(AnActionEvent event) {
-        final Project project = event.getData(PlatformDataKeys.PROJECT);
-        if (project == null) {
-            return;
-        }
-        final Module module = event.getData(LangDataKeys.MODULE);
-        final PsiFile selectedFile = event.getData(PlatformDataKeys.PSI_FILE);
+        WatchdogHelper.run(ACTION_ENTRY_POINT, WatchdogHelper.ACTION_THRESHOLD_MILLIS, () -> {
+            final Project project = event.getData(PlatformDataKeys.PROJECT);
+            if (project == null) {
+                return;
+            }
+            final Module module = event.getData(LangDataKeys.MODULE);
+            final PsiFile selectedFile = event.getData(PlatformDataKeys.PSI_FILE);
 
-        if (selectedFile == null || selectedFile.getVirtualFile() == null) {
-            NotificationHelper.showEvent(project, "Could not find any selected file!", NotificationType.ERROR);
-            return;
-        }
+            if (selectedFile == null || selectedFile.getVirtualFile() == null) {
+                NotificationHelper.showEvent(project, "Could not find any selected file!", NotificationType.ERROR);
+                return;
+            }
 
-        // get compiled class
-        OutputFileService outputFileService = ServiceManager.getService(project, OutputFileService.class);
-        try {
-            VirtualFile compiledFile = outputFileService.getCompiledOrOriginalFile(module, selectedFile.getVirtualFile());
-            PsiFile fileManaged = PsiManager.getInstance(project).findFile(compiledFile);
+            // get compiled class
+            OutputFileService outputFileService = ServiceManager.getService(project, OutputFileService.class);
+            try {
+                VirtualFile compiledFile = outputFileService.getCompiledOrOriginalFile(module,
+                    selectedFile.getVirtualFile());
+                PsiFile fileManaged = PsiManager.getInstance(project).findFile(compiledFile);
 
-            // scroll to file in navigator if found
-            ScrollToFileHelper.scroll(project, fileManaged);
+                // scroll to file in navigator if found
+                ScrollToFileHelper.scroll(project, fileManaged);
 
-        } catch (Exception e) {
-            NotificationHelper.showEvent(project, ".class file not found!", NotificationType.ERROR);
-        }
+            } catch (Exception e) {
+                NotificationHelper.showEvent(project, ".class file not found!", NotificationType.ERROR);
+            }
+        });
     }
 
 
@@ -65,15 +72,17 @@ public class ScrollToClassFileAction extends AnAction {
      */
     @Override
     public void update(AnActionEvent event) {
-        final Project project = event.getData(CommonDataKeys.PROJECT);
-        if (project == null)
-            return;
+        WatchdogHelper.run(UPDATE_ENTRY_POINT, WatchdogHelper.UPDATE_THRESHOLD_MILLIS, () -> {
+            final Project project = event.getData(CommonDataKeys.PROJECT);
+            if (project == null)
+                return;
 
-        PsiFile psiFile = event.getData(PlatformDataKeys.PSI_FILE);
-        event.getPresentation().setEnabledAndVisible(
-            psiFile != null
-            && psiFile.getVirtualFile() != null
-            && !psiFile.getVirtualFile().isDirectory()
-            && psiFile instanceof PsiJavaFile);
+            PsiFile psiFile = event.getData(PlatformDataKeys.PSI_FILE);
+            event.getPresentation().setEnabledAndVisible(
+                psiFile != null
+                && psiFile.getVirtualFile() != null
+                && !psiFile.getVirtualFile().isDirectory()
+                && psiFile instanceof PsiJavaFile);
+        });
     }
 }
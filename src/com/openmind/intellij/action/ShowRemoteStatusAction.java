@@ -0,0 +1,46 @@
+package com.openmind.intellij.action;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.service.AmazonS3Service;
+
+/**
+ * Show deploy status of project files for an upload config
+ */
+public class ShowRemoteStatusAction extends AbstractUploadConfigAction {
+
+    public ShowRemoteStatusAction(@NotNull UploadConfig uploadConfig){
+        super("RemoteStatusAction", "Show status of: ", uploadConfig);
+    }
+
+    /**
+     * Menu click callback: read status from S3
+     * @param event
+     */
+    protected void performAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
+        amazonS3Service.refreshRemoteStatus(uploadConfig);
+    }
+
+    /**
+     * Handle action visibility
+     * @param event
+     */
+    @Override
+    protected void updateAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        event.getPresentation().setEnabledAndVisible(isSameS3Project(project));
+    }
+}
@@ -0,0 +1,56 @@
+package com.openmind.intellij.action;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.service.AmazonS3Service;
+
+/**
+ * Upload the output folder of the selected module to s3. In mirror mode remote files without a local one are deleted
+ */
+public class SyncModuleOutputToS3Action extends AbstractUploadConfigAction {
+
+    private final boolean mirror;
+
+    public SyncModuleOutputToS3Action(@NotNull UploadConfig uploadConfig, boolean mirror){
+        super(mirror ? "MirrorModuleOutputAction" : "SyncModuleOutputAction",
+            mirror ? "Mirror module output: " : "Sync module output: ", uploadConfig);
+        this.mirror = mirror;
+    }
+
+    /**
+     * Menu click callback: sync module output to S3
+     * @param event
+     */
+    protected void performAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        final Module module = event.getData(LangDataKeys.MODULE);
+        if (project ==null || module == null) {
+            return;
+        }
+
+        // upload
+        AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
+        amazonS3Service.syncModuleOutput(module, uploadConfig, mirror);
+    }
+
+    /**
+     * Handle action visibility: a module is required
+     * @param event
+     */
+    @Override
+    protected void updateAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        final Module module = event.getData(LangDataKeys.MODULE);
+        event.getPresentation().setEnabledAndVisible(isSameS3Project(project) && module != null);
+    }
+}
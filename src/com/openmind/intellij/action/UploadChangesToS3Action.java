@@ -0,0 +1,62 @@
+package com.openmind.intellij.action;
+
+import static com.openmind.intellij.service.AmazonS3Service.CHANGES_LOCAL;
+import static com.openmind.intellij.service.AmazonS3Service.CHANGES_SINCE_LAST_UPLOAD;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.service.AmazonS3Service;
+
+/**
+ * Upload files changed in VCS to s3
+ */
+public class UploadChangesToS3Action extends AbstractUploadConfigAction {
+
+    public UploadChangesToS3Action(@NotNull UploadConfig uploadConfig){
+        super("UploadChangesAction", "Upload changes: ", uploadConfig);
+    }
+
+    /**
+     * Menu click callback: choose changes and upload to S3
+     * @param event
+     */
+    protected void performAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+
+        // local changes, since last upload or any git ref
+        final String changesSince = Messages.showEditableChooseDialog(
+            "Upload files changed since (or type a git branch, tag or commit):",
+            "Upload Changes to " + uploadConfig.getFileName(), Messages.getQuestionIcon(),
+            new String[] { CHANGES_LOCAL, CHANGES_SINCE_LAST_UPLOAD }, CHANGES_LOCAL, null);
+        if (StringUtils.isBlank(changesSince)) {
+            return;
+        }
+
+        // upload
+        AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
+        amazonS3Service.uploadChanges(changesSince.trim(), uploadConfig);
+    }
+
+    /**
+     * Handle action visibility
+     * @param event
+     */
+    @Override
+    protected void updateAction(@NotNull AnActionEvent event) {
+        final Project project = event.getData(PlatformDataKeys.PROJECT);
+        if (project ==null) {
+            return;
+        }
+        event.getPresentation().setEnabledAndVisible(isSameS3Project(project));
+    }
+}
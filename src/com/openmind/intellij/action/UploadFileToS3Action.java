@@ -1,15 +1,8 @@
 package com.openmind.intellij.action;
 
-import java.util.ArrayList;
-
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import com.google.common.collect.Lists;
 import com.intellij.notification.NotificationType;
-import com.intellij.openapi.Disposable;
-import com.intellij.openapi.actionSystem.ActionManager;
-import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.actionSystem.LangDataKeys;
@@ -26,22 +19,17 @@ import com.openmind.intellij.service.AmazonS3Service;
 /**
  * Upload a file to s3
  */
-public class UploadFileToS3Action extends AnAction implements Disposable {
-
-    private final String actionId;
-    private UploadConfig uploadConfig;
+public class UploadFileToS3Action extends AbstractUploadConfigAction {
 
     public UploadFileToS3Action(@NotNull UploadConfig uploadConfig){
-        super(uploadConfig.getFileName() + " (" + uploadConfig.getVersion() + ")", null, null);
-        this.actionId = "S3UploadPlugin.UploadAction." + uploadConfig.getFileName();
-        this.uploadConfig = uploadConfig;
+        super("UploadAction", "", uploadConfig);
     }
 
     /**
      * Menu click callback: upload to S3
      * @param event
      */
-    public void actionPerformed(AnActionEvent event) {
+    protected void performAction(@NotNull AnActionEvent event) {
         final Project project = event.getData(PlatformDataKeys.PROJECT);
         if (project ==null) {
             return;
@@ -49,26 +37,24 @@ public class UploadFileToS3Action extends AnAction implements Disposable {
         final Module module = event.getData(LangDataKeys.MODULE);
         final VirtualFile[] files = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
 
-        // flatten files
-        ArrayList<VirtualFile> allFiles = Lists.newArrayList();
-        FileHelper.flattenAllChildren(files, allFiles);
-
-        if (allFiles.isEmpty()) {
+        if (!FileHelper.canUploadFiles(files)) {
             NotificationHelper.showEvent(project, "Could not find any selected file!", NotificationType.ERROR);
+            return;
         }
 
         // upload
         AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
-        amazonS3Service.uploadFiles(module, allFiles, uploadConfig);
+        amazonS3Service.uploadFiles(module, files, uploadConfig);
     }
 
     /**
      * Handle action visibility.
-     * Menu item are shared between editor instances, so only the correct ones are to be shown
+     * Menu item are shared between editor instances, so only the correct ones are to be shown.
+     * Only cached and O(1) checks, the whole selection is checked on click
      * @param event
      */
     @Override
-    public void update(AnActionEvent event) {
+    protected void updateAction(@NotNull AnActionEvent event) {
         final Project project = event.getData(PlatformDataKeys.PROJECT);
         if (project ==null) {
             return;
@@ -76,24 +62,12 @@ public class UploadFileToS3Action extends AnAction implements Disposable {
         final VirtualFile[] files = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
 
         // check S3 project
-        AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
-        boolean isSameS3Project = StringUtils.equals(amazonS3Service.getProjectName(), uploadConfig.getProjectName());
+        boolean isSameS3Project = isSameS3Project(project);
 
         // check files
-        boolean canUploadFiles = FileHelper.canUploadFiles(files);
+        boolean canUploadFiles = FileHelper.canUploadSelection(files);
 
         // hide or show
         event.getPresentation().setEnabledAndVisible(isSameS3Project && canUploadFiles);
     }
-
-    @NotNull
-    public String getActionId() {
-        return actionId;
-    }
-
-    @Override
-    public void dispose() {
-        ActionManager.getInstance().unregisterAction(actionId);
-        uploadConfig = null;
-    }
 }
@@ -0,0 +1,81 @@
+package com.openmind.intellij.bean;
+
+import java.io.File;
+
+
+/**
+ * Comparison of a local file with the deployed object
+ */
+public class DriftEntry
+{
+    public enum Status {
+
+        // local file not deployed
+        MISSING,
+
+        // deployed file with different content
+        DIFFERENT,
+
+        // deployed object without a local file
+        EXTRA,
+
+        // local file without a compiled file or a deploy path, not compared
+        UNKNOWN,
+
+        // deployed file with the same content
+        IDENTICAL
+    }
+
+    private final Status status;
+    private final String key;
+    private final File localFile;
+    private final String sourcePath;
+    private final long localSize;
+    private final long remoteSize;
+
+    /**
+     * @param status
+     * @param key
+     * @param localFile null for extra objects
+     * @param sourcePath source of local file, if any
+     * @param localSize
+     * @param remoteSize
+     */
+    public DriftEntry(Status status, String key, File localFile, String sourcePath, long localSize, long remoteSize) {
+        this.status = status;
+        this.key = key;
+        this.localFile = localFile;
+        this.sourcePath = sourcePath;
+        this.localSize = localSize;
+        this.remoteSize = remoteSize;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public File getLocalFile() {
+        return localFile;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public long getLocalSize() {
+        return localSize;
+    }
+
+    public long getRemoteSize() {
+        return remoteSize;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + key;
+    }
+}
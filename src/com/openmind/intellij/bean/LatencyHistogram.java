@@ -0,0 +1,84 @@
+package com.openmind.intellij.bean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Latencies in power of two buckets of microseconds. Lock free, percentiles are the upper bound of their bucket
+ */
+public class LatencyHistogram
+{
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        final long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros))].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1e6;
+    }
+
+    public double getMeanMillis() {
+        final long n = count.sum();
+        return n > 0 ? totalNanos.sum() / 1e6 / n : 0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return upper bound of the bucket, at most the max
+     */
+    public double getPercentileMillis(double percentile) {
+        final long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(((1L << (i + 1)) - 1) / 1e3, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", getCount());
+        map.put("totalMillis", getTotalMillis());
+        map.put("meanMillis", getMeanMillis());
+        map.put("p50Millis", getPercentileMillis(0.5));
+        map.put("p90Millis", getPercentileMillis(0.9));
+        map.put("p99Millis", getPercentileMillis(0.99));
+        map.put("maxMillis", getMaxMillis());
+        return map;
+    }
+}
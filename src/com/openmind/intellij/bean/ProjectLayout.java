@@ -0,0 +1,102 @@
+package com.openmind.intellij.bean;
+
+import static org.apache.commons.lang.StringUtils.split;
+import static org.apache.commons.lang.StringUtils.trimToNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Modules of a project without the IDE project model: content roots, production source roots and output folders.
+ * Described by properties, paths relative to the project folder. Eg:
+ * modules = core, web
+ * module.web.sources = src/main/java, src/main/resources
+ * module.web.output = target/classes
+ * Without modules the project folder is a single module, without sources and output maven defaults are used
+ */
+public class ProjectLayout
+{
+    private static final String MODULES_KEY = "modules";
+    private static final String MODULE_KEY = "module.";
+    private static final String SOURCES_SUFFIX = ".sources";
+    private static final String OUTPUT_SUFFIX = ".output";
+    private static final String DEFAULT_SOURCES = "src/main/java, src/main/resources";
+    private static final String DEFAULT_OUTPUT = "target/classes";
+    private static final String COMMA = ",";
+
+    private final String basePath;
+    private final List<String> contentRoots = new ArrayList<>();
+    private final List<String> sourceRoots = new ArrayList<>();
+    private final Map<String, String> outputFolders = new LinkedHashMap<>();
+
+    private ProjectLayout(@NotNull String basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * Read layout description
+     * @param projectFolder
+     * @param layoutProperties
+     * @return
+     */
+    @NotNull
+    public static ProjectLayout load(@NotNull File projectFolder, @NotNull Properties layoutProperties) {
+        final File baseFolder = projectFolder.getAbsoluteFile();
+        final ProjectLayout layout = new ProjectLayout(toPath(baseFolder));
+
+        final String modules = trimToNull(layoutProperties.getProperty(MODULES_KEY));
+        for (String module : modules != null ? split(modules, COMMA) : new String[] { "" }) {
+            final String name = module.trim();
+            final File contentRoot = name.isEmpty() ? baseFolder : new File(baseFolder, name);
+            final String contentRootPath = toPath(contentRoot);
+            layout.contentRoots.add(contentRootPath);
+
+            for (String sourceRoot : split(layoutProperties.getProperty(MODULE_KEY + name + SOURCES_SUFFIX,
+                DEFAULT_SOURCES), COMMA)) {
+                layout.sourceRoots.add(toPath(new File(contentRoot, sourceRoot.trim())));
+            }
+            layout.outputFolders.put(contentRootPath, toPath(new File(contentRoot,
+                layoutProperties.getProperty(MODULE_KEY + name + OUTPUT_SUFFIX, DEFAULT_OUTPUT).trim())));
+        }
+        return layout;
+    }
+
+    @NotNull
+    private static String toPath(@NotNull File file) {
+        return file.toPath().normalize().toString().replace(File.separatorChar, SegmentPath.SEPARATOR);
+    }
+
+    @NotNull
+    public String getBasePath() {
+        return basePath;
+    }
+
+    @NotNull
+    public List<String> getContentRoots() {
+        return Collections.unmodifiableList(contentRoots);
+    }
+
+    @NotNull
+    public List<String> getSourceRoots() {
+        return Collections.unmodifiableList(sourceRoots);
+    }
+
+    /**
+     * Output folder of a module
+     * @param contentRoot
+     * @return null if not a content root
+     */
+    @Nullable
+    public String getOutputFolder(@Nullable String contentRoot) {
+        return outputFolders.get(contentRoot);
+    }
+}
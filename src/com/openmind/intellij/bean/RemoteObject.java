@@ -0,0 +1,40 @@
+package com.openmind.intellij.bean;
+
+/**
+ * Object listed on S3
+ */
+public class RemoteObject
+{
+    private final String key;
+    private final String eTag;
+    private final long size;
+    private final long lastModified;
+
+    public RemoteObject(String key, String eTag, long size, long lastModified) {
+        this.key = key;
+        this.eTag = eTag;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
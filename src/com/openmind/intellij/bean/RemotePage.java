@@ -0,0 +1,49 @@
+package com.openmind.intellij.bean;
+
+import java.util.List;
+
+
+/**
+ * Page of a listing by folder: sub-folders and objects directly in a prefix
+ */
+public class RemotePage
+{
+    private final String prefix;
+    private final List<String> subPrefixes;
+    private final List<RemoteObject> objects;
+    private final String nextContinuationToken;
+
+    /**
+     * @param prefix
+     * @param subPrefixes
+     * @param objects
+     * @param nextContinuationToken null for the last page
+     */
+    public RemotePage(String prefix, List<String> subPrefixes, List<RemoteObject> objects,
+        String nextContinuationToken) {
+        this.prefix = prefix;
+        this.subPrefixes = subPrefixes;
+        this.objects = objects;
+        this.nextContinuationToken = nextContinuationToken;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public List<String> getSubPrefixes() {
+        return subPrefixes;
+    }
+
+    public List<RemoteObject> getObjects() {
+        return objects;
+    }
+
+    public String getNextContinuationToken() {
+        return nextContinuationToken;
+    }
+
+    public boolean isTruncated() {
+        return nextContinuationToken != null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.openmind.intellij.bean;
+
+import java.util.List;
+
+
+/**
+ * Part of a listing: all objects under a prefix, or only the ones directly in it and its sub-prefixes
+ */
+public class RemotePartition
+{
+    private final String prefix;
+    private final int depth;
+    private final List<RemoteObject> objects;
+    private final List<String> subPrefixes;
+    private final long listedAt;
+
+    /**
+     * @param prefix
+     * @param depth levels listed by sub-prefix below this one, 0 if all objects under prefix are listed
+     * @param objects
+     * @param subPrefixes empty if all objects are listed
+     * @param listedAt
+     */
+    public RemotePartition(String prefix, int depth, List<RemoteObject> objects, List<String> subPrefixes,
+        long listedAt) {
+        this.prefix = prefix;
+        this.depth = depth;
+        this.objects = objects;
+        this.subPrefixes = subPrefixes;
+        this.listedAt = listedAt;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isRecursive() {
+        return depth == 0;
+    }
+
+    public List<RemoteObject> getObjects() {
+        return objects;
+    }
+
+    public List<String> getSubPrefixes() {
+        return subPrefixes;
+    }
+
+    public long getListedAt() {
+        return listedAt;
+    }
+
+    @Override
+    public String toString() {
+        return prefix;
+    }
+}
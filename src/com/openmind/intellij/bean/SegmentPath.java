@@ -0,0 +1,324 @@
+package com.openmind.intellij.bean;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+
+/**
+ * Immutable path made of interned segments. Each path points to its parent, so paths built from the same base share
+ * the prefix nodes. Both '/' and '\' are accepted as separators, '/' is always used when printing.
+ * Equal segments are the same String instance, so comparisons are reference checks
+ */
+public final class SegmentPath
+{
+    public static final char SEPARATOR = '/';
+    private static final char WINDOWS_SEPARATOR = '\\';
+
+    private static final Interner<String> SEGMENTS = Interners.newWeakInterner();
+
+    /** Root of absolute paths: "/" */
+    public static final SegmentPath ROOT = new SegmentPath(null, null, true);
+
+    /** Root of relative paths: "" */
+    public static final SegmentPath EMPTY = new SegmentPath(null, null, false);
+
+    @Nullable
+    private final SegmentPath parent;
+    @Nullable
+    private final String segment;
+    private final boolean absolute;
+    private final int depth;
+    private final int hash;
+
+    // lazily computed
+    private String[] segments;
+    private String string;
+
+    private SegmentPath(@Nullable SegmentPath parent, @Nullable String segment, boolean absolute) {
+        this.parent = parent;
+        this.segment = segment;
+        this.absolute = absolute;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        this.hash = parent == null ? (absolute ? 1 : 0) : 31 * parent.hash + segment.hashCode();
+    }
+
+    /**
+     * Parse path. Empty segments are skipped, so "/a//b/" is "/a/b"
+     * @param path
+     * @return
+     */
+    @NotNull
+    public static SegmentPath of(@Nullable String path) {
+        if (path == null || path.isEmpty()) {
+            return EMPTY;
+        }
+        final char first = path.charAt(0);
+        return (first == SEPARATOR || first == WINDOWS_SEPARATOR ? ROOT : EMPTY).resolve(path);
+    }
+
+    /**
+     * Append relative path, parsing segments
+     * @param relativePath
+     * @return
+     */
+    @NotNull
+    public SegmentPath resolve(@Nullable String relativePath) {
+        if (relativePath == null) {
+            return this;
+        }
+        SegmentPath path = this;
+        int start = 0;
+        final int length = relativePath.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || relativePath.charAt(i) == SEPARATOR || relativePath.charAt(i) == WINDOWS_SEPARATOR) {
+                if (i > start) {
+                    path = path.child(relativePath.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Append all segments of another path
+     * @param relativePath
+     * @return
+     */
+    @NotNull
+    public SegmentPath resolve(@NotNull SegmentPath relativePath) {
+        SegmentPath path = this;
+        for (String s : relativePath.getSegments()) {
+            // already interned
+            path = new SegmentPath(path, s, absolute);
+        }
+        return path;
+    }
+
+    /**
+     * Append a single segment
+     * @param name
+     * @return
+     */
+    @NotNull
+    public SegmentPath child(@NotNull String name) {
+        return new SegmentPath(this, SEGMENTS.intern(name), absolute);
+    }
+
+    @NotNull
+    public SegmentPath getParent() {
+        return parent != null ? parent : this;
+    }
+
+    /**
+     * Last segment, empty for roots
+     */
+    @NotNull
+    public String getName() {
+        return segment != null ? segment : "";
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    @NotNull
+    public String getSegment(int index) {
+        return getSegments()[index];
+    }
+
+    /**
+     * Prefix with the given number of segments, sharing nodes with this path
+     * @param prefixDepth
+     * @return
+     */
+    @NotNull
+    public SegmentPath getPrefix(int prefixDepth) {
+        SegmentPath path = this;
+        while (path.depth > prefixDepth) {
+            path = path.parent;
+        }
+        return path;
+    }
+
+    /**
+     * Segment-wise prefix check, so "/a/b" is not a prefix of "/a/bc"
+     * @param prefix
+     * @return
+     */
+    public boolean startsWith(@NotNull SegmentPath prefix) {
+        return prefix.depth <= depth && getPrefix(prefix.depth).equals(prefix);
+    }
+
+    /**
+     * Position of the first occurrence of all segments of part, -1 if not found
+     * @param part
+     * @return
+     */
+    public int indexOf(@NotNull SegmentPath part) {
+        final String[] all = getSegments();
+        final String[] searched = part.getSegments();
+        outer:
+        for (int i = 0; i <= all.length - searched.length; i++) {
+            for (int j = 0; j < searched.length; j++) {
+                // interned segments
+                if (all[i + j] != searched[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(@NotNull SegmentPath part) {
+        return indexOf(part) >= 0;
+    }
+
+    /**
+     * Relative path after the given prefix
+     * @param prefix
+     * @return relative path, or null if not a prefix
+     */
+    @Nullable
+    public SegmentPath relativize(@NotNull SegmentPath prefix) {
+        return startsWith(prefix) ? fromIndex(prefix.depth) : null;
+    }
+
+    /**
+     * Relative path of the segments starting at index
+     * @param index
+     * @return
+     */
+    @NotNull
+    public SegmentPath fromIndex(int index) {
+        final String[] all = getSegments();
+        SegmentPath path = EMPTY;
+        for (int i = index; i < all.length; i++) {
+            path = new SegmentPath(path, all[i], false);
+        }
+        return path;
+    }
+
+    /**
+     * Replace first occurrence of part. The prefix before it is shared with this path
+     * @param part
+     * @param replacement
+     * @return replaced path, or this if part is not found
+     */
+    @NotNull
+    public SegmentPath replaceFirst(@NotNull SegmentPath part, @NotNull SegmentPath replacement) {
+        final int index = indexOf(part);
+        if (index < 0) {
+            return this;
+        }
+        SegmentPath path = getPrefix(index).resolve(replacement);
+        final String[] all = getSegments();
+        for (int i = index + part.depth; i < all.length; i++) {
+            path = new SegmentPath(path, all[i], path.absolute);
+        }
+        return path;
+    }
+
+    /**
+     * Replace the last segment
+     * @param name
+     * @return
+     */
+    @NotNull
+    public SegmentPath withName(@NotNull String name) {
+        return getParent().child(name);
+    }
+
+    /**
+     * All segments, from the first
+     */
+    @NotNull
+    public String[] getSegments() {
+        String[] result = segments;
+        if (result == null) {
+            result = new String[depth];
+            SegmentPath path = this;
+            for (int i = depth - 1; i >= 0; i--) {
+                result[i] = path.segment;
+                path = path.parent;
+            }
+            segments = result;
+        }
+        return result;
+    }
+
+    /**
+     * Path without leading separator, eg: "a/b/c"
+     */
+    @NotNull
+    public String toRelativeString() {
+        return absolute && depth > 0 ? toString().substring(1) : toString();
+    }
+
+    /**
+     * Path with separators, leading one only for absolute paths. Windows drives are kept: "C:/a"
+     */
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            StringBuilder builder = new StringBuilder();
+            String[] all = getSegments();
+            for (int i = 0; i < all.length; i++) {
+                if (i > 0 || (absolute && !isWindowsDrive(all[0]))) {
+                    builder.append(SEPARATOR);
+                }
+                builder.append(all[i]);
+            }
+            result = builder.length() == 0 && absolute ? String.valueOf(SEPARATOR) : builder.toString();
+            string = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SegmentPath)) {
+            return false;
+        }
+        SegmentPath other = (SegmentPath) o;
+        if (hash != other.hash || depth != other.depth || absolute != other.absolute) {
+            return false;
+        }
+        SegmentPath a = this;
+        SegmentPath b = other;
+        while (a != b && a.parent != null) {
+            // interned segments
+            if (a.segment != b.segment) {
+                return false;
+            }
+            a = a.parent;
+            b = b.parent;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private static boolean isWindowsDrive(@NotNull String segment) {
+        return segment.length() == 2 && segment.charAt(1) == ':';
+    }
+}
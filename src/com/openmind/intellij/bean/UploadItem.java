@@ -0,0 +1,75 @@
+package com.openmind.intellij.bean;
+
+import java.io.File;
+import java.util.Base64;
+
+import org.apache.commons.codec.binary.Hex;
+
+
+/**
+ * Single file to upload and its destination key
+ */
+public class UploadItem
+{
+    private final File file;
+    private final String key;
+    private final String sourcePath;
+    private long length;
+    private byte[] md5;
+
+    public UploadItem(File file, String key) {
+        this(file, key, null);
+    }
+
+    /**
+     * @param file
+     * @param key
+     * @param sourcePath path of the source file this one is compiled from, if any
+     */
+    public UploadItem(File file, String key, String sourcePath) {
+        this.file = file;
+        this.key = key;
+        this.sourcePath = sourcePath;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public byte[] getMd5() {
+        return md5;
+    }
+
+    public void setMd5(byte[] md5) {
+        this.md5 = md5;
+    }
+
+    public String getMd5Hex() {
+        return md5 != null ? Hex.encodeHexString(md5) : null;
+    }
+
+    public String getMd5Base64() {
+        return md5 != null ? Base64.getEncoder().encodeToString(md5) : null;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
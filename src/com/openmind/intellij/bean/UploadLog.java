@@ -0,0 +1,127 @@
+package com.openmind.intellij.bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Result of each file of an upload. Bounded: uploaded and skipped files after the first entries are only counted,
+ * failures have their own bound so that they are not hidden by successful files
+ */
+public class UploadLog
+{
+    public enum Status {
+        FAILED,
+        UPLOADED,
+        SKIPPED
+    }
+
+    private final int maxEntries;
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger others = new AtomicInteger();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param maxEntries kept entries of successful files, and of failures
+     */
+    public UploadLog(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Add file result, if there is still room for its status
+     * @param status
+     * @param key key or description of the file
+     * @param length
+     * @param sourcePath source of the file, if any
+     * @param message reason of skip or failure, if any
+     */
+    public void add(Status status, String key, long length, String sourcePath, String message) {
+        total.incrementAndGet();
+        if ((status == Status.FAILED ? failures : others).incrementAndGet() > maxEntries) {
+            return;
+        }
+        final Entry entry = new Entry(status, key, length, sourcePath, message,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        synchronized (entries) {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Kept entries, failures first
+     * @return copy, in order of completion by status
+     */
+    public List<Entry> getEntries() {
+        final List<Entry> copy;
+        synchronized (entries) {
+            copy = new ArrayList<>(entries);
+        }
+        copy.sort((e1, e2) -> e1.getStatus().compareTo(e2.getStatus()));
+        return Collections.unmodifiableList(copy);
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Files only counted, not kept
+     * @return
+     */
+    public int getDropped() {
+        return Math.max(0, failures.get() - maxEntries) + Math.max(0, others.get() - maxEntries);
+    }
+
+    public static class Entry
+    {
+        private final Status status;
+        private final String key;
+        private final long length;
+        private final String sourcePath;
+        private final String message;
+        private final long elapsedMillis;
+
+        Entry(Status status, String key, long length, String sourcePath, String message, long elapsedMillis) {
+            this.status = status;
+            this.key = key;
+            this.length = length;
+            this.sourcePath = sourcePath;
+            this.message = message;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Time since the start of the upload
+         * @return
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
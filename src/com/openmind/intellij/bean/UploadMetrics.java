@@ -0,0 +1,151 @@
+package com.openmind.intellij.bean;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Counters and latency histograms by stage of an operation, eg: an upload.
+ * Recording is lock free, so it can be called by all pipeline and S3 client threads
+ */
+public class UploadMetrics
+{
+    public enum Stage {
+        ENUMERATE, RESOLVE, OUTPUT_FILE, DEPLOY_PATH, SUBCLASSES, HASH, UPLOAD,
+        LIST, PUT, COPY, DELETE, GET, HEAD, OTHER_REQUEST
+    }
+
+    public enum Counter {
+        FILES_ENUMERATED, FILES_RESOLVED, FILES_HASHED, FILES_SKIPPED, FILES_UPLOADED, FILES_FAILED,
+        BYTES_SENT, REQUESTS, REQUEST_ERRORS, RETRIES
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final long startTime = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private final Map<String, Object> settings = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final UploadTrace trace;
+
+    public UploadMetrics(String name) {
+        this(name, UploadTrace.DISABLED);
+    }
+
+    /**
+     * @param name
+     * @param trace spans of the operation, ended with it
+     */
+    public UploadMetrics(String name, UploadTrace trace) {
+        this.name = name;
+        this.trace = trace;
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    public void increment(Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    public void add(Counter counter, long value) {
+        counters.get(counter).add(value);
+    }
+
+    /**
+     * Setting used by the operation, to compare runs
+     * @param key
+     * @param value
+     */
+    public void setting(String key, Object value) {
+        settings.put(key, value);
+    }
+
+    public void end() {
+        endNanos = System.nanoTime();
+        trace.end();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((endNanos > 0 ? endNanos : System.nanoTime()) - startNanos);
+    }
+
+    public long get(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    public UploadTrace getTrace() {
+        return trace;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Sent MB per second
+     */
+    public double getThroughput() {
+        final long millis = getDurationMillis();
+        return millis > 0 ? get(Counter.BYTES_SENT) / 1024.0 / 1024.0 / (millis / 1000.0) : 0;
+    }
+
+    /**
+     * Content for export, only stages with samples are included
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("startTime", startTime);
+        map.put("durationMillis", getDurationMillis());
+        map.put("throughputMBps", getThroughput());
+        synchronized (settings) {
+            map.put("settings", new LinkedHashMap<>(settings));
+        }
+        final Map<String, Object> countersMap = new LinkedHashMap<>();
+        counters.forEach((counter, value) -> countersMap.put(counter.name(), value.sum()));
+        map.put("counters", countersMap);
+        final Map<String, Object> stagesMap = new LinkedHashMap<>();
+        histograms.forEach((stage, histogram) -> {
+            if (histogram.getCount() > 0) {
+                stagesMap.put(stage.name(), histogram.toMap());
+            }
+        });
+        map.put("stages", stagesMap);
+        return map;
+    }
+
+    /**
+     * Content for export as indented JSON
+     * @return
+     * @throws IOException
+     */
+    public String toJson() throws IOException {
+        return JSON.writerWithDefaultPrettyPrinter().writeValueAsString(toMap());
+    }
+}
@@ -0,0 +1,153 @@
+package com.openmind.intellij.bean;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Summary of an upload. Only the first uploaded keys and errors are kept, so the size does not depend on the
+ * number of files. Results of each file are kept in a bounded log
+ */
+public class UploadReport
+{
+    private static final int MAX_LISTED = 10;
+    private static final int MAX_LOGGED = 10000;
+
+    private final long startTime = System.nanoTime();
+    private long endTime;
+    private long setupMillis;
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final AtomicInteger uploaded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final List<String> uploadedSample = new CopyOnWriteArrayList<>();
+    private final List<String> errorsSample = new CopyOnWriteArrayList<>();
+    private final UploadLog log = new UploadLog(MAX_LOGGED);
+
+    public void addUploaded(UploadItem item) {
+        uploadedBytes.add(item.getLength());
+        if (uploaded.incrementAndGet() <= MAX_LISTED) {
+            uploadedSample.add(item.getKey());
+        }
+        log.add(UploadLog.Status.UPLOADED, item.getKey(), item.getLength(), item.getSourcePath(), null);
+    }
+
+    /**
+     * @param item
+     * @param reason eg: unchanged
+     */
+    public void addSkipped(UploadItem item, String reason) {
+        skipped.incrementAndGet();
+        log.add(UploadLog.Status.SKIPPED, item.getKey(), item.getLength(), item.getSourcePath(), reason);
+    }
+
+    public void addFailed(String description, Exception e) {
+        if (failed.incrementAndGet() <= MAX_LISTED) {
+            errorsSample.add(description + ": " + e.getMessage());
+        }
+        log.add(UploadLog.Status.FAILED, description, 0, null, e.getMessage());
+    }
+
+    public void end() {
+        endTime = System.nanoTime();
+    }
+
+    public int getUploaded() {
+        return uploaded.get();
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Time spent before the first upload, eg: reading version and deploy path
+     * @param setupMillis
+     */
+    public void setSetupMillis(long setupMillis) {
+        this.setupMillis = setupMillis;
+    }
+
+    public long getSetupMillis() {
+        return setupMillis;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((endTime > 0 ? endTime : System.nanoTime()) - startTime);
+    }
+
+    public List<String> getUploadedSample() {
+        return Collections.unmodifiableList(uploadedSample);
+    }
+
+    public List<String> getErrorsSample() {
+        return Collections.unmodifiableList(errorsSample);
+    }
+
+    public UploadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Counts, size and duration only, eg: for a balloon
+     * @param destination
+     * @return
+     */
+    public String getShortSummary(String destination) {
+        StringBuilder summary = new StringBuilder()
+            .append("Uploaded ").append(getUploaded()).append(" files (")
+            .append(getUploadedBytes() / 1024).append(" KB)")
+            .append(" to ").append(destination)
+            .append(" in ").append(getDurationMillis()).append(" ms");
+        if (getSkipped() > 0) {
+            summary.append(", skipped ").append(getSkipped());
+        }
+        if (getFailed() > 0) {
+            summary.append(", failed ").append(getFailed());
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Counts and first uploaded files and errors
+     * @param destination
+     * @return
+     */
+    public String getSummary(String destination) {
+        StringBuilder summary = new StringBuilder()
+            .append("Uploaded ").append(getUploaded()).append(" files (").append(getUploadedBytes() / 1024).append(" KB)")
+            .append(" to ").append(destination)
+            .append(" in ").append(getDurationMillis()).append(" ms");
+        if (setupMillis > 0) {
+            summary.append(" (setup ").append(setupMillis).append(" ms)");
+        }
+        if (getSkipped() > 0) {
+            summary.append(", skipped ").append(getSkipped());
+        }
+        appendSample(summary, uploadedSample, getUploaded());
+        if (getFailed() > 0) {
+            summary.append(System.lineSeparator()).append("Failed ").append(getFailed()).append(":");
+            appendSample(summary, errorsSample, getFailed());
+        }
+        return summary.toString();
+    }
+
+    private static void appendSample(StringBuilder summary, List<String> sample, int total) {
+        sample.forEach(s -> summary.append(System.lineSeparator()).append(s));
+        if (total > sample.size()) {
+            summary.append(System.lineSeparator()).append("... and ").append(total - sample.size()).append(" more");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.openmind.intellij.bean;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Timed spans of an operation, by thread, exported in Chrome trace format (chrome://tracing, Perfetto).
+ * Spans of the same thread are nested by time. The disabled trace records nothing and allocates no span
+ */
+public class UploadTrace
+{
+    public static final UploadTrace DISABLED = new UploadTrace(null);
+
+    private static final int MAX_EVENTS = 200000;
+    private static final JsonFactory JSON = new JsonFactory(new ObjectMapper());
+
+    private final String name;
+    private final long startTime = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final long rootThreadId = Thread.currentThread().getId();
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger eventCount = new AtomicInteger();
+    private final AtomicInteger droppedEvents = new AtomicInteger();
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+
+    /**
+     * Start tracing in the current thread, the root span ends with {@link #end()}
+     * @param name null for the disabled trace
+     */
+    public UploadTrace(String name) {
+        this.name = name;
+        if (name != null) {
+            threadNames.put(rootThreadId, Thread.currentThread().getName());
+        }
+    }
+
+    public boolean isEnabled() {
+        return name != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Start a span in the current thread
+     * @param spanName
+     * @return
+     */
+    public Span start(String spanName) {
+        return isEnabled() ? new Span(this, spanName, System.nanoTime()) : Span.NONE;
+    }
+
+    /**
+     * Add a span of the current thread ending now
+     * @param spanName
+     * @param spanStartNanos {@link System#nanoTime()} at start
+     * @param args shown in the viewer, may be null
+     */
+    public void record(String spanName, long spanStartNanos, Map<String, Object> args) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (eventCount.incrementAndGet() > MAX_EVENTS) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        final Thread thread = Thread.currentThread();
+        threadNames.putIfAbsent(thread.getId(), thread.getName());
+        events.add(new Event(spanName, thread.getId(), spanStartNanos, System.nanoTime(), args));
+    }
+
+    /**
+     * End the root span, must be called in the starting thread
+     */
+    public void end() {
+        if (isEnabled()) {
+            events.add(new Event(name, rootThreadId, startNanos, System.nanoTime(), null));
+        }
+    }
+
+    /**
+     * Write as Chrome trace JSON: complete events with microsecond timestamps, and thread names
+     * @param file
+     * @throws IOException
+     */
+    public void writeTo(File file) throws IOException {
+        try (JsonGenerator generator = JSON.createGenerator(file, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("displayTimeUnit", "ms");
+            generator.writeObjectFieldStart("otherData");
+            generator.writeStringField("name", name);
+            generator.writeNumberField("startTime", startTime);
+            generator.writeNumberField("droppedEvents", droppedEvents.get());
+            generator.writeEndObject();
+
+            generator.writeArrayFieldStart("traceEvents");
+            for (Map.Entry<Long, String> threadName : threadNames.entrySet()) {
+                generator.writeStartObject();
+                generator.writeStringField("name", "thread_name");
+                generator.writeStringField("ph", "M");
+                generator.writeNumberField("pid", 1);
+                generator.writeNumberField("tid", threadName.getKey());
+                generator.writeObjectFieldStart("args");
+                generator.writeStringField("name", threadName.getValue());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            for (Event event : events) {
+                generator.writeStartObject();
+                generator.writeStringField("name", event.name);
+                generator.writeStringField("ph", "X");
+                generator.writeNumberField("pid", 1);
+                generator.writeNumberField("tid", event.threadId);
+                generator.writeNumberField("ts", TimeUnit.NANOSECONDS.toMicros(event.startNanos - startNanos));
+                generator.writeNumberField("dur", TimeUnit.NANOSECONDS.toMicros(event.endNanos - event.startNanos));
+                if (event.args != null) {
+                    generator.writeObjectField("args", event.args);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Span being timed. Arguments are shown in the viewer
+     */
+    public static class Span
+    {
+        private static final Span NONE = new Span(null, null, 0);
+
+        private final UploadTrace trace;
+        private final String spanName;
+        private final long spanStartNanos;
+        private Map<String, Object> args;
+
+        private Span(UploadTrace trace, String spanName, long spanStartNanos) {
+            this.trace = trace;
+            this.spanName = spanName;
+            this.spanStartNanos = spanStartNanos;
+        }
+
+        public Span arg(String key, Object value) {
+            if (this != NONE) {
+                if (args == null) {
+                    args = new LinkedHashMap<>();
+                }
+                args.put(key, value);
+            }
+            return this;
+        }
+
+        public void end() {
+            if (this != NONE) {
+                trace.record(spanName, spanStartNanos, args);
+            }
+        }
+    }
+
+    private static class Event
+    {
+        private final String name;
+        private final long threadId;
+        private final long startNanos;
+        private final long endNanos;
+        private final Map<String, Object> args;
+
+        Event(String name, long threadId, long startNanos, long endNanos, Map<String, Object> args) {
+            this.name = name;
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.openmind.intellij.bean;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.vfs.VirtualFile;
+
+
+/**
+ * Files changed in VCS: existing files to upload and paths of deleted ones
+ */
+public class VcsChanges
+{
+    private final Set<VirtualFile> changedFiles = Sets.newLinkedHashSet();
+    private final List<String> deletedPaths = Lists.newArrayList();
+
+    public Collection<VirtualFile> getChangedFiles() {
+        return changedFiles;
+    }
+
+    public List<String> getDeletedPaths() {
+        return deletedPaths;
+    }
+
+    public void addChangedFile(VirtualFile file) {
+        changedFiles.add(file);
+    }
+
+    public void addDeletedPath(String path) {
+        deletedPaths.add(path);
+    }
+}
@@ -0,0 +1,41 @@
+package com.openmind.intellij.extension;
+
+import java.awt.Color;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.fileEditor.impl.EditorTabColorProvider;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.JBColor;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.helper.WatchdogHelper;
+import com.openmind.intellij.service.RemoteStatusService;
+
+
+/**
+ * Color editor tabs of files not deployed or changed
+ */
+public class RemoteStatusEditorTabColorProvider implements EditorTabColorProvider
+{
+    private static final Color CHANGED_COLOR = new JBColor(new Color(0xFFF3D6), new Color(0x4D4330));
+    private static final Color NOT_DEPLOYED_COLOR = new JBColor(new Color(0xFFE4E1), new Color(0x4D3333));
+
+    private static final String ENTRY_POINT = "RemoteStatusEditorTabColorProvider.getEditorTabColor";
+
+    @Nullable
+    @Override
+    public Color getEditorTabColor(@NotNull Project project, @NotNull VirtualFile file) {
+        return WatchdogHelper.compute(ENTRY_POINT, WatchdogHelper.UPDATE_THRESHOLD_MILLIS, () -> {
+            final DriftEntry.Status status = RemoteStatusService.getInstance(project).getStatus(file);
+            if (status == DriftEntry.Status.DIFFERENT) {
+                return CHANGED_COLOR;
+            }
+            if (status == DriftEntry.Status.MISSING) {
+                return NOT_DEPLOYED_COLOR;
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.openmind.intellij.extension;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.ide.projectView.PresentationData;
+import com.intellij.ide.projectView.ProjectViewNode;
+import com.intellij.ide.projectView.ProjectViewNodeDecorator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.packageDependencies.ui.PackageDependenciesNode;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.helper.WatchdogHelper;
+import com.openmind.intellij.service.RemoteStatusService;
+
+
+/**
+ * Show deploy status of files in project view
+ */
+public class RemoteStatusProjectViewDecorator implements ProjectViewNodeDecorator
+{
+    private static final String ENTRY_POINT = "RemoteStatusProjectViewDecorator.decorate";
+
+    @Override
+    public void decorate(ProjectViewNode node, PresentationData data) {
+        WatchdogHelper.run(ENTRY_POINT, WatchdogHelper.UPDATE_THRESHOLD_MILLIS, () -> {
+            final Project project = node.getProject();
+            final VirtualFile file = node.getVirtualFile();
+            if (project == null || file == null || file.isDirectory()) {
+                return;
+            }
+            final RemoteStatusService remoteStatusService = RemoteStatusService.getInstance(project);
+            final DriftEntry.Status status = remoteStatusService.getStatus(file);
+            final UploadConfig uploadConfig = remoteStatusService.getUploadConfig();
+            if (status != null && uploadConfig != null) {
+                data.setLocationString(getStatusText(status) + " on " + uploadConfig.getFileName());
+            }
+        });
+    }
+
+    @Override
+    public void decorate(PackageDependenciesNode node, ColoredTreeCellRenderer cellRenderer) {
+    }
+
+    @NotNull
+    private static String getStatusText(@NotNull DriftEntry.Status status) {
+        switch (status) {
+            case IDENTICAL:
+                return "deployed";
+            case DIFFERENT:
+                return "changed";
+            case MISSING:
+                return "not deployed";
+            case UNKNOWN:
+                return "not compared";
+            default:
+                return status.toString();
+        }
+    }
+}
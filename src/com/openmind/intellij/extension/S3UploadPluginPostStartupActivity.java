@@ -12,18 +12,16 @@ import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import com.intellij.openapi.actionSystem.ActionManager;
-import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.StartupActivity;
-import com.openmind.intellij.action.UploadFileToS3Action;
 import com.openmind.intellij.bean.UploadConfig;
 import com.openmind.intellij.exception.NotConfiguredPluginException;
 import com.openmind.intellij.helper.FileHelper;
 import com.openmind.intellij.helper.NotificationHelper;
+import com.openmind.intellij.helper.UploadConfigActionsHelper;
 import com.openmind.intellij.service.AmazonS3Service;
 
 
@@ -34,31 +32,33 @@ public class S3UploadPluginPostStartupActivity implements StartupActivity
 {
     private static final Logger LOGGER = Logger.getInstance(S3UploadPluginPostStartupActivity.class);
 
-    private static final String UPLOAD_MENU_GROUP = "S3UploadPlugin.Menu";
-
     public void runActivity(@NotNull Project project) {
         ApplicationManager.getApplication().executeOnPooledThread(() -> {
-
-            ActionManager am = ActionManager.getInstance();
-            DefaultActionGroup group = (DefaultActionGroup) am.getAction(UPLOAD_MENU_GROUP);
-            if (group == null) {
-                return;
-            }
-
             try {
 
                 // setup S3 service
                 AmazonS3Service amazonS3Service = ServiceManager.getService(project, AmazonS3Service.class);
 
                 // add actions
-                for (UploadConfig uploadConfig : amazonS3Service.getUploadConfigs()) {
-
-                    UploadFileToS3Action action = new UploadFileToS3Action(uploadConfig);
-                    if (am.getAction(action.getActionId()) == null) {
-                        am.registerAction(action.getActionId(), action);
-                        group.add(action);
+                amazonS3Service.getUploadConfigs().forEach(UploadConfigActionsHelper::registerActions);
+
+                // follow new versions and configs
+                amazonS3Service.startVersionPolling((added, removed, updated) -> {
+                    added.forEach(UploadConfigActionsHelper::registerActions);
+                    removed.forEach(UploadConfigActionsHelper::unregisterActions);
+                    for (UploadConfig uploadConfig : added) {
+                        NotificationHelper.showEvent(project, "New config " + uploadConfig.getFileName()
+                            + " (" + uploadConfig.getVersion() + ")", INFORMATION);
                     }
-                }
+                    for (UploadConfig uploadConfig : removed) {
+                        NotificationHelper.showEvent(project, "Removed config " + uploadConfig.getFileName(),
+                            INFORMATION);
+                    }
+                    for (UploadConfig uploadConfig : updated) {
+                        NotificationHelper.showEvent(project, "New version of " + uploadConfig.getFileName()
+                            + ": " + uploadConfig.getVersion(), INFORMATION);
+                    }
+                });
 
                 NotificationHelper.showEvent(project, "ready! Project: '" + amazonS3Service.getProjectName() + "'",
                     INFORMATION);
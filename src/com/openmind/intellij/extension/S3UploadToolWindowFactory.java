@@ -0,0 +1,41 @@
+package com.openmind.intellij.extension;
+
+import javax.swing.SwingConstants;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBLabel;
+import com.openmind.intellij.helper.ToolWindowHelper;
+import com.openmind.intellij.helper.WatchdogHelper;
+import com.openmind.intellij.ui.MetricsPanel;
+import com.openmind.intellij.ui.RemoteBrowserPanel;
+
+
+/**
+ * Tool window with results of S3 operations. Tabs are added by the operations
+ */
+public class S3UploadToolWindowFactory implements ToolWindowFactory, DumbAware
+{
+    public static final String BROWSE_TAB = "Browse";
+    public static final String COMPARE_TAB = "Compare";
+    public static final String METRICS_TAB = "Metrics";
+    public static final String UPLOAD_LOG_TAB = "Upload log";
+
+    private static final String ENTRY_POINT = "S3UploadToolWindowFactory.createToolWindowContent";
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        WatchdogHelper.run(ENTRY_POINT, WatchdogHelper.ACTION_THRESHOLD_MILLIS, () -> {
+            ToolWindowHelper.setContent(toolWindow, BROWSE_TAB, new RemoteBrowserPanel(project));
+            ToolWindowHelper.setContent(toolWindow, COMPARE_TAB,
+                new JBLabel("Use \"Compare with S3\" in the S3 Upload Tools menu", SwingConstants.CENTER));
+            ToolWindowHelper.setContent(toolWindow, METRICS_TAB, new MetricsPanel(project));
+            ToolWindowHelper.setContent(toolWindow, UPLOAD_LOG_TAB,
+                new JBLabel("Results of each file of the last upload are shown here", SwingConstants.CENTER));
+        });
+    }
+}
@@ -2,32 +2,37 @@
 package com.openmind.intellij.helper;
 
 import static java.io.File.separator;
-import static org.apache.commons.lang.StringUtils.EMPTY;
-import static org.apache.commons.lang.StringUtils.isEmpty;
-import static org.apache.commons.lang.StringUtils.replaceOnce;
-import static org.apache.commons.lang.StringUtils.startsWith;
-import static org.apache.commons.lang3.StringUtils.endsWith;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Properties;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileTypes.FileTypeManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.roots.GeneratedSourcesFilter;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.openapi.vfs.VirtualFileWithoutContent;
 
 
@@ -37,18 +42,47 @@ public class FileHelper {
     private static final String PROJECT_PROPERTIES_FILE = "s3upload.properties";
     public static final String STARTUP_MESSAGE_KEY = "startup.message";
     public static final String STARTUP_TITLE_KEY = "startup.title";
+    public static final String PROJECT_NAME_KEY = "project.name";
     public static final String DOT = ".";
     public static final String COMMA = ",";
     public static final String COLON = ":";
+    public static final String SLASH = "/";
+    private static final int VISIT_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final String VISIT_ENTRY_POINT = "FileHelper.visitFiles";
 
-    public static long getLastModified(@NotNull VirtualFile virtualFile) {
-        return new File(virtualFile.getCanonicalPath()).lastModified();
+    /**
+     * Check if a compiled file is older than its source
+     * @param source
+     * @param output
+     * @return false if a file is unreadable
+     */
+    public static boolean isStale(@NotNull File source, @NotNull File output) {
+        final long outputLastModified = readLastModified(output);
+        return outputLastModified > 0 && readLastModified(source) > outputLastModified;
+    }
+
+    private static long readLastModified(@NotNull File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).lastModifiedTime().toMillis();
+
+        } catch (IOException | RuntimeException e) {
+            return 0L;
+        }
     }
 
     private static boolean hasContent(@NotNull VirtualFile file) {
         return !(file instanceof VirtualFileWithoutContent);
     }
 
+    /**
+     * Fast check for menu refresh: only the first selected file is checked, whatever the selection size
+     * @param files
+     * @return
+     */
+    public static boolean canUploadSelection(@Nullable VirtualFile[] files) {
+        return files != null && files.length > 0 && hasContent(files[0]);
+    }
+
     public static boolean canUploadFiles(@Nullable VirtualFile[] files) {
         if (files == null || files.length == 0) {
             return false;
@@ -56,28 +90,71 @@ public class FileHelper {
         return Stream.of(files).allMatch(FileHelper::hasContent);
     }
 
-    public static void flattenAllChildren(VirtualFile[] virtualFiles, List<VirtualFile> files) {
+    /**
+     * Visit all uploadable files in selection, see {@link #visitFiles(VirtualFile[], Predicate, Consumer)}.
+     * Content of selected folders is skipped if excluded in the IDE, ignored, generated or matching .s3uploadignore
+     * @param project
+     * @param virtualFiles selected files and folders
+     * @param consumer thread safe file consumer
+     */
+    public static void visitUploadableFiles(@NotNull Project project, @Nullable VirtualFile[] virtualFiles,
+        @NotNull Consumer<VirtualFile> consumer) {
         if (virtualFiles == null) {
             return;
         }
-        for (VirtualFile child : virtualFiles) {
-            flattenAllChildren(child, files);
-        }
+        visitFiles(virtualFiles, new UploadableFileFilter(project)::isSkipped, consumer);
     }
 
-    private static void flattenAllChildren(VirtualFile virtualFile, List<VirtualFile> files) {
-        VfsUtilCore.visitChildrenRecursively(virtualFile, new VirtualFileVisitor() {
-            @NotNull
-            @Override
-            public Result visitFileEx(@NotNull VirtualFile file) {
-                if (!file.isDirectory() && hasContent(file)) {
-                    files.add(file);
-                }
-                return CONTINUE;
+    /**
+     * Visit all files in selection, walking folders in parallel in a dedicated pool, so a blocking
+     * consumer never holds threads of the common pool. Independent from the project model, eg: for benchmarks.
+     * Files are passed to the consumer as soon as they are found, from any thread, once even if selected
+     * with their folder
+     * @param virtualFiles selected files and folders
+     * @param skipped files and folders skipped inside selected folders
+     * @param consumer thread safe file consumer
+     */
+    public static void visitFiles(@NotNull VirtualFile[] virtualFiles, @NotNull Predicate<VirtualFile> skipped,
+        @NotNull Consumer<VirtualFile> consumer) {
+        final Set<VirtualFile> selectedFolders = Stream.of(virtualFiles)
+            .filter(VirtualFile::isDirectory)
+            .collect(Collectors.toSet());
+        final List<VisitUploadableFilesTask> tasks = new ArrayList<>();
+        for (VirtualFile virtualFile : virtualFiles) {
+            if (hasSelectedAncestor(virtualFile, selectedFolders)) {
+                continue;
+            }
+            if (virtualFile.isDirectory()) {
+                tasks.add(new VisitUploadableFilesTask(virtualFile, skipped, consumer));
+            } else if (hasContent(virtualFile)) {
+                consumer.accept(virtualFile);
             }
-        });
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(VISIT_THREADS, p -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("S3UploadPlugin-visit-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
+    private static boolean hasSelectedAncestor(@NotNull VirtualFile file, @NotNull Set<VirtualFile> selectedFolders) {
+        for (VirtualFile parent = file.getParent(); parent != null; parent = parent.getParent()) {
+            if (selectedFolders.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Read text from file
@@ -97,79 +174,87 @@ public class FileHelper {
     }
 
     public static Properties getProjectProperties(@NotNull Project project) {
-        return FileHelper.getProperties(project.getBasePath() + separator + PROJECT_PROPERTIES_FILE);
-    }
-
-
-    public static void populateMapFromProperties(@NotNull Properties properties, @NotNull String prefix,
-        @NotNull Map<String,String> config) {
-        populateMapFromProperties(properties, prefix, config, null);
+        return PathHelper.getProperties(project.getBasePath() + separator + PROJECT_PROPERTIES_FILE);
     }
 
     /**
-     * Insert properties starting with prefix into a Map
-     * @param properties
-     * @param prefix
-     * @param map
-     * @param transformer
+     * S3 project name, read from s3upload.properties without the upload service
+     * @param project
+     * @return project name property, the IDE project name if missing
      */
-    public static void populateMapFromProperties(@NotNull Properties properties, @NotNull String prefix,
-        @NotNull Map<String,String> map, @Nullable Function<String, String> transformer) {
-        properties.forEach((k,v) -> {
-            String key = Objects.toString(k);
-            if (startsWith(key, prefix)) {
-                key = replaceOnce(key, prefix, EMPTY);
-                String value = Objects.toString(v);
-                if (transformer != null) {
-                    key = transformer.apply(key);
-                    value = transformer.apply(value);
-                }
-                map.put(key, value);
-            }
-        });
-    }
-
     @NotNull
-    public static String forceNotStartingWithSeparator(@Nullable String string) {
-        if(isEmpty(string)) return EMPTY;
-        return startsWith(string, separator) ? string.substring(1) : string;
+    public static String getS3ProjectName(@NotNull Project project) {
+        return getProjectProperties(project).getProperty(PROJECT_NAME_KEY, project.getName());
     }
 
-    @NotNull
-    private static String forceStartingWithSeparator(@Nullable String string) {
-        if(isEmpty(string)) return separator;
-        return startsWith(string, separator) ? string : separator + string;
-    }
 
-    @NotNull
-    public static String forceEndingWithSeparator(@Nullable String string, boolean keepEmpty) {
-        if(isEmpty(string)) return keepEmpty ? EMPTY : separator;
-        return endsWith(string, separator) ? string : string + separator;
-    }
+    /**
+     * Skip IDE excluded, ignored and generated files and the ones matching .s3uploadignore
+     */
+    private static class UploadableFileFilter
+    {
+        private final Project project;
+        private final ProjectFileIndex fileIndex;
+        private final FileTypeManager fileTypeManager;
+        private final UploadIgnoreMatcher ignoreMatcher;
+        private final String basePath;
 
-    @NotNull
-    public static String ensureSeparators(@Nullable String string) {
-        return forceEndingWithSeparator(forceStartingWithSeparator(string), false);
-    }
+        UploadableFileFilter(@NotNull Project project) {
+            this.project = project;
+            this.fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+            this.fileTypeManager = FileTypeManager.getInstance();
+            this.ignoreMatcher = UploadIgnoreMatcher.load(project.getBasePath());
+            this.basePath = project.getBasePath() + SLASH;
+        }
 
+        boolean isSkipped(@NotNull VirtualFile file) {
+            if (fileTypeManager.isFileIgnored(file) || fileIndex.isExcluded(file)
+                || GeneratedSourcesFilter.isGeneratedSourceByAnyFilter(file, project)) {
+                return true;
+            }
+            final String path = file.getPath();
+            return !ignoreMatcher.isEmpty()
+                && ignoreMatcher.isIgnored(path.startsWith(basePath) ? path.substring(basePath.length()) : path);
+        }
+    }
 
     /**
-     * Load file as Properties
-     * @param filePath
-     * @return
+     * Visit a folder, forking a task for each subfolder
      */
-    @NotNull
-    private static Properties getProperties(@NotNull String filePath) {
-        Properties prop = new Properties();
-        File file = new File(filePath);
-        if (file.exists()) {
-            try {
-                prop.load(new FileInputStream(file));
-
-            } catch (IOException e) {
-                throw new IllegalArgumentException("Could not read custom properties file", e);
-            }
+    private static class VisitUploadableFilesTask extends RecursiveAction
+    {
+        private final VirtualFile folder;
+        private final Predicate<VirtualFile> skipped;
+        private final Consumer<VirtualFile> consumer;
+
+        VisitUploadableFilesTask(@NotNull VirtualFile folder, @NotNull Predicate<VirtualFile> skipped,
+            @NotNull Consumer<VirtualFile> consumer) {
+            this.folder = folder;
+            this.skipped = skipped;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            final List<VisitUploadableFilesTask> subfolderTasks = new ArrayList<>();
+            final List<VirtualFile> files = new ArrayList<>();
+            ApplicationManager.getApplication().runReadAction(() -> WatchdogHelper.run(VISIT_ENTRY_POINT,
+                WatchdogHelper.READ_ACTION_THRESHOLD_MILLIS, () -> {
+                    for (VirtualFile child : folder.getChildren()) {
+                        if (skipped.test(child)) {
+                            continue;
+                        }
+                        if (child.isDirectory()) {
+                            subfolderTasks.add(new VisitUploadableFilesTask(child, skipped, consumer));
+                        } else if (hasContent(child)) {
+                            files.add(child);
+                        }
+                    }
+                }));
+
+            // consumer may block, never keep the read lock meanwhile
+            files.forEach(consumer);
+            invokeAll(subfolderTasks);
         }
-        return prop;
     }
 }
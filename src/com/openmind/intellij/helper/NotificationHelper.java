@@ -1,13 +1,21 @@
 package com.openmind.intellij.helper;
 
+import static com.intellij.notification.NotificationType.ERROR;
 import static com.intellij.notification.NotificationType.INFORMATION;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -17,7 +25,6 @@ import org.springframework.util.CollectionUtils;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationGroup;
 import com.intellij.notification.NotificationType;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.AlarmFactory;
 
@@ -32,6 +39,14 @@ public class NotificationHelper
     private static final NotificationGroup NOTIFICATION_GROUP = NotificationGroup.balloonGroup("S3UploadPlugin-balloon-notifications");
     private static final NotificationGroup NOTIFICATION_GROUP_LOG_ONLY = NotificationGroup.logOnlyGroup("S3UploadPlugin-balloon-notifications-log-only");
 
+    // rate limit of posted notifications
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+    private static final int MAX_COALESCED_MESSAGES = 5;
+    private static final String BR = "<br/>";
+    private static final Queue<PendingNotification> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean();
+    private static volatile long lastFlushTime;
+
     /**
      * Show message in event log and balloon
      * @param project
@@ -53,7 +68,10 @@ public class NotificationHelper
     }
 
     /**
-     * Show message in event log and balloon (optional)
+     * Show message in event log and balloon (optional). Messages are posted at most once every
+     * {@link #FLUSH_INTERVAL_MILLIS}: the ones with the same project, type and title are coalesced in one notification,
+     * so bursts of messages do not flood the event dispatch thread with balloons. A balloon lists a few messages,
+     * except for errors, all of them are kept in the event log
      * @param project
      * @param html
      * @param notificationType
@@ -62,14 +80,59 @@ public class NotificationHelper
     public static void show(@NotNull Project project, @NotNull String html, @NotNull NotificationType notificationType,
         boolean showBalloon, @Nullable String notificationTitle) {
 
-        ApplicationManager.getApplication().invokeLater(() -> {
+        PENDING.add(new PendingNotification(project, html, notificationType, showBalloon,
+            StringUtils.defaultString(notificationTitle, NOTIFICATION_TITLE)));
+        if (FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            final long delay = Math.max(0, lastFlushTime + FLUSH_INTERVAL_MILLIS - System.currentTimeMillis());
+            AlarmFactory.getInstance().create().addRequest(NotificationHelper::flush, delay);
+        }
+    }
+
+    /**
+     * Post pending messages, in the event dispatch thread
+     */
+    private static void flush() {
+        FLUSH_SCHEDULED.set(false);
+        lastFlushTime = System.currentTimeMillis();
+
+        // coalesce
+        final Map<List<Object>, List<PendingNotification>> groups = new LinkedHashMap<>();
+        PendingNotification pending;
+        while ((pending = PENDING.poll()) != null) {
+            groups.computeIfAbsent(Arrays.asList(pending.project, pending.notificationType, pending.showBalloon,
+                pending.title), k -> new ArrayList<>()).add(pending);
+        }
 
-            NotificationGroup group = showBalloon ? NOTIFICATION_GROUP : NOTIFICATION_GROUP_LOG_ONLY;
-            String title = StringUtils.defaultString(notificationTitle, NOTIFICATION_TITLE);
-            Notification notification =  group.createNotification(title, html, notificationType, null);
-            notification.notify(project);
+        groups.values().forEach(messages -> {
+            final PendingNotification first = messages.get(0);
+            if (first.project.isDisposed()) {
+                return;
+            }
+            // only balloons are truncated, never errors: the other messages go to the event log only
+            final boolean truncated = first.showBalloon && first.notificationType != ERROR
+                && messages.size() > MAX_COALESCED_MESSAGES;
+            final List<PendingNotification> shown = truncated ? messages.subList(0, MAX_COALESCED_MESSAGES) : messages;
+            final StringBuilder html = new StringBuilder(first.html);
+            shown.stream().skip(1).forEach(m -> html.append(BR).append(m.html));
+            if (truncated) {
+                html.append(BR).append("... and ").append(messages.size() - MAX_COALESCED_MESSAGES)
+                    .append(" more in Event Log");
+            }
 
-            if(showBalloon) {
+            final NotificationGroup group = first.showBalloon ? NOTIFICATION_GROUP : NOTIFICATION_GROUP_LOG_ONLY;
+            final Notification notification = group.createNotification(first.title, html.toString(),
+                first.notificationType, null);
+            notification.notify(first.project);
+
+            if (truncated) {
+                final StringBuilder overflow = new StringBuilder();
+                messages.stream().skip(MAX_COALESCED_MESSAGES)
+                    .forEach(m -> overflow.append(overflow.length() > 0 ? BR : StringUtils.EMPTY).append(m.html));
+                NOTIFICATION_GROUP_LOG_ONLY.createNotification(first.title, overflow.toString(),
+                    first.notificationType, null).notify(first.project);
+            }
+
+            if(first.showBalloon) {
                 AlarmFactory.getInstance().create().addRequest(
                     notification::expire,
                     TimeUnit.SECONDS.toMillis(10)
@@ -84,6 +147,24 @@ public class NotificationHelper
         }
     }
 
+    private static class PendingNotification
+    {
+        private final Project project;
+        private final String html;
+        private final NotificationType notificationType;
+        private final boolean showBalloon;
+        private final String title;
+
+        PendingNotification(Project project, String html, NotificationType notificationType, boolean showBalloon,
+            String title) {
+            this.project = project;
+            this.html = html;
+            this.notificationType = notificationType;
+            this.showBalloon = showBalloon;
+            this.title = title;
+        }
+    }
+
     private static class RandomNotificationTimerTask extends TimerTask
     {
         private final Project project;
@@ -0,0 +1,113 @@
+package com.openmind.intellij.helper;
+
+import static java.io.File.separator;
+import static org.apache.commons.lang.StringUtils.EMPTY;
+import static org.apache.commons.lang.StringUtils.isEmpty;
+import static org.apache.commons.lang.StringUtils.replaceOnce;
+import static org.apache.commons.lang.StringUtils.startsWith;
+import static org.apache.commons.lang3.StringUtils.endsWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Paths, S3 keys and properties, without IDE dependencies: shared by the plugin and the command line
+ */
+public class PathHelper {
+
+    private static final String SLASH = "/";
+
+    public static void populateMapFromProperties(@NotNull Properties properties, @NotNull String prefix,
+        @NotNull Map<String,String> config) {
+        populateMapFromProperties(properties, prefix, config, null);
+    }
+
+    /**
+     * Insert properties starting with prefix into a Map
+     * @param properties
+     * @param prefix
+     * @param map
+     * @param transformer
+     */
+    public static void populateMapFromProperties(@NotNull Properties properties, @NotNull String prefix,
+        @NotNull Map<String,String> map, @Nullable Function<String, String> transformer) {
+        properties.forEach((k,v) -> {
+            String key = Objects.toString(k);
+            if (startsWith(key, prefix)) {
+                key = replaceOnce(key, prefix, EMPTY);
+                String value = Objects.toString(v);
+                if (transformer != null) {
+                    key = transformer.apply(key);
+                    value = transformer.apply(value);
+                }
+                map.put(key, value);
+            }
+        });
+    }
+
+    @NotNull
+    public static String forceNotStartingWithSeparator(@Nullable String string) {
+        if(isEmpty(string)) return EMPTY;
+        return startsWith(string, separator) ? string.substring(1) : string;
+    }
+
+    @NotNull
+    private static String forceStartingWithSeparator(@Nullable String string) {
+        if(isEmpty(string)) return separator;
+        return startsWith(string, separator) ? string : separator + string;
+    }
+
+    @NotNull
+    public static String forceEndingWithSeparator(@Nullable String string, boolean keepEmpty) {
+        if(isEmpty(string)) return keepEmpty ? EMPTY : separator;
+        return endsWith(string, separator) ? string : string + separator;
+    }
+
+    @NotNull
+    public static String ensureSeparators(@Nullable String string) {
+        return forceEndingWithSeparator(forceStartingWithSeparator(string), false);
+    }
+
+
+    /**
+     * Join folder and file name with the S3 separator
+     * @param folder
+     * @param fileName
+     * @return
+     */
+    @NotNull
+    public static String toS3Key(@NotNull String folder, @NotNull String fileName) {
+        return isEmpty(folder) || endsWith(folder, SLASH) ? folder + fileName : folder + SLASH + fileName;
+    }
+
+
+    /**
+     * Load file as Properties, empty if the file does not exist
+     * @param filePath
+     * @return
+     */
+    @NotNull
+    public static Properties getProperties(@NotNull String filePath) {
+        Properties prop = new Properties();
+        File file = new File(filePath);
+        if (file.exists()) {
+            try (InputStream input = new FileInputStream(file)) {
+                prop.load(input);
+
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not read properties file " + filePath, e);
+            }
+        }
+        return prop;
+    }
+}
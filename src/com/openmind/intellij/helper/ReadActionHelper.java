@@ -0,0 +1,44 @@
+package com.openmind.intellij.helper;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.util.Computable;
+
+
+/**
+ * Read actions for long background work, never blocking write actions
+ */
+public class ReadActionHelper
+{
+    private static final String ENTRY_POINT = "ReadActionHelper.computeWithWriteActionPriority";
+
+    /**
+     * Run in a read action that is canceled as soon as a write action is requested,
+     * then restarted once the write action is done
+     * Each attempt runs under a child indicator: a write action cancels only the child,
+     * never the parent operation. Time under the read lock is recorded by the watchdog
+     * @param computable has to be side effect free, as it can run more than once
+     * @param indicator parent indicator, its cancellation stops the retries
+     * @return
+     */
+    public static <T> T computeWithWriteActionPriority(@NotNull Computable<T> computable,
+        @NotNull ProgressIndicator indicator) {
+
+        final AtomicReference<T> result = new AtomicReference<>();
+        while (true) {
+            indicator.checkCanceled();
+            if (ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(
+                () -> result.set(WatchdogHelper.compute(ENTRY_POINT, WatchdogHelper.READ_ACTION_THRESHOLD_MILLIS,
+                    computable::compute)),
+                new SensitiveProgressWrapper(indicator))) {
+                return result.get();
+            }
+            ProgressIndicatorUtils.yieldToPendingWriteActions();
+        }
+    }
+}
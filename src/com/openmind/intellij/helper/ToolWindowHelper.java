@@ -0,0 +1,87 @@
+package com.openmind.intellij.helper;
+
+import java.util.function.Supplier;
+
+import javax.swing.JComponent;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
+
+
+/**
+ * Handle tabs of the plugin tool window
+ */
+public class ToolWindowHelper
+{
+    public static final String TOOL_WINDOW_ID = "S3 Upload";
+
+    /**
+     * Add tab to tool window, or replace the one with the same name, and show it. Can be called from any thread
+     * @param project
+     * @param tabName
+     * @param componentFactory called in the event dispatch thread
+     */
+    public static void showContent(@NotNull Project project, @NotNull String tabName,
+        @NotNull Supplier<JComponent> componentFactory) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (project.isDisposed()) {
+                return;
+            }
+            final ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(TOOL_WINDOW_ID);
+            if (toolWindow == null) {
+                return;
+            }
+            final Content content = setContent(toolWindow, tabName, componentFactory.get());
+            toolWindow.getContentManager().setSelectedContent(content);
+            toolWindow.activate(null, false);
+        });
+    }
+
+    /**
+     * Add tab to tool window, or replace the one with the same name, without showing it. Can be called from any thread
+     * @param project
+     * @param tabName
+     * @param componentFactory called in the event dispatch thread
+     */
+    public static void updateContent(@NotNull Project project, @NotNull String tabName,
+        @NotNull Supplier<JComponent> componentFactory) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (project.isDisposed()) {
+                return;
+            }
+            final ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(TOOL_WINDOW_ID);
+            if (toolWindow != null) {
+                setContent(toolWindow, tabName, componentFactory.get());
+            }
+        });
+    }
+
+    /**
+     * Add tab to tool window, or replace the one with the same name
+     * @param toolWindow
+     * @param tabName
+     * @param component
+     * @return
+     */
+    @NotNull
+    public static Content setContent(@NotNull ToolWindow toolWindow, @NotNull String tabName,
+        @NotNull JComponent component) {
+        final ContentManager contentManager = toolWindow.getContentManager();
+        final Content content = ContentFactory.SERVICE.getInstance().createContent(component, tabName, false);
+        final Content existing = contentManager.findContent(tabName);
+        if (existing != null) {
+            contentManager.addContent(content, contentManager.getIndexOfContent(existing));
+            contentManager.removeContent(existing, true);
+        } else {
+            contentManager.addContent(content);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,81 @@
+package com.openmind.intellij.helper;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.openmind.intellij.action.AbstractUploadConfigAction;
+import com.openmind.intellij.action.CompareWithS3Action;
+import com.openmind.intellij.action.ShowRemoteStatusAction;
+import com.openmind.intellij.action.SyncModuleOutputToS3Action;
+import com.openmind.intellij.action.UploadChangesToS3Action;
+import com.openmind.intellij.action.UploadFileToS3Action;
+import com.openmind.intellij.bean.UploadConfig;
+
+
+/**
+ * Add and remove menu actions of upload configs. Actions are shared between projects
+ */
+public class UploadConfigActionsHelper
+{
+    private static final String UPLOAD_MENU_GROUP = "S3UploadPlugin.Menu";
+    private static final String TOOLS_MENU_GROUP = "S3UploadPlugin.ToolsMenu";
+
+    /**
+     * Add all actions of a config to menus, if not added by another project
+     * @param uploadConfig
+     */
+    public static void registerActions(@NotNull UploadConfig uploadConfig) {
+        final ActionManager am = ActionManager.getInstance();
+        final DefaultActionGroup group = (DefaultActionGroup) am.getAction(UPLOAD_MENU_GROUP);
+        final DefaultActionGroup toolsGroup = (DefaultActionGroup) am.getAction(TOOLS_MENU_GROUP);
+        if (group == null || toolsGroup == null) {
+            return;
+        }
+        registerAction(am, group, new UploadFileToS3Action(uploadConfig));
+        registerAction(am, toolsGroup, new UploadChangesToS3Action(uploadConfig));
+        registerAction(am, toolsGroup, new SyncModuleOutputToS3Action(uploadConfig, false));
+        registerAction(am, toolsGroup, new SyncModuleOutputToS3Action(uploadConfig, true));
+        registerAction(am, toolsGroup, new CompareWithS3Action(uploadConfig));
+        registerAction(am, toolsGroup, new ShowRemoteStatusAction(uploadConfig));
+    }
+
+    /**
+     * Remove all actions of a config from menus, eg: when its version file is deleted
+     * @param uploadConfig
+     */
+    public static void unregisterActions(@NotNull UploadConfig uploadConfig) {
+        final ActionManager am = ActionManager.getInstance();
+        for (String groupId : new String[] { UPLOAD_MENU_GROUP, TOOLS_MENU_GROUP }) {
+            final DefaultActionGroup group = (DefaultActionGroup) am.getAction(groupId);
+            if (group == null) {
+                continue;
+            }
+            for (AnAction action : group.getChildActionsOrStubs()) {
+                if (action instanceof AbstractUploadConfigAction
+                    && isSameConfig(((AbstractUploadConfigAction) action).getUploadConfig(), uploadConfig)) {
+                    group.remove(action);
+                    ((AbstractUploadConfigAction) action).dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Register action once
+     */
+    private static void registerAction(@NotNull ActionManager am, @NotNull DefaultActionGroup group,
+        @NotNull AbstractUploadConfigAction action) {
+        if (am.getAction(action.getActionId()) == null) {
+            am.registerAction(action.getActionId(), action);
+            group.add(action);
+        }
+    }
+
+    private static boolean isSameConfig(UploadConfig a, @NotNull UploadConfig b) {
+        return a != null && StringUtils.equals(a.getProjectName(), b.getProjectName())
+            && StringUtils.equals(a.getFullFileName(), b.getFullFileName());
+    }
+}
@@ -0,0 +1,134 @@
+package com.openmind.intellij.helper;
+
+import static org.apache.commons.lang.StringUtils.EMPTY;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Glob patterns of files not to upload, read from the .s3uploadignore file in the project root.
+ * All patterns are compiled to a single regex. Examples:
+ * <pre>
+ * node_modules      any file or folder with this name
+ * *.log             any file with this extension
+ * /web/tmp/         folder relative to the project root
+ * src/**&#47;gen/   any gen folder under src
+ * </pre>
+ */
+public class UploadIgnoreMatcher
+{
+    public static final String IGNORE_FILE = ".s3uploadignore";
+
+    private static final String COMMENT = "#";
+    private static final String SLASH = "/";
+    private static final String REGEX_SPECIAL_CHARS = "\\.[]{}()+-^$|";
+    private static final UploadIgnoreMatcher NONE = new UploadIgnoreMatcher(null);
+
+    @Nullable
+    private final Pattern pattern;
+
+    private UploadIgnoreMatcher(@Nullable Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Load ignore file from project folder
+     * @param basePath
+     * @return matcher, never matching if the file is not found
+     */
+    @NotNull
+    public static UploadIgnoreMatcher load(@Nullable String basePath) {
+        if (basePath == null) {
+            return NONE;
+        }
+        File ignoreFile = new File(basePath, IGNORE_FILE);
+        if (!ignoreFile.isFile()) {
+            return NONE;
+        }
+        try {
+            return compile(Files.readAllLines(ignoreFile.toPath(), StandardCharsets.UTF_8));
+
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read " + IGNORE_FILE, e);
+        }
+    }
+
+    /**
+     * Compile glob patterns
+     * @param globs
+     * @return
+     */
+    @NotNull
+    public static UploadIgnoreMatcher compile(@NotNull List<String> globs) {
+        List<String> regexes = globs.stream()
+            .map(String::trim)
+            .filter(g -> !isBlank(g) && !g.startsWith(COMMENT))
+            .map(UploadIgnoreMatcher::toRegex)
+            .collect(Collectors.toList());
+
+        return regexes.isEmpty()
+            ? NONE
+            : new UploadIgnoreMatcher(Pattern.compile(String.join("|", regexes)));
+    }
+
+    /**
+     * Check path
+     * @param relativePath path relative to project root, with '/' separators
+     * @return
+     */
+    public boolean isIgnored(@NotNull String relativePath) {
+        return pattern != null && pattern.matcher(relativePath).matches();
+    }
+
+    public boolean isEmpty() {
+        return pattern == null;
+    }
+
+    /**
+     * Patterns containing a slash are anchored to the project root, others match at any depth.
+     * Matching a folder matches all its content
+     */
+    @NotNull
+    private static String toRegex(@NotNull String glob) {
+        String trimmed = glob.endsWith(SLASH) ? glob.substring(0, glob.length() - 1) : glob;
+        boolean anchored = trimmed.contains(SLASH);
+        if (trimmed.startsWith(SLASH)) {
+            trimmed = trimmed.substring(1);
+        }
+
+        StringBuilder regex = new StringBuilder(anchored ? EMPTY : "(?:.*/)?");
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '*' && i + 1 < trimmed.length() && trimmed.charAt(i + 1) == '*') {
+                boolean followedBySlash = i + 2 < trimmed.length() && trimmed.charAt(i + 2) == '/';
+                regex.append(followedBySlash ? "(?:.*/)?" : ".*");
+                i += followedBySlash ? 2 : 1;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                if (REGEX_SPECIAL_CHARS.indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return "(?:" + regex + "(?:/.*)?)";
+    }
+
+    @Override
+    public String toString() {
+        return pattern != null ? pattern.pattern() : EMPTY;
+    }
+}
@@ -0,0 +1,203 @@
+package com.openmind.intellij.helper;
+
+import static org.apache.commons.lang.StringUtils.isEmpty;
+
+import java.io.File;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.CapturingProcessHandler;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.VcsChanges;
+
+
+/**
+ * Read changed files from VCS
+ */
+public class VcsChangesHelper
+{
+    private static final String GIT = "git";
+    private static final String KEPT_REVISIONS_REF = "refs/s3upload/";
+    private static final int GIT_TIMEOUT_MILLIS = 60000;
+    private static final String NUL = "\u0000";
+
+    /**
+     * Uncommitted changes of all changelists and unversioned files
+     * @param project
+     * @return
+     */
+    @NotNull
+    public static VcsChanges getLocalChanges(@NotNull Project project) {
+        final VcsChanges changes = new VcsChanges();
+        addUnversionedFiles(project, changes);
+        for (Change change : ChangeListManager.getInstance(project).getAllChanges()) {
+            final ContentRevision before = change.getBeforeRevision();
+            final ContentRevision after = change.getAfterRevision();
+            final VirtualFile afterFile = after != null ? after.getFile().getVirtualFile() : null;
+
+            if (afterFile != null && !afterFile.isDirectory()) {
+                changes.addChangedFile(afterFile);
+            }
+            // deleted or moved
+            if (before != null && (after == null || !before.getFile().equals(after.getFile()))) {
+                changes.addDeletedPath(before.getFile().getPath());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Committed and uncommitted changes since the common ancestor of HEAD and the given ref, and unversioned files.
+     * For a commit in the current branch it is the commit itself, for a branch its base
+     * @param project
+     * @param ref commit, branch or tag
+     * @return
+     * @throws IllegalArgumentException if the ref is not a commit or git fails
+     */
+    @NotNull
+    public static VcsChanges getChangesSince(@NotNull Project project, @NotNull String ref) throws IllegalArgumentException {
+        final String base = runGit(project, "merge-base", "HEAD", getCommit(project, ref)).trim();
+        return getChangesFrom(project, base);
+    }
+
+    /**
+     * Files that differ from an uploaded working tree state, see {@link #getWorkingTreeRevision(Project)},
+     * and unversioned files. Compared directly, so files whose uploaded changes were reverted are included too
+     * @param project
+     * @param revision
+     * @return
+     * @throws IllegalArgumentException if the revision is not a commit or git fails
+     */
+    @NotNull
+    public static VcsChanges getChangesSinceUpload(@NotNull Project project, @NotNull String revision)
+        throws IllegalArgumentException {
+        return getChangesFrom(project, getCommit(project, revision));
+    }
+
+    /**
+     * Commit hash of a ref, so git never reads the ref as an option
+     * @param project
+     * @param ref commit, branch or tag
+     * @return
+     * @throws IllegalArgumentException if the ref is not a commit
+     */
+    @NotNull
+    private static String getCommit(@NotNull Project project, @NotNull String ref) throws IllegalArgumentException {
+        // no ref name starts with '-'
+        if (ref.startsWith("-")) {
+            throw new IllegalArgumentException("Invalid git ref: " + ref);
+        }
+        return runGit(project, "rev-parse", "--verify", "--quiet", ref + "^{commit}").trim();
+    }
+
+    /**
+     * Committed and uncommitted changes since a commit, and unversioned files
+     * @param project
+     * @param commit commit hash
+     * @return
+     * @throws IllegalArgumentException if git fails
+     */
+    @NotNull
+    private static VcsChanges getChangesFrom(@NotNull Project project, @NotNull String commit)
+        throws IllegalArgumentException {
+        final String diff = runGit(project, "diff", "--name-status", "--relative", "-z", commit);
+
+        // entries: status NUL path [NUL new path] NUL
+        final VcsChanges changes = new VcsChanges();
+        final String[] fields = diff.split(NUL);
+        for (int i = 0; i < fields.length; i++) {
+            final String status = fields[i];
+            if (isEmpty(status)) {
+                continue;
+            }
+            final char type = status.charAt(0);
+            final String path = fields[++i];
+            if (type == 'R' || type == 'C') {
+                if (type == 'R') {
+                    changes.addDeletedPath(path);
+                }
+                addChangedFile(project, changes, fields[++i]);
+            } else if (type == 'D') {
+                changes.addDeletedPath(path);
+            } else {
+                addChangedFile(project, changes, path);
+            }
+        }
+        addUnversionedFiles(project, changes);
+        return changes;
+    }
+
+    /**
+     * Commit of the working tree: HEAD without uncommitted changes, otherwise a commit of tracked files created
+     * like a stash, without changing the working tree or the stash list. Unversioned files are not included
+     * @param project
+     * @return null if not a git repository
+     */
+    @Nullable
+    public static String getWorkingTreeRevision(@NotNull Project project) {
+        try {
+            final String stash = runGit(project, "stash", "create").trim();
+            return !stash.isEmpty() ? stash : runGit(project, "rev-parse", "HEAD").trim();
+
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Keep a revision from git garbage collection, with a ref outside branches and tags
+     * @param project
+     * @param name ref name, invalid characters are replaced
+     * @param revision commit hash
+     * @throws IllegalArgumentException if git fails
+     */
+    public static void keepRevision(@NotNull Project project, @NotNull String name, @NotNull String revision)
+        throws IllegalArgumentException {
+        runGit(project, "update-ref", KEPT_REVISIONS_REF + name.replaceAll("[^A-Za-z0-9_-]", "_"), revision);
+    }
+
+    /**
+     * Unversioned files are not in git diff
+     */
+    private static void addUnversionedFiles(@NotNull Project project, @NotNull VcsChanges changes) {
+        for (VirtualFile file : ChangeListManager.getInstance(project).getUnversionedFiles()) {
+            if (!file.isDirectory()) {
+                changes.addChangedFile(file);
+            }
+        }
+    }
+
+    private static void addChangedFile(@NotNull Project project, @NotNull VcsChanges changes, @NotNull String path) {
+        VirtualFile file = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(new File(project.getBasePath(), path));
+        if (file != null && !file.isDirectory()) {
+            changes.addChangedFile(file);
+        }
+    }
+
+    @NotNull
+    private static String runGit(@NotNull Project project, @NotNull String... parameters) throws IllegalArgumentException {
+        final GeneralCommandLine commandLine = new GeneralCommandLine(GIT)
+            .withParameters(parameters)
+            .withWorkDirectory(project.getBasePath());
+        try {
+            final ProcessOutput output = new CapturingProcessHandler(commandLine).runProcess(GIT_TIMEOUT_MILLIS);
+            if (output.getExitCode() != 0 || output.isTimeout()) {
+                throw new IllegalArgumentException("git " + String.join(" ", parameters) + " failed: "
+                    + output.getStderr().trim());
+            }
+            return output.getStdout();
+
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Could not run git: " + e.getMessage(), e);
+        }
+    }
+}
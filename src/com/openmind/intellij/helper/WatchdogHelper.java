@@ -0,0 +1,121 @@
+package com.openmind.intellij.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.openmind.intellij.bean.LatencyHistogram;
+
+
+/**
+ * Time plugin entry points (actions, decorators, tool window) and read actions by thread context: event thread,
+ * write lock, read lock or background. Calls blocking the UI for longer than their threshold are logged,
+ * at most once a minute by entry point, with the statistics of that entry point
+ */
+public class WatchdogHelper
+{
+    private static final Logger LOGGER = Logger.getInstance(WatchdogHelper.class);
+
+    // update() runs at every menu and toolbar refresh
+    public static final long UPDATE_THRESHOLD_MILLIS = 5;
+    public static final long ACTION_THRESHOLD_MILLIS = 100;
+    // plugin read actions in background delay write actions, so the UI waiting for them
+    public static final long READ_ACTION_THRESHOLD_MILLIS = 100;
+    private static final long REPORT_INTERVAL_MILLIS = 60 * 1000;
+
+    private static final Map<String, EntryPointStats> STATS = new ConcurrentHashMap<>();
+
+    private enum Context {
+        EDT, WRITE_LOCK, READ_LOCK, BACKGROUND
+    }
+
+    /**
+     * Run and time entry point
+     * @param entryPoint name in statistics, eg: class and method
+     * @param thresholdMillis calls blocking the UI for longer are logged
+     * @param runnable
+     */
+    public static void run(@NotNull String entryPoint, long thresholdMillis, @NotNull Runnable runnable) {
+        compute(entryPoint, thresholdMillis, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Compute and time entry point
+     * @param entryPoint name in statistics, eg: class and method
+     * @param thresholdMillis calls blocking the UI for longer are logged
+     * @param supplier
+     * @return
+     */
+    public static <T> T compute(@NotNull String entryPoint, long thresholdMillis, @NotNull Supplier<T> supplier) {
+        final Context context = getContext();
+        final long startTime = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(entryPoint, context, System.nanoTime() - startTime, thresholdMillis);
+        }
+    }
+
+    @NotNull
+    private static Context getContext() {
+        final Application application = ApplicationManager.getApplication();
+        if (application.isWriteAccessAllowed()) {
+            return Context.WRITE_LOCK;
+        }
+        if (application.isDispatchThread()) {
+            return Context.EDT;
+        }
+        return application.isReadAccessAllowed() ? Context.READ_LOCK : Context.BACKGROUND;
+    }
+
+    private static void record(@NotNull String entryPoint, @NotNull Context context, long nanos,
+        long thresholdMillis) {
+        final EntryPointStats stats = STATS.computeIfAbsent(entryPoint, e -> new EntryPointStats());
+        final LatencyHistogram histogram = stats.histograms[context.ordinal()];
+        histogram.record(nanos);
+
+        // background calls do not block the UI
+        if (context == Context.BACKGROUND || nanos < TimeUnit.MILLISECONDS.toNanos(thresholdMillis)) {
+            return;
+        }
+        stats.slowCalls.increment();
+        final long now = System.currentTimeMillis();
+        final long lastReport = stats.lastReport;
+        if (now - lastReport < REPORT_INTERVAL_MILLIS) {
+            return;
+        }
+        synchronized (stats) {
+            if (stats.lastReport != lastReport) {
+                return;
+            }
+            stats.lastReport = now;
+        }
+        LOGGER.warn(String.format("%s took %d ms in %s, threshold %d ms. Slow calls: %d, calls in %s: %d, "
+                + "p50 %.1f ms, p99 %.1f ms, max %.1f ms", entryPoint, TimeUnit.NANOSECONDS.toMillis(nanos), context,
+            thresholdMillis, stats.slowCalls.sum(), context, histogram.getCount(), histogram.getPercentileMillis(0.5),
+            histogram.getPercentileMillis(0.99), histogram.getMaxMillis()));
+    }
+
+    private static class EntryPointStats
+    {
+        private final LatencyHistogram[] histograms = new LatencyHistogram[Context.values().length];
+        private final LongAdder slowCalls = new LongAdder();
+        private volatile long lastReport;
+
+        EntryPointStats() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
@@ -6,7 +6,10 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.RemoteObject;
+import com.openmind.intellij.bean.RemotePage;
 import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.bean.UploadMetrics;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -14,6 +17,10 @@ import org.jetbrains.annotations.Nullable;
 
 public interface AmazonS3Service {
 
+    // sources of changes to upload, other values are git refs
+    String CHANGES_LOCAL = "Local changes";
+    String CHANGES_SINCE_LAST_UPLOAD = "Since last upload";
+
     static AmazonS3Service getInstance(@NotNull Project project) {
         return ServiceManager.getService(project, AmazonS3Service.class);
     }
@@ -24,5 +31,30 @@ public interface AmazonS3Service {
     @NotNull
     String getProjectName();
 
-    void uploadFiles(@Nullable Module module, @NotNull List<VirtualFile> originalFiles, @NotNull UploadConfig uploadConfig);
+    void uploadFiles(@Nullable Module module, @NotNull VirtualFile[] selectedFiles, @NotNull UploadConfig uploadConfig);
+
+    void uploadChanges(@NotNull String changesSince, @NotNull UploadConfig uploadConfig);
+
+    void syncModuleOutput(@NotNull Module module, @NotNull UploadConfig uploadConfig, boolean mirror);
+
+    void compareWithS3(@Nullable Module module, @NotNull VirtualFile[] selectedFiles, @NotNull UploadConfig uploadConfig);
+
+    void refreshRemoteStatus(@NotNull UploadConfig uploadConfig);
+
+    @NotNull
+    String getBrowseRoot(@NotNull UploadConfig uploadConfig);
+
+    @NotNull
+    RemotePage listRemotePage(@NotNull String prefix, @Nullable String continuationToken);
+
+    void prefetchRemotePage(@NotNull String prefix, @Nullable String continuationToken);
+
+    void invalidateRemotePages(@NotNull String prefix);
+
+    void showRemoteDiff(@NotNull RemoteObject remoteObject);
+
+    void startVersionPolling(@NotNull UploadConfigListener listener);
+
+    @NotNull
+    List<UploadMetrics> getRecentMetrics();
 }
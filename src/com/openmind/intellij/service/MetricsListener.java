@@ -0,0 +1,17 @@
+package com.openmind.intellij.service;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.util.messages.Topic;
+import com.openmind.intellij.bean.UploadMetrics;
+
+
+/**
+ * Notified on the project message bus when an operation ends
+ */
+public interface MetricsListener {
+
+    Topic<MetricsListener> TOPIC = Topic.create("S3UploadPlugin metrics", MetricsListener.class);
+
+    void metricsRecorded(@NotNull UploadMetrics metrics);
+}
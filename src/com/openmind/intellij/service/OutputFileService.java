@@ -9,6 +9,8 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
 
 
 public interface OutputFileService {
@@ -21,9 +23,15 @@ public interface OutputFileService {
     VirtualFile getCompiledOrOriginalFile(@Nullable Module module, @NotNull VirtualFile originalFile);
 
     @NotNull
-    List<VirtualFile> findSubclasses(VirtualFile originalFile, VirtualFile outputFile);
+    List<UploadItem> planUpload(@Nullable Module module, @NotNull VirtualFile originalFile,
+        @NotNull String deployedProjectPath, @NotNull UploadMetrics metrics) throws IllegalArgumentException;
 
     @NotNull
     String getProjectRelativeDeployPath(@NotNull VirtualFile originalFile)
         throws IllegalArgumentException;
+
+    boolean isDeployable(@NotNull VirtualFile originalFile);
+
+    @NotNull
+    String getOutputDeployPath(@NotNull Module module) throws IllegalArgumentException;
 }
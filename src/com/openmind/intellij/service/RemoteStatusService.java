@@ -0,0 +1,31 @@
+package com.openmind.intellij.service;
+
+import java.util.Collection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.bean.UploadItem;
+
+
+public interface RemoteStatusService {
+
+    static RemoteStatusService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RemoteStatusService.class);
+    }
+
+    @Nullable
+    UploadConfig getUploadConfig();
+
+    @Nullable
+    DriftEntry.Status getStatus(@NotNull VirtualFile file);
+
+    void update(@NotNull UploadConfig uploadConfig, @NotNull Collection<DriftEntry> entries);
+
+    void uploaded(@NotNull UploadConfig uploadConfig, @NotNull UploadItem item);
+}
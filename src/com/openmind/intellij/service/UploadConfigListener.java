@@ -0,0 +1,23 @@
+package com.openmind.intellij.service;
+
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.openmind.intellij.bean.UploadConfig;
+
+
+/**
+ * Changes of upload configs found on S3 while the IDE is open
+ */
+@FunctionalInterface
+public interface UploadConfigListener {
+
+    /**
+     * @param added new version files
+     * @param removed deleted version files
+     * @param updated configs with a new version
+     */
+    void configsChanged(@NotNull List<UploadConfig> added, @NotNull List<UploadConfig> removed,
+        @NotNull List<UploadConfig> updated);
+}
@@ -2,71 +2,192 @@ package com.openmind.intellij.service.impl;
 
 import static com.intellij.notification.NotificationType.ERROR;
 import static com.intellij.notification.NotificationType.INFORMATION;
+import static com.intellij.notification.NotificationType.WARNING;
 import static java.io.File.separator;
 import static org.apache.commons.lang.StringUtils.EMPTY;
 import static org.apache.commons.lang.StringUtils.defaultString;
 import static org.apache.commons.lang.StringUtils.isEmpty;
-import static org.apache.commons.lang.StringUtils.isNotEmpty;
 import static org.apache.commons.lang.StringUtils.replaceOnce;
 import static org.apache.commons.lang.StringUtils.substringAfterLast;
 import static org.apache.commons.lang.StringUtils.substringBefore;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.java.generate.exception.PluginException;
+import org.jetbrains.jps.model.java.JavaModuleSourceRootTypes;
 import org.springframework.util.CollectionUtils;
 
-import com.amazonaws.AmazonServiceException;
-import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.services.s3.transfer.MultipleFileUpload;
-import com.amazonaws.services.s3.transfer.TransferManager;
-import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.IOUtils;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.intellij.diff.DiffContentFactory;
+import com.intellij.diff.DiffManager;
+import com.intellij.diff.contents.DiffContent;
+import com.intellij.diff.requests.SimpleDiffRequest;
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.compiler.CompilerPaths;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.FileTypeManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.bean.RemoteObject;
+import com.openmind.intellij.bean.RemotePage;
 import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Counter;
+import com.openmind.intellij.bean.UploadReport;
+import com.openmind.intellij.bean.UploadTrace;
+import com.openmind.intellij.bean.VcsChanges;
 import com.openmind.intellij.exception.NotConfiguredPluginException;
+import com.openmind.intellij.extension.S3UploadToolWindowFactory;
 import com.openmind.intellij.helper.FileHelper;
 import com.openmind.intellij.helper.NotificationHelper;
+import com.openmind.intellij.helper.PathHelper;
+import com.openmind.intellij.helper.ReadActionHelper;
+import com.openmind.intellij.helper.ToolWindowHelper;
+import com.openmind.intellij.helper.VcsChangesHelper;
+import com.openmind.intellij.helper.WatchdogHelper;
 import com.openmind.intellij.service.AmazonS3Service;
+import com.openmind.intellij.service.MetricsListener;
 import com.openmind.intellij.service.OutputFileService;
+import com.openmind.intellij.service.RemoteStatusService;
+import com.openmind.intellij.service.UploadConfigListener;
+import com.openmind.intellij.ui.DriftReportPanel;
+import com.openmind.intellij.ui.UploadLogPanel;
 
 
 /**
  * Upload file to S3. S3 env credentials have to be set
  */
-public class AmazonS3ServiceImpl implements AmazonS3Service {
+public class AmazonS3ServiceImpl implements AmazonS3Service, Disposable {
+
+    private static final Logger LOGGER = Logger.getInstance(AmazonS3ServiceImpl.class);
 
     // credentials
     private static final String AWS_SYSTEM_ACCESS_KEY = "AWS_ACCESS_KEY";
     private static final String AWS_SYSTEM_SECRET_ACCESS_KEY = "AWS_SECRET_ACCESS_KEY";
-    private static final String AWS_PROPERTY_ACCESS_KEY = "aws.accessKeyId";
-    private static final String AWS_PROPERTY_SECRET_ACCESS_KEY = "aws.secretKey";
-    private static final String DEFAULT_REGION = "EU_WEST_1";
+
+    // stale compiled files dialog
+    private static final String[] STALE_OUTPUTS_OPTIONS = { "Upload Anyway", "Compile and Upload", "Cancel" };
+    private static final int STALE_OUTPUTS_CONTINUE = 0;
+    private static final int STALE_OUTPUTS_COMPILE = 1;
+    private static final int MAX_LISTED_STALE_OUTPUTS = 20;
+    private static final String COMPILE_ENTRY_POINT = "AmazonS3ServiceImpl.compileAndUpload";
+
+    // upload pipeline
+    private static final int PIPELINE_QUEUE_CAPACITY = 1000;
+    private static final int PIPELINE_RESOLVE_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int PIPELINE_HASH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int DEFAULT_UPLOAD_THREADS = 8;
+
+    // journal of uploaded files, in the IDE system folder
+    private static final String JOURNAL_FOLDER = "s3upload/journal/";
+    private static final String JOURNAL_EXTENSION = ".journal";
+
+    // listing of deployed projects, in the IDE system folder
+    private static final String LISTING_FOLDER = "s3upload/listing/";
+    private static final String LISTING_EXTENSION = ".listing";
+    private static final int LISTING_THREADS = 16;
+    private static final int LISTING_PARTITION_DEPTH = 4;
+    private static final long DEFAULT_LISTING_CACHE_TTL_MINUTES = 30;
+
+    // browser of deployed files
+    private static final int BROWSER_PAGE_SIZE = 1000;
+    private static final int BROWSER_MAX_PAGES = 1000;
+    private static final long BROWSER_PAGE_TTL_MINUTES = 5;
+    private static final int MAX_DIFF_BYTES = 1024 * 1024;
+
+    // connections kept open while the project is open, refreshed when idle
+    private static final int DEFAULT_WARM_CONNECTIONS = 4;
+    private static final long KEEP_WARM_SECONDS = 15;
+    private static final long KEEP_WARM_MAX_IDLE_MINUTES = 10;
+    private static final String BUCKET_REGION_KEY = "S3UploadPlugin.bucketRegion.";
+
+    // metrics of operations, in the IDE system folder
+    private static final String METRICS_FOLDER = "s3upload/metrics/";
+    private static final String METRICS_EXTENSION = ".json";
+    private static final int MAX_RECENT_METRICS = 20;
+    private static final int MAX_EXPORTED_METRICS = 100;
+    private static final String TRACES_FOLDER = "s3upload/traces/";
+    private static final String TRACE_EXTENSION = ".trace.json";
+    private static final int MAX_EXPORTED_TRACES = 20;
+
+    // polling of version files
+    private static final long DEFAULT_VERSION_POLL_SECONDS = 60;
+
+    // upload of changes
+    private static final String LAST_UPLOAD_REVISION_KEY = "S3UploadPlugin.lastUploadRevision.";
 
     // path defaults
     private static final String S3_BUCKET_SUFFIX = "-releases";
@@ -75,13 +196,16 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
     private static final String PATCH_PATH = "patch";
 
     // keys in custom properties file
-    private static final String S3_REGION = "aws.region";
     private static final String S3_BUCKET_KEY = "bucket.name";
-    private static final String PROJECT_NAME = "project.name";
     private static final String LAST_VERSIONS_PATH_KEY = "last.versions.path";
     private static final String VERSIONS_PATH_KEY = "versions.path";
     private static final String PATCH_PATH_KEY = "patch.path";
     private static final String DEPLOY_PATH_KEY = "deploy.path"; // relative to patch folder
+    private static final String UPLOAD_THREADS_KEY = "upload.threads";
+    private static final String LISTING_CACHE_TTL_KEY = "listing.cache.ttl.minutes";
+    private static final String VERSION_POLL_SECONDS_KEY = "version.poll.seconds";
+    private static final String WARM_CONNECTIONS_KEY = "connection.warm";
+    private static final String TRACE_ENABLED_KEY = "trace.enabled";
     private static final String FROM_CONFIG_TO_DEPLOY_SUFFIX_KEY = "mapping.project.";
 
     // project recognition: custom mappings from config file suffix to deployed project
@@ -95,6 +219,22 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
     private final Properties customProperties;
     private final List<UploadConfig> uploadConfigs;
     private final OutputFileService outputFileService;
+    private final RemoteStatusService remoteStatusService;
+    private final ProjectCredentialsProvider credentialsProvider;
+    private final Map<String, UploadJournal> journals = new ConcurrentHashMap<>();
+    private final Map<String, ListingSnapshot> listings = new ConcurrentHashMap<>();
+    private final RemotePageCache remotePages = new RemotePageCache(
+        TimeUnit.MINUTES.toMillis(BROWSER_PAGE_TTL_MINUTES), BROWSER_MAX_PAGES,
+        AppExecutorUtil.getAppExecutorService(), this::loadRemotePage);
+    private final Map<String, String> versionETags = new ConcurrentHashMap<>();
+    private final Map<String, String> deployedProjectPaths = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> versionPolling;
+    private volatile ScheduledFuture<?> keepWarm;
+    private volatile AmazonS3 s3Client;
+    private volatile long lastRequestTime;
+    private volatile boolean warm;
+    private final Deque<UploadMetrics> recentMetrics = new ConcurrentLinkedDeque<>();
+    private final S3RequestMetrics requestMetrics = new S3RequestMetrics();
 
 
     /**
@@ -105,105 +245,1358 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
     public AmazonS3ServiceImpl(@NotNull Project project) throws IllegalArgumentException {
         this.project = project;
         this.outputFileService = ServiceManager.getService(project, OutputFileService.class);
+        this.remoteStatusService = RemoteStatusService.getInstance(project);
         this.customProperties = loadCustomProperties();
-        checkSystemVars();
-        this.uploadConfigs = loadUploadConfigs();
+        this.credentialsProvider = new ProjectCredentialsProvider(addProjectPrefix(AWS_SYSTEM_ACCESS_KEY),
+            addProjectPrefix(AWS_SYSTEM_SECRET_ACCESS_KEY));
+        this.uploadConfigs = new CopyOnWriteArrayList<>(loadUploadConfigs());
+        startKeepWarm();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (versionPolling != null) {
+            versionPolling.cancel(false);
+        }
+        if (keepWarm != null) {
+            keepWarm.cancel(false);
+        }
+        if (s3Client != null) {
+            s3Client.shutdown();
+        }
     }
 
     /**
-     * Upload to S3
+     * Upload to S3 in background
      * @param module
-     * @param originalFiles
+     * @param selectedFiles selected files and folders
      * @param uploadConfig
      */
     @Override
-    public void uploadFiles(@Nullable Module module, @NotNull List<VirtualFile> originalFiles, @NotNull UploadConfig uploadConfig) {
+    public void uploadFiles(@Nullable Module module, @NotNull VirtualFile[] selectedFiles, @NotNull UploadConfig uploadConfig) {
+        uploadFiles(module, selectedFiles, uploadConfig, null);
+    }
 
+    /**
+     * Upload to S3 in background. Files whose compiled file is older than the source are found first
+     * and listed in a single dialog: nothing is uploaded before the answer
+     * @param module
+     * @param selectedFiles selected files and folders
+     * @param uploadConfig
+     * @param onSuccess called if all files are uploaded without errors, not called after a compilation
+     */
+    private void uploadFiles(@Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull UploadConfig uploadConfig, @Nullable Runnable onSuccess) {
+
+        new Task.Backgroundable(project, "Uploading to S3", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    final AtomicInteger selectedCount = new AtomicInteger();
+                    final Map<VirtualFile, File> staleOutputs = findStaleOutputs(module, selectedFiles, selectedCount,
+                        indicator);
+
+                    // stale files
+                    if (!staleOutputs.isEmpty()) {
+                        final VirtualFile[] staleSources = staleOutputs.keySet().toArray(VirtualFile.EMPTY_ARRAY);
+                        final int choice = askStaleOutputs(staleOutputs.values());
+                        if (choice == STALE_OUTPUTS_COMPILE) {
+                            compileAndUpload(module, staleSources, uploadConfig);
+                            if (staleSources.length < selectedCount.get()) {
+                                upload(module, selectedFiles, staleOutputs.keySet(), uploadConfig, indicator);
+                            }
+                            return;
+                        }
+                        if (choice != STALE_OUTPUTS_CONTINUE) {
+                            NotificationHelper.showEventAndBalloon(project, "Deploy canceled, nothing uploaded: "
+                                + staleSources.length + " files with stale compiled files", INFORMATION);
+                            return;
+                        }
+                    }
+
+                    final UploadReport report = upload(module, selectedFiles, Collections.emptySet(), uploadConfig,
+                        indicator);
+                    if (onSuccess != null && report.getUploaded() > 0 && report.getFailed() == 0) {
+                        onSuccess.run();
+                    }
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    NotificationHelper.showEventAndBalloon(project, "Deploy stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error uploading: " + ex.getMessage(), ERROR);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * Find selected files whose compiled file is older than them, before anything is uploaded.
+     * Missing compiled files are reported by the upload
+     * @param module
+     * @param selectedFiles selected files and folders
+     * @param selectedCount incremented for each uploadable file in selection
+     * @param indicator
+     * @return stale sources with their compiled file
+     */
+    @NotNull
+    private Map<VirtualFile, File> findStaleOutputs(@Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull AtomicInteger selectedCount, @NotNull ProgressIndicator indicator) {
+
+        indicator.setText("Checking compiled files");
+        final Map<VirtualFile, File> staleOutputs = new ConcurrentHashMap<>();
+        FileHelper.visitUploadableFiles(project, selectedFiles, originalFile -> {
+            selectedCount.incrementAndGet();
+            final VirtualFile outputFile;
+            try {
+                outputFile = ReadActionHelper.computeWithWriteActionPriority(
+                    () -> outputFileService.getCompiledOrOriginalFile(module, originalFile), indicator);
+
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            if (!outputFile.equals(originalFile)
+                && FileHelper.isStale(new File(originalFile.getPath()), new File(outputFile.getPath()))) {
+                staleOutputs.put(originalFile, new File(outputFile.getPath()));
+            }
+        });
+        return staleOutputs;
+    }
+
+    /**
+     * Upload files changed in VCS. Deleted files are only reported
+     * @param changesSince local changes, since last upload or a git ref
+     * @param uploadConfig
+     */
+    @Override
+    public void uploadChanges(@NotNull String changesSince, @NotNull UploadConfig uploadConfig) {
+
+        new Task.Backgroundable(project, "Reading changes", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    // uploaded state, with uncommitted changes
+                    final String uploadedRevision = VcsChangesHelper.getWorkingTreeRevision(project);
+                    final VcsChanges changes = getChanges(changesSince, uploadConfig);
+
+                    // skip files outside deployed folders
+                    final List<VirtualFile> deployableFiles = ReadActionHelper.computeWithWriteActionPriority(
+                        () -> changes.getChangedFiles().stream()
+                            .filter(f -> f.isValid() && outputFileService.isDeployable(f))
+                            .collect(Collectors.toList()),
+                        indicator);
+
+                    final int skipped = changes.getChangedFiles().size() - deployableFiles.size();
+                    if (skipped > 0 || !changes.getDeletedPaths().isEmpty()) {
+                        NotificationHelper.showEventAndBalloon(project, getChangesSummary(changes, skipped), WARNING);
+                    }
+                    if (deployableFiles.isEmpty()) {
+                        NotificationHelper.showEventAndBalloon(project, "No changed files to upload", INFORMATION);
+                        return;
+                    }
+
+                    uploadFiles(null, deployableFiles.toArray(VirtualFile.EMPTY_ARRAY), uploadConfig,
+                        uploadedRevision != null ? () -> setLastUploadRevision(uploadConfig, uploadedRevision) : null);
+
+                } catch (ProcessCanceledException e) {
+                    NotificationHelper.showEventAndBalloon(project, "Deploy stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error uploading changes: " + ex.getMessage(), ERROR);
+                }
+            }
+        }.queue();
+    }
+
+    @NotNull
+    private VcsChanges getChanges(@NotNull String changesSince, @NotNull UploadConfig uploadConfig)
+        throws IllegalArgumentException {
+
+        if (CHANGES_LOCAL.equals(changesSince)) {
+            return VcsChangesHelper.getLocalChanges(project);
+        }
+        if (CHANGES_SINCE_LAST_UPLOAD.equals(changesSince)) {
+            final String lastUploadRevision = PropertiesComponent.getInstance(project)
+                .getValue(getLastUploadRevisionKey(uploadConfig));
+            if (isEmpty(lastUploadRevision)) {
+                throw new IllegalArgumentException("No upload of changes recorded for " + uploadConfig.getFileName()
+                    + " (" + uploadConfig.getVersion() + ")");
+            }
+            return VcsChangesHelper.getChangesSinceUpload(project, lastUploadRevision);
+        }
+        return VcsChangesHelper.getChangesSince(project, changesSince);
+    }
+
+    @NotNull
+    private static String getChangesSummary(@NotNull VcsChanges changes, int skipped) {
+        final StringBuilder summary = new StringBuilder();
+        if (skipped > 0) {
+            summary.append(skipped).append(" changed files outside deployed folders skipped");
+        }
+        if (!changes.getDeletedPaths().isEmpty()) {
+            summary.append(summary.length() > 0 ? System.lineSeparator() : EMPTY)
+                .append(changes.getDeletedPaths().size()).append(" deleted files, not removed from S3:");
+            changes.getDeletedPaths().stream()
+                .limit(MAX_LISTED_STALE_OUTPUTS)
+                .forEach(p -> summary.append(System.lineSeparator()).append(p));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Record the working tree state uploaded to a config version, for next uploads of changes.
+     * It is kept by a git ref, as a state with uncommitted changes is not in any branch
+     */
+    private void setLastUploadRevision(@NotNull UploadConfig uploadConfig, @NotNull String revision) {
+        final String key = getLastUploadRevisionKey(uploadConfig);
         try {
-            withS3Client((s3Client) -> uploadFile(s3Client, module, originalFiles, uploadConfig));
+            VcsChangesHelper.keepRevision(project, key, revision);
 
-        } catch (Exception ex) {
-            NotificationHelper.showEventAndBalloon(project, "Error uploading: " + ex.getMessage(), ERROR);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Could not keep uploaded revision " + revision, e);
+        }
+        PropertiesComponent.getInstance(project).setValue(key, revision);
+    }
+
+    @NotNull
+    private static String getLastUploadRevisionKey(@NotNull UploadConfig uploadConfig) {
+        return LAST_UPLOAD_REVISION_KEY + uploadConfig.getFileName() + "." + uploadConfig.getVersion();
+    }
+
+    /**
+     * Show a single dialog listing all compiled files older than their sources
+     * @param staleOutputs
+     * @return chosen option
+     */
+    private int askStaleOutputs(@NotNull Collection<File> staleOutputs) {
+        final String staleFileNames = staleOutputs.stream()
+            .limit(MAX_LISTED_STALE_OUTPUTS)
+            .map(File::getName)
+            .collect(Collectors.joining(System.lineSeparator()));
+        final String more = staleOutputs.size() > MAX_LISTED_STALE_OUTPUTS
+            ? System.lineSeparator() + "... and " + (staleOutputs.size() - MAX_LISTED_STALE_OUTPUTS) + " more"
+            : EMPTY;
+
+        final AtomicInteger choice = new AtomicInteger(Messages.CANCEL);
+        ApplicationManager.getApplication().invokeAndWait(() -> choice.set(Messages.showDialog(project,
+            staleOutputs.size() + " compiled files are older than the source files:" + System.lineSeparator()
+                + staleFileNames + more,
+            "Warning!", STALE_OUTPUTS_OPTIONS, STALE_OUTPUTS_COMPILE, Messages.getWarningIcon())),
+            ModalityState.defaultModalityState());
+        return choice.get();
+    }
+
+    /**
+     * Compile only the modules containing stale files, one at a time in dependency order.
+     * Files of each compiled module are uploaded as soon as it is compiled, while the next one is compiling
+     * @param module
+     * @param staleSources
+     * @param uploadConfig
+     */
+    private void compileAndUpload(@Nullable Module module, @NotNull VirtualFile[] staleSources,
+        @NotNull UploadConfig uploadConfig) {
+
+        final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+        final Map<Module, List<VirtualFile>> staleSourcesByModule = ApplicationManager.getApplication().runReadAction(
+            (Computable<Map<Module, List<VirtualFile>>>) () -> WatchdogHelper.compute(COMPILE_ENTRY_POINT,
+                WatchdogHelper.READ_ACTION_THRESHOLD_MILLIS, () -> Stream.of(staleSources)
+                    .filter(f -> fileIndex.getModuleForFile(f) != null)
+                    .collect(Collectors.groupingBy(fileIndex::getModuleForFile))));
+
+        ApplicationManager.getApplication().invokeLater(() -> {
+            final Iterator<Module> sortedModules = Stream.of(ModuleManager.getInstance(project).getSortedModules())
+                .filter(staleSourcesByModule::containsKey)
+                .collect(Collectors.toList())
+                .iterator();
+            compileNextAndUpload(module, sortedModules, staleSourcesByModule, uploadConfig);
+        });
+    }
+
+    /**
+     * Compile next module, then start the upload of its stale files and continue with the following one
+     * @param module
+     * @param sortedModules
+     * @param staleSourcesByModule
+     * @param uploadConfig
+     */
+    private void compileNextAndUpload(@Nullable Module module, @NotNull Iterator<Module> sortedModules,
+        @NotNull Map<Module, List<VirtualFile>> staleSourcesByModule, @NotNull UploadConfig uploadConfig) {
+
+        if (!sortedModules.hasNext()) {
+            return;
+        }
+        final Module compiledModule = sortedModules.next();
+        final CompilerManager compilerManager = CompilerManager.getInstance(project);
+        compilerManager.make(compilerManager.createModuleCompileScope(compiledModule, false),
+            (aborted, errors, warnings, compileContext) -> {
+                if (aborted || errors > 0) {
+                    NotificationHelper.showEventAndBalloon(project,
+                        "Deploy stopped: compilation of module " + compiledModule.getName() + " failed", ERROR);
+                    return;
+                }
+                uploadInBackground(module, staleSourcesByModule.get(compiledModule).toArray(VirtualFile.EMPTY_ARRAY),
+                    uploadConfig);
+                compileNextAndUpload(module, sortedModules, staleSourcesByModule, uploadConfig);
+            });
+    }
+
+    /**
+     * Upload in a background task
+     * @param module
+     * @param selectedFiles
+     * @param uploadConfig
+     */
+    private void uploadInBackground(@Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull UploadConfig uploadConfig) {
+
+        new Task.Backgroundable(project, "Uploading to S3", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    upload(module, selectedFiles, Collections.emptySet(), uploadConfig, indicator);
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    NotificationHelper.showEventAndBalloon(project, "Deploy stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error uploading: " + ex.getMessage(), ERROR);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * Upload to S3: selected files are enumerated, resolved, filtered, hashed and uploaded by a bounded pipeline
+     * @param module
+     * @param selectedFiles
+     * @param heldBack selected files not uploaded, eg: waiting for compilation
+     * @param uploadConfig
+     * @param indicator
+     * @return summary
+     */
+    @NotNull
+    private UploadReport upload(@Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull Set<VirtualFile> heldBack, @NotNull UploadConfig uploadConfig,
+        @NotNull ProgressIndicator indicator) throws IllegalArgumentException {
+
+        // resolution runs on all cores, in read actions giving way to write actions
+        final UploadMetrics metrics = startMetrics("Upload " + uploadConfig.getFileName());
+        try {
+            return upload(uploadConfig, indicator,
+                consumer -> FileHelper.visitUploadableFiles(project, selectedFiles, f -> {
+                    if (!heldBack.contains(f)) {
+                        consumer.accept(f);
+                    }
+                }),
+                deployedProjectPath -> originalFile -> ReadActionHelper.computeWithWriteActionPriority(
+                    () -> outputFileService.planUpload(module, originalFile, deployedProjectPath, metrics), indicator),
+                false, null, metrics);
+
+        } finally {
+            endMetrics(metrics);
+        }
+    }
+
+    /**
+     * Sync module output folder to S3 in background: all files are uploaded, except the ones unchanged since
+     * their last upload. No source file is resolved, so generated classes and resources are included
+     * @param module
+     * @param uploadConfig
+     * @param mirror delete remote objects without a local file, in the uploaded folders
+     */
+    @Override
+    public void syncModuleOutput(@NotNull Module module, @NotNull UploadConfig uploadConfig, boolean mirror) {
+
+        new Task.Backgroundable(project, "Syncing module output to S3", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    final String outputPath = ApplicationManager.getApplication().runReadAction(
+                        (Computable<String>) () -> CompilerPaths.getModuleOutputPath(module, false));
+                    if (isEmpty(outputPath) || !new File(outputPath).isDirectory()) {
+                        throw new IllegalArgumentException("Output folder of module " + module.getName()
+                            + " not found, compile it first");
+                    }
+
+                    // a single deploy path for the whole output folder
+                    final String outputDeployPath = ReadActionHelper.computeWithWriteActionPriority(
+                        () -> outputFileService.getOutputDeployPath(module), indicator);
+                    if (mirror) {
+                        checkExclusiveOutputDeployPath(module, outputDeployPath, indicator);
+                    }
+                    final Path outputRoot = Paths.get(outputPath);
+
+                    // local files and folders relative to output root, for mirroring
+                    final Set<String> localFiles = ConcurrentHashMap.newKeySet();
+                    final Set<String> localFolders = ConcurrentHashMap.newKeySet();
+
+                    final UploadMetrics metrics = startMetrics((mirror ? "Mirror " : "Sync ") + module.getName());
+                    try {
+                        upload(uploadConfig, indicator,
+                            consumer -> {
+                                try (Stream<Path> files = Files.walk(outputRoot)) {
+                                    files.forEach(file -> {
+                                        final String relativePath = toRelativeKey(outputRoot, file);
+                                        if (Files.isDirectory(file)) {
+                                            localFolders.add(PathHelper.toS3Key(relativePath, EMPTY));
+                                        } else if (Files.isRegularFile(file)) {
+                                            localFiles.add(relativePath);
+                                            consumer.accept(file);
+                                        }
+                                    });
+                                }
+                            },
+                            deployedProjectPath -> file -> Collections.singletonList(new UploadItem(file.toFile(),
+                                PathHelper.toS3Key(deployedProjectPath + outputDeployPath,
+                                    toRelativeKey(outputRoot, file)))),
+                            true,
+                            mirror
+                                ? (s3Client, bucketName, deployedProjectPath, journal) -> deleteStaleObjects(s3Client,
+                                    bucketName, deployedProjectPath,
+                                    PathHelper.toS3Key(deployedProjectPath + outputDeployPath, EMPTY),
+                                    localFiles, localFolders, journal, indicator, metrics)
+                                : null,
+                            metrics);
+
+                    } finally {
+                        endMetrics(metrics);
+                    }
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    NotificationHelper.showEventAndBalloon(project, "Deploy stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error syncing module output: " + ex.getMessage(),
+                        ERROR);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * Mirroring deletes the remote files without a local counterpart, so the output folder must be the only one
+     * deployed under its path. Eg: with the FROM_SOURCES strategy all modules deploy to WEB-INF/classes/
+     * @param module
+     * @param outputDeployPath
+     * @param indicator
+     * @throws IllegalArgumentException if another module is deployed to the same path, inside or above it
+     */
+    private void checkExclusiveOutputDeployPath(@NotNull Module module, @NotNull String outputDeployPath,
+        @NotNull ProgressIndicator indicator) throws IllegalArgumentException {
+
+        final String prefix = PathHelper.toS3Key(outputDeployPath, EMPTY);
+        final List<String> sharingModules = ReadActionHelper.computeWithWriteActionPriority(
+            () -> Stream.of(ModuleManager.getInstance(project).getModules())
+                .filter(m -> !m.equals(module))
+                .filter(m -> {
+                    try {
+                        final String otherPrefix = PathHelper.toS3Key(outputFileService.getOutputDeployPath(m), EMPTY);
+                        return otherPrefix.startsWith(prefix) || prefix.startsWith(otherPrefix);
+
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                })
+                .map(Module::getName)
+                .sorted()
+                .collect(Collectors.toList()),
+            indicator);
+        if (!sharingModules.isEmpty()) {
+            throw new IllegalArgumentException("cannot mirror " + module.getName() + ": modules "
+                + String.join(", ", sharingModules) + " are deployed to the same path " + prefix
+                + ", their files would be deleted. Use Sync module output");
         }
     }
 
+    /**
+     * Path relative to root with S3 separators
+     */
+    @NotNull
+    private static String toRelativeKey(@NotNull Path root, @NotNull Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Delete remote objects without a local file. Only the folders existing locally are checked
+     * @param s3Client
+     * @param bucketName
+     * @param deployedProjectPath
+     * @param prefix remote folder of local root
+     * @param localFiles local file paths relative to root
+     * @param localFolders local folder paths relative to root, with trailing separator
+     * @param journal
+     * @param indicator
+     * @param metrics
+     */
+    private void deleteStaleObjects(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull String deployedProjectPath, @NotNull String prefix, @NotNull Set<String> localFiles,
+        @NotNull Set<String> localFolders, @NotNull UploadJournal journal, @NotNull ProgressIndicator indicator,
+        @NotNull UploadMetrics metrics) {
+
+        final ListingSnapshot listing = listRemote(s3Client, bucketName, deployedProjectPath, indicator, metrics);
+        final List<String> staleKeys = Lists.newArrayList();
+        listing.forEachObject(object -> {
+            if (!object.getKey().startsWith(prefix)) {
+                return;
+            }
+            final String relativePath = object.getKey().substring(prefix.length());
+            if (relativePath.isEmpty() || relativePath.endsWith("/")) {
+                // folder placeholder
+                return;
+            }
+            final String folder = relativePath.substring(0, relativePath.lastIndexOf('/') + 1);
+            if (localFolders.contains(folder) && !localFiles.contains(relativePath)) {
+                staleKeys.add(object.getKey());
+            }
+        });
+
+        if (staleKeys.isEmpty() || !askDeleteStaleObjects(staleKeys)) {
+            return;
+        }
+
+        indicator.setText("Deleting " + staleKeys.size() + " objects from " + bucketName + separator + prefix);
+        try {
+            final int deleted = new BatchDeleter(s3Client, bucketName, getUploadThreads(), indicator::isCanceled,
+                metrics).delete(staleKeys, key -> {
+                    journal.removed(key);
+                    listing.touched(key);
+                });
+            NotificationHelper.showEventAndBalloon(project, "Deleted " + deleted + " objects from "
+                + bucketName + separator + prefix, INFORMATION);
+
+        } finally {
+            saveListing(listing);
+        }
+    }
 
     /**
-     * Upload to S3
+     * List all objects of the deployed project. The last listing is reused: only partitions touched by uploads
+     * and deletes are listed again, until it expires
      * @param s3Client
-     * @param originalFiles
+     * @param bucketName
+     * @param deployedProjectPath
+     * @param indicator
+     * @param metrics operation recording the requests
+     * @return
+     */
+    @NotNull
+    private ListingSnapshot listRemote(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull String deployedProjectPath, @NotNull ProgressIndicator indicator, @NotNull UploadMetrics metrics) {
+
+        final ListingSnapshot listing = getListing(bucketName, deployedProjectPath);
+        final ParallelLister lister = new ParallelLister(s3Client, bucketName, LISTING_THREADS, indicator::isCanceled,
+            metrics);
+        synchronized (listing) {
+            indicator.setText("Listing " + bucketName + separator + deployedProjectPath);
+            try {
+                if (listing.isExpired(TimeUnit.MINUTES.toMillis(getListingCacheTtlMinutes()))) {
+                    listing.reset();
+                    lister.list(deployedProjectPath, LISTING_PARTITION_DEPTH, listing::put);
+                } else {
+                    lister.list(listing.getTouchedPartitions(), listing::isListed, listing::put);
+                }
+            } catch (RuntimeException e) {
+                listing.invalidate();
+                throw e;
+
+            } finally {
+                saveListing(listing);
+            }
+        }
+        return listing;
+    }
+
+    /**
+     * Listing of a deployed project, shared by all operations of the project
+     * @param bucketName
+     * @param deployedProjectPath
+     * @return
+     */
+    @NotNull
+    private ListingSnapshot getListing(@NotNull String bucketName, @NotNull String deployedProjectPath) {
+        final String destination = bucketName + separator + deployedProjectPath;
+        return listings.computeIfAbsent(destination, d -> ListingSnapshot.load(new File(PathManager.getSystemPath(),
+            LISTING_FOLDER + d.replaceAll("[^\\w.-]", "_") + LISTING_EXTENSION), deployedProjectPath));
+    }
+
+    private void saveListing(@NotNull ListingSnapshot listing) {
+        try {
+            listing.save();
+
+        } catch (IOException e) {
+            NotificationHelper.showEvent(project, "Could not save S3 listing: " + e.getMessage(), WARNING);
+        }
+    }
+
+    private long getListingCacheTtlMinutes() {
+        return Long.parseLong(customProperties.getProperty(LISTING_CACHE_TTL_KEY,
+            String.valueOf(DEFAULT_LISTING_CACHE_TTL_MINUTES)));
+    }
+
+    /**
+     * Preview objects to delete
+     * @param staleKeys
+     * @return true if confirmed
+     */
+    private boolean askDeleteStaleObjects(@NotNull List<String> staleKeys) {
+        final String staleKeysList = staleKeys.stream()
+            .limit(MAX_LISTED_STALE_OUTPUTS)
+            .collect(Collectors.joining(System.lineSeparator()));
+        final String more = staleKeys.size() > MAX_LISTED_STALE_OUTPUTS
+            ? System.lineSeparator() + "... and " + (staleKeys.size() - MAX_LISTED_STALE_OUTPUTS) + " more"
+            : EMPTY;
+
+        final AtomicInteger choice = new AtomicInteger(Messages.CANCEL);
+        ApplicationManager.getApplication().invokeAndWait(() -> choice.set(Messages.showOkCancelDialog(project,
+            staleKeys.size() + " objects on S3 have no local file:" + System.lineSeparator()
+                + staleKeysList + more,
+            "Mirror", "Delete", "Keep", Messages.getWarningIcon())),
+            ModalityState.defaultModalityState());
+        return choice.get() == Messages.OK;
+    }
+
+    /**
+     * Upload to S3 with a bounded pipeline. Uploaded files are recorded in the journal of the destination
      * @param uploadConfig
+     * @param indicator
+     * @param enumerator sources to upload
+     * @param resolverFactory resolver of sources for the deployed project path
+     * @param skipUnchanged skip files unchanged since their last upload
+     * @param afterUpload called only if all files are uploaded
+     * @param metrics running metrics of the upload
+     * @return summary
      */
-    private void uploadFile(@NotNull AmazonS3 s3Client, @Nullable Module module, @NotNull List<VirtualFile> originalFiles,
-        @NotNull UploadConfig uploadConfig) throws IllegalArgumentException {
+    @NotNull
+    private <S> UploadReport upload(@NotNull UploadConfig uploadConfig, @NotNull ProgressIndicator indicator,
+        @NotNull UploadPipeline.Enumerator<S> enumerator,
+        @NotNull Function<String, UploadPipeline.Resolver<S>> resolverFactory, boolean skipUnchanged,
+        @Nullable AfterUpload afterUpload, @NotNull UploadMetrics metrics) throws IllegalArgumentException {
+
+        final AtomicReference<UploadReport> uploadReport = new AtomicReference<>();
+        final long startTime = System.nanoTime();
+        withS3Client((s3Client) -> {
+            final String bucketName = getBucketName(getProjectName());
+            final String deployedProjectPath = readDeployedProjectPath(s3Client, bucketName, uploadConfig, indicator);
+            final long setupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            final UploadJournal journal = getJournal(bucketName, deployedProjectPath);
+            final ListingSnapshot listing = getListing(bucketName, deployedProjectPath);
+
+            indicator.setText("Uploading to " + bucketName + separator + deployedProjectPath);
+            final S3Uploader uploader = new S3Uploader(s3Client, bucketName, S3Uploader.DEFAULT_MULTIPART_THRESHOLD,
+                metrics);
+            try {
+                final UploadPipeline<S> pipeline = new UploadPipeline<>(PIPELINE_QUEUE_CAPACITY,
+                    PIPELINE_RESOLVE_THREADS, PIPELINE_HASH_THREADS, getUploadThreads(), indicator::isCanceled,
+                    metrics);
+
+                final UploadReport report = pipeline.run(enumerator, resolverFactory.apply(deployedProjectPath),
+                    item -> skipUnchanged && journal.isUnchanged(item),
+                    item -> {
+                        uploader.upload(item);
+                        journal.uploaded(item);
+                        listing.touched(item.getKey());
+                        remoteStatusService.uploaded(uploadConfig, item);
+                    });
+                report.setSetupMillis(setupMillis);
+                uploadReport.set(report);
+
+                if (metrics.get(Counter.FILES_ENUMERATED) == 0) {
+                    NotificationHelper.showEvent(project, "Could not find any selected file!", ERROR);
+                    return;
+                }
+                if (report.getUploaded() == 0 && report.getFailed() == 0 && report.getSkipped() == 0) {
+                    // nothing resolved
+                    return;
+                }
+                // one summary balloon, results of each file in the tool window
+                final String summary = report.getShortSummary(bucketName + separator + deployedProjectPath);
+                NotificationHelper.showEventAndBalloon(project, summary + " - details in "
+                    + ToolWindowHelper.TOOL_WINDOW_ID + " / " + S3UploadToolWindowFactory.UPLOAD_LOG_TAB,
+                    report.getFailed() > 0 ? ERROR : INFORMATION);
+                ToolWindowHelper.updateContent(project, S3UploadToolWindowFactory.UPLOAD_LOG_TAB,
+                    () -> new UploadLogPanel(project, summary, report.getLog()));
+
+                if (afterUpload != null && report.getFailed() == 0) {
+                    afterUpload.run(s3Client, bucketName, deployedProjectPath, journal);
+                }
+
+            } finally {
+                uploader.shutdown();
+                saveJournal(journal);
+                saveListing(listing);
+                remotePages.clear();
+            }
+        });
+        return uploadReport.get();
+    }
 
-        final String projectName = getProjectName();
-        final String bucketName = getBucketName(projectName);
+    /**
+     * Read current version of upload config and get the path of the deployed project
+     * @param s3Client
+     * @param bucketName
+     * @param uploadConfig
+     * @param indicator
+     * @return
+     */
+    @NotNull
+    private String readDeployedProjectPath(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull UploadConfig uploadConfig, @NotNull ProgressIndicator indicator) {
 
         // update get current project version from S3
+        indicator.setText("Reading version");
         updateVersion(s3Client, uploadConfig, bucketName);
 
-        // get deploy path
-        final String patchPath = getVersionsPath() + uploadConfig.getVersion() + separator + getPatchPath();
-        final String deployedProjectPath = getDeployedProjectPath(s3Client, bucketName, patchPath, uploadConfig);
-
-        // get files to really upload
-        ListMultimap<String, VirtualFile> projectRelativePathTofiles = ArrayListMultimap.create();
-        for (VirtualFile originalFile : originalFiles) {
-            final VirtualFile outputFile = outputFileService.getCompiledOrOriginalFile(module, originalFile);
-            final String projectRelativeDeployPath = outputFileService.getProjectRelativeDeployPath(originalFile);
-
-            // check timestamp
-            long originalFileLastModified = FileHelper.getLastModified(originalFile);
-            long outputFileLastModified = FileHelper.getLastModified(outputFile);
-            if (originalFile != outputFile && originalFileLastModified > outputFileLastModified &&
-                Messages.showOkCancelDialog(project,
-                    "Compiled file " + outputFile.getName() +" is older than the source file. Continue anyway?",
-                    "Warning!", "OK", "Cancel", Messages.getInformationIcon()) != Messages.OK) {
-                NotificationHelper.showEventAndBalloon(project, "Deploy stopped", INFORMATION);
+        // get deploy path, read once by version
+        final String cacheKey = getDeployedProjectPathKey(uploadConfig);
+        String deployedProjectPath = deployedProjectPaths.get(cacheKey);
+        if (deployedProjectPath == null) {
+            deployedProjectPath = getDeployedProjectPath(s3Client, bucketName, getBrowseRoot(uploadConfig),
+                uploadConfig);
+            deployedProjectPaths.put(cacheKey, deployedProjectPath);
+        }
+        return deployedProjectPath;
+    }
+
+    @NotNull
+    private static String getDeployedProjectPathKey(@NotNull UploadConfig uploadConfig) {
+        return uploadConfig.getFullFileName() + separator + uploadConfig.getVersion();
+    }
+
+    /**
+     * Check version files periodically in background, to follow new versions and configs without restarting
+     * @param listener called with the changes, if any
+     */
+    @Override
+    public synchronized void startVersionPolling(@NotNull UploadConfigListener listener) {
+        final long pollSeconds = Long.parseLong(customProperties.getProperty(VERSION_POLL_SECONDS_KEY,
+            String.valueOf(DEFAULT_VERSION_POLL_SECONDS)));
+        if (versionPolling != null || pollSeconds <= 0) {
+            return;
+        }
+        versionPolling = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(() -> {
+            if (project.isDisposed()) {
                 return;
             }
+            try {
+                pollVersions(listener);
+
+            } catch (Exception e) {
+                LOGGER.info("Could not check S3 versions: " + e.getMessage());
+            }
+        }, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Check all version files with a single listing, then download only the changed ones
+     * @param listener
+     */
+    private void pollVersions(@NotNull UploadConfigListener listener) {
+        final String projectName = getProjectName();
+        final String bucketName = getBucketName(projectName);
+        final List<UploadConfig> added = Lists.newArrayList();
+        final List<UploadConfig> removed = Lists.newArrayList();
+        final List<UploadConfig> updated = Lists.newArrayList();
+
+        withS3Client((s3Client) -> {
+            final Map<String, String> eTags = listVersionFiles(s3Client, bucketName, getLastVersionsPath());
+            synchronized (uploadConfigs) {
+                for (UploadConfig uploadConfig : uploadConfigs) {
+                    final String eTag = eTags.remove(uploadConfig.getFullFileName());
+                    if (eTag == null) {
+                        removed.add(uploadConfig);
+                    } else if (!eTag.equals(versionETags.get(uploadConfig.getFullFileName()))
+                        && updateVersion(s3Client, uploadConfig, bucketName)) {
+                        updated.add(uploadConfig);
+                    }
+                }
+
+                // remaining files are new configs
+                for (String versionFileName : eTags.keySet()) {
+                    final UploadConfig uploadConfig = new UploadConfig(projectName, versionFileName);
+                    updateVersion(s3Client, uploadConfig, bucketName);
+                    added.add(uploadConfig);
+                }
+                uploadConfigs.removeAll(removed);
+                uploadConfigs.addAll(added);
+            }
+
+            // deploy paths of old versions are not used anymore, the new ones are read now
+            for (UploadConfig uploadConfig : removed) {
+                versionETags.remove(uploadConfig.getFullFileName());
+                deployedProjectPaths.keySet().removeIf(k -> k.startsWith(uploadConfig.getFullFileName() + separator));
+            }
+            for (UploadConfig uploadConfig : updated) {
+                deployedProjectPaths.keySet().removeIf(k -> k.startsWith(uploadConfig.getFullFileName() + separator));
+                try {
+                    deployedProjectPaths.put(getDeployedProjectPathKey(uploadConfig), getDeployedProjectPath(s3Client,
+                        bucketName, getBrowseRoot(uploadConfig), uploadConfig));
+
+                } catch (IllegalArgumentException e) {
+                    // not deployed yet, read on first upload
+                }
+            }
+        });
 
-            projectRelativePathTofiles.put(projectRelativeDeployPath, outputFile);
-            projectRelativePathTofiles.putAll(projectRelativeDeployPath, outputFileService.findSubclasses(originalFile, outputFile));
+        if (!added.isEmpty() || !removed.isEmpty() || !updated.isEmpty()) {
+            listener.configsChanged(added, removed, updated);
         }
+    }
 
-        // upload files
-        projectRelativePathTofiles.asMap().forEach((projectRelativeDeployPath, virtualFiles) -> {
-            final String fullS3DeployPath = deployedProjectPath + projectRelativeDeployPath;
-            final List<File> filesToUpload = virtualFiles.stream()
-                .map(v -> new File(v.getCanonicalPath()))
-                .collect(Collectors.toList());
+    /**
+     * List version files with their ETags
+     * @param s3Client
+     * @param bucketName
+     * @param lastVersionsPath
+     * @return ETags by version file name
+     */
+    @NotNull
+    private static Map<String, String> listVersionFiles(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull String lastVersionsPath) {
+
+        final ListObjectsV2Request request = new ListObjectsV2Request()
+            .withBucketName(bucketName)
+            .withPrefix(lastVersionsPath);
+
+        final Map<String, String> eTags = new LinkedHashMap<>();
+        for (S3ObjectSummary summary : s3Client.listObjectsV2(request).getObjectSummaries()) {
+            final String versionFileName = replaceOnce(summary.getKey(), lastVersionsPath, "");
+            if (!versionFileName.isEmpty()) {
+                eTags.put(versionFileName, StringUtils.remove(summary.getETag(), '"'));
+            }
+        }
+        return eTags;
+    }
+
+    /**
+     * Compare selected files with the deployed ones in background, without downloading.
+     * Local files are resolved and hashed as for an upload while the deployed project is listed,
+     * then the hashes are compared with the ETags
+     * @param module
+     * @param selectedFiles
+     * @param uploadConfig
+     */
+    @Override
+    public void compareWithS3(@Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull UploadConfig uploadConfig) {
+
+        new Task.Backgroundable(project, "Comparing with S3", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    withS3Client((s3Client) -> {
+                        final String bucketName = getBucketName(getProjectName());
+                        final String deployedProjectPath = readDeployedProjectPath(s3Client, bucketName, uploadConfig,
+                            indicator);
+                        final List<DriftEntry> entries = compare(s3Client, bucketName, deployedProjectPath, module,
+                            selectedFiles, indicator);
+
+                        final String destination = bucketName + separator + deployedProjectPath;
+                        ToolWindowHelper.showContent(project, S3UploadToolWindowFactory.COMPARE_TAB,
+                            () -> new DriftReportPanel(project, destination, entries));
+                        NotificationHelper.showEvent(project, "Compared " + entries.size() + " files with "
+                            + destination, INFORMATION);
+                    });
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    NotificationHelper.showEventAndBalloon(project, "Compare stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error comparing: " + ex.getMessage(), ERROR);
+                }
+            }
+        }.queue();
+    }
 
-            final String uploadedFiles = virtualFiles.stream()
-                .map(f -> bucketName + separator + fullS3DeployPath + separator + f.getName())
-                .collect(Collectors.joining(System.lineSeparator()));
-            String message = (uploadedFiles.isEmpty() ? EMPTY : System.lineSeparator()) + uploadedFiles;
+    /**
+     * Compare all production sources of the project with the deployed files in background,
+     * then show their status in project view
+     * @param uploadConfig
+     */
+    @Override
+    public void refreshRemoteStatus(@NotNull UploadConfig uploadConfig) {
+
+        new Task.Backgroundable(project, "Reading S3 status", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    final VirtualFile[] sourceRoots = ApplicationManager.getApplication().runReadAction(
+                        (Computable<VirtualFile[]>) () -> ProjectRootManager.getInstance(project)
+                            .getModuleSourceRoots(JavaModuleSourceRootTypes.PRODUCTION)
+                            .toArray(VirtualFile.EMPTY_ARRAY));
+
+                    withS3Client((s3Client) -> {
+                        final String bucketName = getBucketName(getProjectName());
+                        final String deployedProjectPath = readDeployedProjectPath(s3Client, bucketName, uploadConfig,
+                            indicator);
+                        remoteStatusService.update(uploadConfig,
+                            compare(s3Client, bucketName, deployedProjectPath, null, sourceRoots, indicator));
+                    });
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    NotificationHelper.showEvent(project, "S3 status stopped", INFORMATION);
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error reading S3 status: " + ex.getMessage(),
+                        ERROR);
+                }
+            }
+        }.queue();
+    }
 
-            try {
-                TransferManager tx = TransferManagerBuilder.standard().withS3Client(s3Client).build();
-                MultipleFileUpload xfer = tx.uploadFileList(bucketName, fullS3DeployPath, filesToUpload.get(0).getParentFile(), filesToUpload);
-                xfer.waitForCompletion();
-
-                NotificationHelper.showEventAndBalloon(project, "Uploaded to: " + message, INFORMATION);
-            } catch (InterruptedException | AmazonServiceException e) {
-                // to do custom exc
-                throw new IllegalArgumentException("Error: " + uploadedFiles + " while uploading: " + message);
+    /**
+     * Compare local outputs of selected files with deployed objects. Objects without a local file are
+     * reported only in the folders of compared files, files that cannot be resolved as unknown
+     * @return entries sorted by status and key
+     */
+    @NotNull
+    private List<DriftEntry> compare(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull String deployedProjectPath, @Nullable Module module, @NotNull VirtualFile[] selectedFiles,
+        @NotNull ProgressIndicator indicator) throws IllegalArgumentException {
+
+        final UploadMetrics metrics = startMetrics("Compare " + deployedProjectPath);
+        try {
+            // list while local files are hashed
+            final Future<Map<String, RemoteObject>> remoteObjects = ApplicationManager.getApplication()
+                .executeOnPooledThread(() -> {
+                    final Map<String, RemoteObject> objects = new HashMap<>();
+                    listRemote(s3Client, bucketName, deployedProjectPath, indicator, metrics)
+                        .forEachObject(o -> objects.put(o.getKey(), o));
+                    return objects;
+                });
+
+            final List<DriftEntry> entries = Collections.synchronizedList(Lists.newArrayList());
+            final Set<String> localKeys = ConcurrentHashMap.newKeySet();
+            final UploadPipeline<VirtualFile> pipeline = new UploadPipeline<>(PIPELINE_QUEUE_CAPACITY,
+                PIPELINE_RESOLVE_THREADS, PIPELINE_HASH_THREADS, PIPELINE_HASH_THREADS, indicator::isCanceled,
+                metrics);
+            final UploadReport report = pipeline.run(
+                consumer -> FileHelper.visitUploadableFiles(project, selectedFiles, consumer),
+                originalFile -> {
+                    try {
+                        return ReadActionHelper.computeWithWriteActionPriority(
+                            () -> outputFileService.planUpload(module, originalFile, deployedProjectPath, metrics),
+                            indicator);
+
+                    } catch (IllegalArgumentException e) {
+                        // not compiled or not deployable: status unknown, the other files are still compared
+                        entries.add(new DriftEntry(DriftEntry.Status.UNKNOWN, originalFile.getPath(),
+                            new File(originalFile.getPath()), originalFile.getPath(), originalFile.getLength(), 0));
+                        return Collections.emptyList();
+                    }
+                },
+                item -> {
+                    localKeys.add(item.getKey());
+                    final RemoteObject remoteObject = getOrThrow(remoteObjects).get(item.getKey());
+                    entries.add(new DriftEntry(getDriftStatus(s3Client, bucketName, item, remoteObject, metrics),
+                        item.getKey(), item.getFile(), item.getSourcePath(), item.getLength(),
+                        remoteObject != null ? remoteObject.getSize() : 0));
+                });
+            if (report.getFailed() > 0) {
+                throw new IllegalArgumentException(report.getSummary(bucketName + separator + deployedProjectPath));
             }
+
+            // extra objects in compared folders
+            final Set<String> localFolders = localKeys.stream()
+                .map(k -> k.substring(0, k.lastIndexOf('/') + 1))
+                .collect(Collectors.toSet());
+            getOrThrow(remoteObjects).values().stream()
+                .filter(o -> !o.getKey().endsWith("/") && !localKeys.contains(o.getKey())
+                    && localFolders.contains(o.getKey().substring(0, o.getKey().lastIndexOf('/') + 1)))
+                .forEach(o -> entries.add(new DriftEntry(DriftEntry.Status.EXTRA, o.getKey(), null, null, 0,
+                    o.getSize())));
+
+            entries.sort(Comparator.comparing(DriftEntry::getStatus).thenComparing(DriftEntry::getKey));
+            return entries;
+
+        } finally {
+            endMetrics(metrics);
+        }
+    }
+
+    /**
+     * Compare hash with ETag, or with the hash in metadata for objects uploaded in parts
+     */
+    @NotNull
+    private static DriftEntry.Status getDriftStatus(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
+        @NotNull UploadItem item, @Nullable RemoteObject remoteObject, @NotNull UploadMetrics metrics) {
+
+        if (remoteObject == null) {
+            return DriftEntry.Status.MISSING;
+        }
+        if (remoteObject.getSize() != item.getLength()) {
+            return DriftEntry.Status.DIFFERENT;
+        }
+        String remoteMd5 = StringUtils.remove(remoteObject.getETag(), '"');
+        if (remoteMd5 != null && remoteMd5.contains("-")) {
+            remoteMd5 = s3Client.getObjectMetadata(S3RequestMetrics.tag(
+                new GetObjectMetadataRequest(bucketName, item.getKey()), metrics))
+                .getUserMetaDataOf(S3Uploader.MD5_METADATA);
+        }
+        return StringUtils.equalsIgnoreCase(remoteMd5, item.getMd5Hex())
+            ? DriftEntry.Status.IDENTICAL
+            : DriftEntry.Status.DIFFERENT;
+    }
+
+    /**
+     * Folder of the current version, browsed from the tool window
+     * @param uploadConfig
+     * @return
+     */
+    @NotNull
+    @Override
+    public String getBrowseRoot(@NotNull UploadConfig uploadConfig) {
+        return getVersionsPath() + uploadConfig.getVersion() + separator + getPatchPath();
+    }
+
+    /**
+     * Get a page of sub-folders and objects of a folder, cached for a few minutes. Blocks until listed
+     * @param prefix folder with trailing separator
+     * @param continuationToken null for the first page
+     * @return
+     * @throws IllegalArgumentException if listing fails
+     */
+    @NotNull
+    @Override
+    public RemotePage listRemotePage(@NotNull String prefix, @Nullable String continuationToken)
+        throws IllegalArgumentException {
+        return remotePages.get(prefix, continuationToken);
+    }
+
+    /**
+     * Start listing a page in background, so it is ready when needed
+     * @param prefix
+     * @param continuationToken
+     */
+    @Override
+    public void prefetchRemotePage(@NotNull String prefix, @Nullable String continuationToken) {
+        remotePages.prefetch(prefix, continuationToken);
+    }
+
+    @Override
+    public void invalidateRemotePages(@NotNull String prefix) {
+        remotePages.invalidate(prefix);
+    }
+
+    @NotNull
+    private RemotePage loadRemotePage(@NotNull String prefix, @Nullable String continuationToken) {
+        final AtomicReference<RemotePage> page = new AtomicReference<>();
+        withS3Client((s3Client) -> {
+            final ListObjectsV2Result result = s3Client.listObjectsV2(new ListObjectsV2Request()
+                .withBucketName(getBucketName(getProjectName()))
+                .withPrefix(prefix)
+                .withDelimiter("/")
+                .withMaxKeys(BROWSER_PAGE_SIZE)
+                .withContinuationToken(continuationToken));
+
+            page.set(new RemotePage(prefix, result.getCommonPrefixes(), result.getObjectSummaries().stream()
+                    .filter(s -> !s.getKey().equals(prefix))
+                    .map(s -> new RemoteObject(s.getKey(), s.getETag(), s.getSize(),
+                        s.getLastModified() != null ? s.getLastModified().getTime() : 0))
+                    .collect(Collectors.toList()),
+                result.isTruncated() ? result.getNextContinuationToken() : null));
         });
+        return page.get();
+    }
+
+    /**
+     * Show deployed object in a diff with the local file. Only the first MB is downloaded
+     * @param remoteObject
+     */
+    @Override
+    public void showRemoteDiff(@NotNull RemoteObject remoteObject) {
+
+        new Task.Backgroundable(project, "Reading " + remoteObject.getKey(), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    final AtomicReference<byte[]> remoteBytes = new AtomicReference<>();
+                    withS3Client((s3Client) -> {
+                        final GetObjectRequest request = new GetObjectRequest(getBucketName(getProjectName()),
+                            remoteObject.getKey());
+                        if (remoteObject.getSize() > MAX_DIFF_BYTES) {
+                            request.setRange(0, MAX_DIFF_BYTES - 1);
+                        }
+                        try (S3Object s3Object = s3Client.getObject(request)) {
+                            remoteBytes.set(IOUtils.toByteArray(s3Object.getObjectContent()));
+
+                        } catch (IOException e) {
+                            throw new IllegalArgumentException(e.getMessage(), e);
+                        }
+                    });
+
+                    indicator.setText("Searching local file");
+                    final VirtualFile localFile = ReadActionHelper.computeWithWriteActionPriority(
+                        () -> findLocalFile(remoteObject.getKey()), indicator);
+
+                    ApplicationManager.getApplication().invokeLater(
+                        () -> showDiff(remoteObject, remoteBytes.get(), localFile));
+
+                } catch (ProcessCanceledException | CancellationException e) {
+                    // closed by user
+
+                } catch (Exception ex) {
+                    NotificationHelper.showEventAndBalloon(project, "Error reading " + remoteObject.getKey() + ": "
+                        + ex.getMessage(), ERROR);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * Find local file of a deployed object: the compiled file in a module output, otherwise the project file
+     * with the longest path in common with the key
+     * @param key
+     * @return null if not found
+     */
+    @Nullable
+    private VirtualFile findLocalFile(@NotNull String key) {
+
+        // compiled files
+        for (Module module : ModuleManager.getInstance(project).getModules()) {
+            final String outputPath = CompilerPaths.getModuleOutputPath(module, false);
+            final String outputDeployPath;
+            try {
+                outputDeployPath = outputFileService.getOutputDeployPath(module);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (isEmpty(outputPath) || isEmpty(outputDeployPath)) {
+                continue;
+            }
+            final String outputKey = "/" + PathHelper.toS3Key(outputDeployPath, EMPTY);
+            final int index = key.indexOf(outputKey);
+            if (index >= 0) {
+                final VirtualFile file = LocalFileSystem.getInstance()
+                    .findFileByPath(outputPath + "/" + key.substring(index + outputKey.length()));
+                if (file != null) {
+                    return file;
+                }
+            }
+        }
+
+        // project files
+        try {
+            return FilenameIndex.getVirtualFilesByName(project, substringAfterLast("/" + key, "/"),
+                    GlobalSearchScope.projectScope(project)).stream()
+                .max(Comparator.comparingInt(f -> getCommonSuffixLength(f.getPath(), key)))
+                .orElse(null);
+
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+
+    private static int getCommonSuffixLength(@NotNull String a, @NotNull String b) {
+        int length = 0;
+        while (length < a.length() && length < b.length()
+            && a.charAt(a.length() - 1 - length) == b.charAt(b.length() - 1 - length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private void showDiff(@NotNull RemoteObject remoteObject, @NotNull byte[] remoteBytes,
+        @Nullable VirtualFile localFile) {
+
+        final String fileName = substringAfterLast("/" + remoteObject.getKey(), "/");
+        final FileType fileType = FileTypeManager.getInstance().getFileTypeByFileName(fileName);
+        final DiffContentFactory contentFactory = DiffContentFactory.getInstance();
+        try {
+            final DiffContent remoteContent = fileType.isBinary()
+                ? contentFactory.createBinary(project, remoteBytes, fileType, fileName)
+                : contentFactory.create(project, new String(remoteBytes, StandardCharsets.UTF_8), fileType);
+            final DiffContent localContent = localFile != null
+                ? contentFactory.create(project, localFile)
+                : contentFactory.createEmpty();
+
+            final String title = remoteObject.getKey() + (remoteObject.getSize() > remoteBytes.length
+                ? " (first " + remoteBytes.length / 1024 + " KB of " + remoteObject.getSize() / 1024 + " KB)"
+                : EMPTY);
+            DiffManager.getInstance().showDiff(project, new SimpleDiffRequest(title, localContent, remoteContent,
+                localFile != null ? localFile.getPresentableUrl() : "Local file not found", "S3"));
+
+        } catch (IOException e) {
+            NotificationHelper.showEventAndBalloon(project, "Error showing " + remoteObject.getKey() + ": "
+                + e.getMessage(), ERROR);
+        }
+    }
+
+    /**
+     * Metrics of the last operations, the most recent first
+     * @return
+     */
+    @NotNull
+    @Override
+    public List<UploadMetrics> getRecentMetrics() {
+        return new ArrayList<>(recentMetrics);
+    }
+
+    /**
+     * Start recording an operation: S3 requests are recorded until it ends, traced if enabled
+     * @param name
+     * @return
+     */
+    @NotNull
+    private UploadMetrics startMetrics(@NotNull String name) {
+        final UploadMetrics metrics = new UploadMetrics(name,
+            Boolean.parseBoolean(customProperties.getProperty(TRACE_ENABLED_KEY))
+                ? new UploadTrace(name)
+                : UploadTrace.DISABLED);
+        metrics.setting("engine", "TransferManager");
+        metrics.setting("multipartThreshold", S3Uploader.DEFAULT_MULTIPART_THRESHOLD);
+        metrics.setting("warmConnections", getWarmConnections());
+        metrics.setting("endpoint", defaultString(getEndpoint(), getBucketRegion()));
+        metrics.setting("accelerate", S3ClientFactory.isAccelerated(customProperties));
+        return metrics;
+    }
+
+    /**
+     * Stop recording, then keep the metrics for the tool window and export them
+     * @param metrics
+     */
+    private void endMetrics(@NotNull UploadMetrics metrics) {
+        metrics.end();
+        recentMetrics.addFirst(metrics);
+        while (recentMetrics.size() > MAX_RECENT_METRICS) {
+            recentMetrics.pollLast();
+        }
+        exportMetrics(metrics);
+        exportTrace(metrics.getTrace());
+        if (!project.isDisposed()) {
+            project.getMessageBus().syncPublisher(MetricsListener.TOPIC).metricsRecorded(metrics);
+        }
     }
 
     /**
-     * Update current version of upload config
+     * Write metrics as JSON, only the last files are kept
+     * @param metrics
+     */
+    private void exportMetrics(@NotNull UploadMetrics metrics) {
+        final File folder = new File(PathManager.getSystemPath(), METRICS_FOLDER);
+        final String fileName = getExportFileName(metrics.getStartTime(), metrics.getName()) + METRICS_EXTENSION;
+        try {
+            Files.createDirectories(folder.toPath());
+            Files.write(new File(folder, fileName).toPath(), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+            deleteOldestExports(folder, METRICS_EXTENSION, MAX_EXPORTED_METRICS);
+
+        } catch (IOException e) {
+            NotificationHelper.showEvent(project, "Could not export metrics: " + e.getMessage(), WARNING);
+        }
+    }
+
+    /**
+     * Write trace in Chrome trace format, only the last files are kept
+     * @param trace
+     */
+    private void exportTrace(@NotNull UploadTrace trace) {
+        if (!trace.isEnabled()) {
+            return;
+        }
+        final File folder = new File(PathManager.getSystemPath(), TRACES_FOLDER);
+        final String fileName = getExportFileName(trace.getStartTime(), trace.getName()) + TRACE_EXTENSION;
+        try {
+            Files.createDirectories(folder.toPath());
+            trace.writeTo(new File(folder, fileName));
+            deleteOldestExports(folder, TRACE_EXTENSION, MAX_EXPORTED_TRACES);
+
+        } catch (IOException e) {
+            NotificationHelper.showEvent(project, "Could not export trace: " + e.getMessage(), WARNING);
+        }
+    }
+
+    @NotNull
+    private static String getExportFileName(long startTime, @NotNull String name) {
+        return new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(startTime)) + "-"
+            + name.replaceAll("[^\\w.-]", "_");
+    }
+
+    /**
+     * Delete the oldest exported files, names start with their date
+     * @param folder
+     * @param extension
+     * @param maxFiles
+     * @throws IOException
+     */
+    private static void deleteOldestExports(@NotNull File folder, @NotNull String extension, int maxFiles)
+        throws IOException {
+        final File[] exported = folder.listFiles((dir, name) -> name.endsWith(extension));
+        if (exported != null && exported.length > maxFiles) {
+            Arrays.sort(exported);
+            for (int i = 0; i < exported.length - maxFiles; i++) {
+                Files.deleteIfExists(exported[i].toPath());
+            }
+        }
+    }
+
+    @NotNull
+    private static <T> T getOrThrow(@NotNull Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Error listing: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface AfterUpload {
+        void run(@NotNull AmazonS3 s3Client, @NotNull String bucketName, @NotNull String deployedProjectPath,
+            @NotNull UploadJournal journal);
+    }
+
+    /**
+     * Journal of uploads to a destination, shared by all uploads of the project
+     * @param bucketName
+     * @param deployedProjectPath
+     * @return
+     */
+    @NotNull
+    private UploadJournal getJournal(@NotNull String bucketName, @NotNull String deployedProjectPath) {
+        final String destination = bucketName + separator + deployedProjectPath;
+        return journals.computeIfAbsent(destination, d -> UploadJournal.load(new File(PathManager.getSystemPath(),
+            JOURNAL_FOLDER + d.replaceAll("[^\\w.-]", "_") + JOURNAL_EXTENSION)));
+    }
+
+    private void saveJournal(@NotNull UploadJournal journal) {
+        try {
+            journal.save();
+
+        } catch (IOException e) {
+            NotificationHelper.showEvent(project, "Could not save upload journal: " + e.getMessage(), WARNING);
+        }
+    }
+
+    private int getUploadThreads() {
+        return Integer.parseInt(customProperties.getProperty(UPLOAD_THREADS_KEY, String.valueOf(DEFAULT_UPLOAD_THREADS)));
+    }
+
+    /**
+     * Update current version of upload config. The version file is downloaded only if changed since last read
      * @param s3Client
      * @param uploadConfig
      * @param bucketName
+     * @return true if the version changed
      */
-    @NotNull
-    private void updateVersion(@NotNull AmazonS3 s3Client, @NotNull UploadConfig uploadConfig, String bucketName) {
+    private boolean updateVersion(@NotNull AmazonS3 s3Client, @NotNull UploadConfig uploadConfig, String bucketName) {
         final String versionFilePath = getLastVersionsPath() + uploadConfig.getFullFileName();
-        final String version = readS3FileFirstLine(s3Client, bucketName, versionFilePath, "Version file");
+        final String knownETag = uploadConfig.getVersion() != null
+            ? versionETags.get(uploadConfig.getFullFileName())
+            : null;
+
+        final GetObjectRequest request = new GetObjectRequest(bucketName, versionFilePath);
+        if (knownETag != null) {
+            request.setNonmatchingETagConstraints(Collections.singletonList(knownETag));
+        }
+        final S3Object s3Object = s3Client.getObject(request);
+        if (s3Object == null && knownETag != null) {
+            return false;
+        }
+
+        final String version = readS3FileFirstLine(s3Object, versionFilePath, "Version file");
+        versionETags.put(uploadConfig.getFullFileName(), StringUtils.remove(s3Object.getObjectMetadata().getETag(), '"'));
+        final boolean changed = !StringUtils.equals(version, uploadConfig.getVersion());
         uploadConfig.setVersion(version);
+        return changed;
     }
 
     /**
@@ -218,12 +1611,12 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
     @NotNull
     @Override
     public String getProjectName() {
-        return customProperties.getProperty(PROJECT_NAME, project.getName());
+        return customProperties.getProperty(FileHelper.PROJECT_NAME_KEY, project.getName());
     }
 
     @NotNull
     public String getProject() {
-        return customProperties.getProperty(PROJECT_NAME, project.getName());
+        return customProperties.getProperty(FileHelper.PROJECT_NAME_KEY, project.getName());
     }
 
     @NotNull
@@ -248,15 +1641,20 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
 
 
     @NotNull
-    private String readS3FileFirstLine(@NotNull AmazonS3 s3Client, @NotNull String bucketName,
-        @NotNull String versionFilePath, @NotNull String fileDescription) {
+    private String readS3FileFirstLine(@Nullable S3Object s3Object, @NotNull String versionFilePath,
+        @NotNull String fileDescription) {
 
-        final S3Object s3Object = s3Client.getObject(new GetObjectRequest(bucketName, versionFilePath));
         if (s3Object == null || s3Object.getObjectContent() == null) {
             throw new IllegalArgumentException(fileDescription + " not found, searched: " + versionFilePath);
         }
 
-        final String value = FileHelper.getFirstLineFromFile(s3Object.getObjectContent());
+        final String value;
+        try (S3Object closed = s3Object) {
+            value = FileHelper.getFirstLineFromFile(closed.getObjectContent());
+
+        } catch (IOException e) {
+            throw new IllegalArgumentException(fileDescription + " not readable, searched: " + versionFilePath, e);
+        }
         if (StringUtils.isEmpty(value)) {
             throw new IllegalArgumentException(fileDescription+ " is empty, searched: " + versionFilePath);
         }
@@ -328,86 +1726,140 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
      */
     private Properties loadCustomProperties() {
         Properties customProperties = FileHelper.getProjectProperties(project);
-        FileHelper.populateMapFromProperties(customProperties, FROM_CONFIG_TO_DEPLOY_SUFFIX_KEY, FROM_CONFIG_TO_DEPLOY_SUFFIX);
+        PathHelper.populateMapFromProperties(customProperties, FROM_CONFIG_TO_DEPLOY_SUFFIX_KEY, FROM_CONFIG_TO_DEPLOY_SUFFIX);
         return customProperties;
     }
 
-    /**
-     * Check if system envs are set
-     * @throws IllegalArgumentException
-     */
-    private void checkSystemVars() throws IllegalArgumentException {
-        String projectKey = addProjectPrefix(AWS_SYSTEM_ACCESS_KEY);
-        String projectSecret = addProjectPrefix(AWS_SYSTEM_SECRET_ACCESS_KEY);
-        String keyValue = getProjectSystemEnvValue(projectKey);
-        String secretValue = getProjectSystemEnvValue(projectSecret);;
-
-        if (isEmpty(keyValue) || isEmpty(secretValue)) {
-            throw new NotConfiguredPluginException("System Variables " + projectKey + " and/or " + projectSecret + " not found");
-        }
-    }
-
     private String addProjectPrefix(String systemEnv) {
         return getProjectName().toUpperCase() + "_" + systemEnv;
     }
 
-    private String getProjectSystemEnvValue(String projectSystemEnv) {
-        return System.getenv(projectSystemEnv);
-    }
-
 
+    /**
+     * Run with the client of the project. Can be called concurrently
+     * @param consumer
+     */
     private void withS3Client(@NotNull Consumer<AmazonS3> consumer) {
-        String existingAwsKey = null;
-        String existingAwsSecretAccessKey = null;
+        lastRequestTime = System.currentTimeMillis();
+        if (keepWarm == null) {
+            startKeepWarm();
+        }
+        consumer.accept(getS3Client());
+    }
 
-        try {
-            // save existing values
-            existingAwsKey = System.getProperty(AWS_PROPERTY_ACCESS_KEY);
-            existingAwsSecretAccessKey = System.getProperty(AWS_PROPERTY_SECRET_ACCESS_KEY);
+    /**
+     * Client shared by all operations of the project, so that connections are reused
+     * @return
+     */
+    @NotNull
+    private AmazonS3 getS3Client() {
+        AmazonS3 client = s3Client;
+        if (client == null) {
+            synchronized (this) {
+                if (s3Client == null) {
+                    s3Client = buildS3Client(getBucketRegion());
+                }
+                client = s3Client;
+            }
+        }
+        return client;
+    }
 
-            // set project values
-            String projectAwsAccessKey = addProjectPrefix(AWS_SYSTEM_ACCESS_KEY);
-            String projectAwsSecretAccessKey = addProjectPrefix(AWS_SYSTEM_SECRET_ACCESS_KEY);
-            System.setProperty(AWS_PROPERTY_ACCESS_KEY, getProjectSystemEnvValue(projectAwsAccessKey));
-            System.setProperty(AWS_PROPERTY_SECRET_ACCESS_KEY, getProjectSystemEnvValue(projectAwsSecretAccessKey));
+    /**
+     * Build client in the bucket region
+     * @param region
+     * @return
+     * @throws IllegalArgumentException if endpoint options are not compatible
+     */
+    @NotNull
+    private AmazonS3 buildS3Client(@NotNull String region) throws IllegalArgumentException {
+        return S3ClientFactory.build(customProperties, region,
+            Math.max(getUploadThreads(), LISTING_THREADS) + getWarmConnections(), credentialsProvider, requestMetrics);
+    }
 
-            // build client
-            String region = customProperties.getProperty(S3_REGION, DEFAULT_REGION);
-            final AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
-                .withRegion(Regions.valueOf(region))
-                .build();
+    @Nullable
+    private String getEndpoint() {
+        return S3ClientFactory.getEndpoint(customProperties);
+    }
 
-            consumer.accept(s3Client);
+    /**
+     * Region of the bucket found by a previous warm up, otherwise the configured one
+     * @return
+     */
+    @NotNull
+    private String getBucketRegion() {
+        final String configuredRegion = S3ClientFactory.getConfiguredRegion(customProperties);
+        return PropertiesComponent.getInstance().getValue(BUCKET_REGION_KEY + getBucketName(getProjectName()),
+            configuredRegion);
+    }
 
-        } finally {
+    private int getWarmConnections() {
+        return Integer.parseInt(customProperties.getProperty(WARM_CONNECTIONS_KEY,
+            String.valueOf(DEFAULT_WARM_CONNECTIONS)));
+    }
 
-            // reinsert existing values
-            if (isNotEmpty(existingAwsKey)) {
-                System.setProperty(AWS_PROPERTY_ACCESS_KEY, existingAwsKey);
+    /**
+     * Open connections in background and open them again when idle, so that uploads of single files
+     * do not wait for DNS, TCP and TLS setup. Stops after a long idle period, the next request starts it again
+     */
+    private synchronized void startKeepWarm() {
+        final int connections = getWarmConnections();
+        if (connections <= 0 || keepWarm != null || project.isDisposed()) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        keepWarm = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(() -> {
+            final long idleMillis = System.currentTimeMillis() - Math.max(lastRequestTime, startTime);
+            if (project.isDisposed() || idleMillis > TimeUnit.MINUTES.toMillis(KEEP_WARM_MAX_IDLE_MINUTES)) {
+                stopKeepWarm();
+                return;
+            }
+            if (warm && idleMillis < TimeUnit.SECONDS.toMillis(KEEP_WARM_SECONDS)) {
+                return;
             }
-            if (isNotEmpty(existingAwsSecretAccessKey)) {
-                System.setProperty(AWS_PROPERTY_SECRET_ACCESS_KEY, existingAwsSecretAccessKey);
+            try {
+                warmUp(connections);
+
+            } catch (Exception e) {
+                LOGGER.info("Could not open S3 connections: " + e.getMessage());
             }
+        }, 0, KEEP_WARM_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private synchronized void stopKeepWarm() {
+        if (keepWarm != null) {
+            keepWarm.cancel(false);
+            keepWarm = null;
         }
+        warm = false;
     }
 
     /**
-     * Sometimes Intellij is not finding system vars
-     * @param systemVar
-     * @return
+     * Send parallel requests to open connections. The first one also finds the bucket region:
+     * if different from the client one, the region is saved and a new client is built.
+     * Not a request of the user, so it does not extend the idle period
+     * @param connections
      */
-    private String execEcho(String systemVar) {
-        try {
-            String[] cmdline = { "sh", "-c", "echo $" + systemVar };
-            Process process = Runtime.getRuntime().exec(cmdline);
-            process.waitFor();
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String s = stdInput.readLine();
-            return s;
-
-        } catch (IOException | InterruptedException e) {
+    private void warmUp(int connections) {
+        final String bucketName = getBucketName(getProjectName());
+        final AmazonS3 client = getS3Client();
+        final String region = client.headBucket(new HeadBucketRequest(bucketName)).getBucketRegion();
+        if (region != null && getEndpoint() == null && !region.equals(client.getRegionName())) {
+            PropertiesComponent.getInstance().setValue(BUCKET_REGION_KEY + bucketName, region);
+            synchronized (this) {
+                s3Client = buildS3Client(region);
+            }
+            // running requests can still use the old client
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(client::shutdown, 1, TimeUnit.MINUTES);
         }
-        return null;
+
+        final AmazonS3 warmClient = getS3Client();
+        CompletableFuture.allOf(IntStream.range(0, connections)
+            .mapToObj(i -> CompletableFuture.runAsync(() -> warmClient.headBucket(
+                new HeadBucketRequest(bucketName)), AppExecutorUtil.getAppExecutorService()))
+            .toArray(CompletableFuture[]::new))
+            .join();
+        warm = true;
     }
 
     /**
@@ -422,15 +1874,7 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
 
         try {
             withS3Client((s3Client) -> {
-
-                ListObjectsV2Request request = new ListObjectsV2Request()
-                    .withBucketName(bucketName)
-                    .withPrefix(lastVersionsPath);
-
-                ListObjectsV2Result listing = s3Client.listObjectsV2(request);
-                uploadConfigs.addAll(listing.getObjectSummaries().stream()
-                    .map(s -> replaceOnce(s.getKey(), lastVersionsPath, ""))
-                    .filter(s -> !s.isEmpty())
+                uploadConfigs.addAll(listVersionFiles(s3Client, bucketName, lastVersionsPath).keySet().stream()
                     .map(versionFileName -> {
                         UploadConfig uploadConfig = new UploadConfig(projectName, versionFileName);
                         updateVersion(s3Client, uploadConfig, bucketName);
@@ -439,6 +1883,10 @@ public class AmazonS3ServiceImpl implements AmazonS3Service {
                     .collect(Collectors.toList()));
             });
 
+        } catch (NotConfiguredPluginException ex) {
+            // variables not set: the plugin is disabled with their names
+            throw ex;
+
         } catch (Exception ex) {
             throw new IllegalArgumentException("Error reading upload configs: " + ex.getMessage(), ex);
         }
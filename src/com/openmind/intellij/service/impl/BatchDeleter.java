@@ -0,0 +1,141 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.openmind.intellij.bean.UploadMetrics;
+
+
+/**
+ * Delete objects with multi-object requests of up to 1000 keys, sent in parallel
+ */
+public class BatchDeleter
+{
+    public static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LISTED_ERRORS = 10;
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final int threads;
+    private final BooleanSupplier canceled;
+    private final UploadMetrics metrics;
+
+    /**
+     * @param s3Client
+     * @param bucketName
+     * @param threads
+     * @param canceled
+     * @param metrics operation recording the requests, if any
+     */
+    public BatchDeleter(@NotNull AmazonS3 s3Client, @NotNull String bucketName, int threads,
+        @NotNull BooleanSupplier canceled, @Nullable UploadMetrics metrics) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.threads = threads;
+        this.canceled = canceled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Delete all keys and wait for completion
+     * @param keys
+     * @param deleted called for each deleted key, from any thread
+     * @return number of deleted keys
+     * @throws IllegalArgumentException if some keys could not be deleted
+     * @throws CancellationException if canceled
+     */
+    public int delete(@NotNull Collection<String> keys, @NotNull Consumer<String> deleted)
+        throws IllegalArgumentException, CancellationException {
+
+        final AtomicInteger deletedCount = new AtomicInteger();
+        final AtomicInteger failedCount = new AtomicInteger();
+        final List<String> errorsSample = new CopyOnWriteArrayList<>();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "S3UploadPlugin-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> batches = Lists.partition(Lists.newArrayList(keys), MAX_BATCH_SIZE).stream()
+                .map(batch -> executor.submit(() -> {
+                    if (canceled.getAsBoolean()) {
+                        return;
+                    }
+                    Set<String> failedKeys = Sets.newHashSet();
+                    try {
+                        s3Client.deleteObjects(S3RequestMetrics.tag(new DeleteObjectsRequest(bucketName)
+                            .withKeys(batch.stream().map(KeyVersion::new).collect(Collectors.toList()))
+                            .withQuiet(true), metrics));
+
+                    } catch (MultiObjectDeleteException e) {
+                        e.getErrors().forEach(error -> {
+                            failedKeys.add(error.getKey());
+                            addError(errorsSample, failedCount, error.getKey() + ": " + error.getMessage());
+                        });
+                    } catch (RuntimeException e) {
+                        failedKeys.addAll(batch);
+                        batch.forEach(key -> addError(errorsSample, failedCount, key + ": " + e.getMessage()));
+                    }
+
+                    batch.stream()
+                        .filter(key -> !failedKeys.contains(key))
+                        .forEach(key -> {
+                            deletedCount.incrementAndGet();
+                            deleted.accept(key);
+                        });
+                }))
+                .collect(Collectors.toList());
+
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Delete interrupted");
+
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Delete failed: " + e.getCause().getMessage(), e.getCause());
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (canceled.getAsBoolean()) {
+            throw new CancellationException("Delete canceled");
+        }
+        if (failedCount.get() > 0) {
+            throw new IllegalArgumentException("Deleted " + deletedCount.get() + " objects, failed "
+                + failedCount.get() + ":" + System.lineSeparator() + String.join(System.lineSeparator(), errorsSample));
+        }
+        return deletedCount.get();
+    }
+
+    private static void addError(@NotNull List<String> errorsSample, @NotNull AtomicInteger failedCount,
+        @NotNull String error) {
+        if (failedCount.incrementAndGet() <= MAX_LISTED_ERRORS) {
+            errorsSample.add(error);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.openmind.intellij.service.impl;
+
+import static org.apache.commons.lang.StringUtils.EMPTY;
+import static org.apache.commons.lang.StringUtils.contains;
+import static org.apache.commons.lang.StringUtils.isEmpty;
+import static org.apache.commons.lang.StringUtils.isNotEmpty;
+import static org.apache.commons.lang.StringUtils.replaceOnce;
+import static org.apache.commons.lang.StringUtils.split;
+import static org.apache.commons.lang.StringUtils.startsWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.collect.Maps;
+import com.openmind.intellij.bean.SegmentPath;
+
+
+/**
+ * Convert source paths to the paths of their compiled files, by extension: custom path mappings first,
+ * then the module output folder. Independent from the IDE: module output folders are plain paths
+ */
+public class CompiledPathResolver
+{
+    // extensions to convert. Key suffix is extension. Eg: java = class
+    private static final String COMPILE_MAPPING_EXTENSION_KEY = "compile.mapping.extension.";
+
+    // paths to convert to find the compiled files. Key suffix is extension. Eg: java = /path1:/path2,/path3:/path4
+    private static final String COMPILE_MAPPING_PATH_KEY = "compile.mapping.path.";
+
+    // search subclasses after value. Key suffix is extension. Eg java = $
+    private static final String COMPILE_MAPPING_SUBCLASSES_KEY = "compile.mapping.subclasses.";
+
+    private static final String DOT = ".";
+    private static final String COMMA = ",";
+    private static final String COLON = ":";
+
+    // compilation info
+    private final Map<String, CompiledBehavior> compiledBehaviors = Maps.newLinkedHashMap();
+    {
+        compiledBehaviors.put("java", new CompiledBehavior("class", "$"));
+        compiledBehaviors.put("groovy", new CompiledBehavior("class", "$"));
+    }
+
+    private final DeployPathResolver deployPathResolver;
+
+    /**
+     * Setup from s3upload.properties
+     * @param deployPathResolver source roots of the project
+     * @param customProperties
+     */
+    public CompiledPathResolver(@NotNull DeployPathResolver deployPathResolver, @NotNull Properties customProperties) {
+        this.deployPathResolver = deployPathResolver;
+
+        customProperties.forEach((k,v) -> {
+            final String key = k.toString();
+
+            // path behavior
+            if (startsWith(key, COMPILE_MAPPING_PATH_KEY) && contains(v.toString(), COLON)) {
+                String extension = replaceOnce(key, COMPILE_MAPPING_PATH_KEY, EMPTY);
+                List<String> pathMappings = Arrays.asList(split(v.toString().replaceAll("\\s",""), COMMA));
+
+                Map<SegmentPath, SegmentPath> pathMappingsMap = pathMappings.stream()
+                    .map(m -> split(m, COLON))
+                    .collect(Collectors.toMap(m -> SegmentPath.of(m[0]), m -> SegmentPath.of(m[1]), (m1, m2) -> m2,
+                        Maps::newLinkedHashMap));
+
+                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
+                extensionBehavior.addPathMappings(pathMappingsMap);
+            }
+
+            // extension behavior
+            if (startsWith(key, COMPILE_MAPPING_EXTENSION_KEY)) {
+                String extension = replaceOnce(key, COMPILE_MAPPING_EXTENSION_KEY, EMPTY);
+                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
+                extensionBehavior.setOutputExtension(v.toString());
+            }
+
+            // subclasses behavior
+            if (startsWith(key, COMPILE_MAPPING_SUBCLASSES_KEY)) {
+                String extension = replaceOnce(key, COMPILE_MAPPING_SUBCLASSES_KEY, EMPTY);
+                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
+                extensionBehavior.setSubclassesSeparator(v.toString());
+            }
+        });
+    }
+
+    /**
+     * Get path of the compiled file
+     * @param originalPath source file
+     * @param moduleOutputPath output folder of the module of the file, read only if no custom mapping matches.
+     *                         It can supply null
+     * @return null if the file is not compiled, it is then uploaded as it is
+     */
+    @Nullable
+    public SegmentPath getOutputPath(@NotNull SegmentPath originalPath, @NotNull Supplier<String> moduleOutputPath) {
+
+        // search behavior for specific extension
+        final String originalName = originalPath.getName();
+        final int extensionIndex = originalName.lastIndexOf(DOT);
+        final CompiledBehavior extensionBehavior = extensionIndex >= 0
+            ? getExtensionBehavior(originalName.substring(extensionIndex + 1))
+            : null;
+        if (extensionBehavior == null) {
+            return null;
+        }
+        SegmentPath outputPath = null;
+
+        // try custom path conversion
+        for (Map.Entry<SegmentPath, SegmentPath> mapping : extensionBehavior.getPathMappings().entrySet()) {
+            if (originalPath.contains(mapping.getKey())) {
+                outputPath = originalPath.replaceFirst(mapping.getKey(), mapping.getValue());
+                break;
+            }
+        }
+
+        // try automatic module path conversion
+        if (outputPath == null) {
+            outputPath = automaticCompilePathConversion(moduleOutputPath.get(), originalPath);
+        }
+
+        // no conversion
+        if (outputPath == null) {
+            outputPath = originalPath;
+        }
+
+        // replace extension
+        final String outputExtension = extensionBehavior.getOutputExtension();
+        if (isNotEmpty(outputExtension)) {
+            outputPath = outputPath.withName(originalName.substring(0, extensionIndex) + DOT + outputExtension);
+        }
+        return outputPath.equals(originalPath) ? null : outputPath;
+    }
+
+    /**
+     * Get name prefix of the subclasses compiled with a file, eg: MyClass$
+     * @param originalExtension extension of the source file
+     * @param outputNameWithoutExtension name of the compiled file
+     * @return null if subclasses are not searched
+     */
+    @Nullable
+    public String getSubclassesPrefix(@Nullable String originalExtension, @NotNull String outputNameWithoutExtension) {
+        final CompiledBehavior extensionBehavior = getExtensionBehavior(originalExtension);
+        if (extensionBehavior == null || isEmpty(extensionBehavior.getSubclassesSeparator())) {
+            return null;
+        }
+        return outputNameWithoutExtension + extensionBehavior.getSubclassesSeparator();
+    }
+
+    @Nullable
+    private SegmentPath automaticCompilePathConversion(@Nullable String moduleOutputPath,
+        @NotNull SegmentPath originalPath) {
+
+        if (isNotEmpty(moduleOutputPath)) {
+
+            // get matching source path
+            SegmentPath sourceRoot = deployPathResolver.getSourceRoot(originalPath);
+            if (sourceRoot != null) {
+                SegmentPath pathFromSourceFolder = originalPath.relativize(sourceRoot);
+                return SegmentPath.of(moduleOutputPath).resolve(pathFromSourceFolder);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private CompiledBehavior getExtensionBehavior(@Nullable String key) {
+        return compiledBehaviors.get(key);
+    }
+
+    @NotNull
+    private CompiledBehavior getOrCreateExtensionBehavior(@NotNull String key) {
+        return compiledBehaviors.computeIfAbsent(key, CompiledBehavior::new);
+    }
+
+    private static class CompiledBehavior {
+
+        private String outputExtension;
+
+        private final Map<SegmentPath, SegmentPath> pathMappings;
+
+        private String subclassesSeparator;
+
+
+        CompiledBehavior(String outputExtension)
+        {
+            this(outputExtension, null);
+        }
+
+        CompiledBehavior(String outputExtension, String subclassesSeparator) {
+            this.outputExtension = outputExtension;
+            this.pathMappings = Maps.newLinkedHashMap();
+            this.subclassesSeparator = subclassesSeparator;
+        }
+
+        String getOutputExtension()
+        {
+            return outputExtension;
+        }
+
+        void setOutputExtension(String outputExtension)
+        {
+            this.outputExtension = outputExtension;
+        }
+
+        Map<SegmentPath, SegmentPath> getPathMappings()
+        {
+            return pathMappings;
+        }
+
+        void addPathMappings(Map<SegmentPath, SegmentPath> pathMappings)
+        {
+            this.pathMappings.putAll(pathMappings);
+        }
+
+        String getSubclassesSeparator()
+        {
+            return subclassesSeparator;
+        }
+
+        void setSubclassesSeparator(String subclassesSeparator)
+        {
+            this.subclassesSeparator = subclassesSeparator;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.openmind.intellij.service.impl;
+
+import static org.apache.commons.lang.StringUtils.isNotEmpty;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.openmind.intellij.bean.SegmentPath;
+import com.openmind.intellij.helper.PathHelper;
+
+
+/**
+ * Convert local paths to paths inside the deployed project.
+ * Independent from the IDE: roots and mappings are plain paths
+ */
+public class DeployPathResolver
+{
+    public enum DeployPathStrategy {
+
+        // deploy path starts at source folders
+        FROM_SOURCES,
+
+        // deploy path starts at module names
+        FROM_MODULE_NAME,
+
+        // deploy path starts after custom path conversion
+        AFTER_PROJECT_ROOT
+    }
+
+    // paths to convert to deploy. Key suffix is extension. Eg: /path1 = /path2
+    private static final String DEPLOY_PATH_MAPPINGS_KEY = "deploy.path.mappings.";
+
+    // deploy path resolution strategy
+    private static final String DEPLOY_PATH_STRATEGY_KEY = "deploy.path.strategy";
+
+    // deploy path prefix
+    private static final String DEPLOY_PATH_PREFIX_KEY = "deploy.path.prefix";
+
+    // deploy path prefix
+    private static final String DEPLOY_SOURCE_OUTPUT_KEY = "deploy.source.output";
+
+    // deploy path prefix
+    private static final String DEPLOY_AUTO_SOURCE_TO_DEPLOY_MAPPING_KEY = "deploy.auto.source.mapping";
+
+    // maven-war-plugin defaults
+    private static final String DEFAULT_DEPLOY_SOURCE_OUTPUT = "/WEB-INF/classes/";
+    private static final List<String> DEFAULT_SOURCE_ROOTS = Arrays.asList("/src/main/java/", "/src/main/resources/");
+    private static final List<String> DEFAULT_WEB_RESOURCES = Collections.singletonList("/src/main/webapp/");
+    private static final String DEFAULT_WEB_RESOURCES_OUTPUT = "/";
+
+    private final SegmentPath projectBasePath;
+    private final List<SegmentPath> contentRoots;
+    private final List<SegmentPath> sourceRoots;
+    private final List<PathMapping> deployMappings;
+    private final SegmentPath sourceDeployOutput;
+    private final SegmentPath deployPathPrefix;
+    private final boolean autoSourceToDeployOutputMapping;
+    private final DeployPathStrategy deployPathStrategy;
+
+    /**
+     * Setup
+     * @param projectBasePath
+     * @param contentRoots module content roots
+     * @param sourceRoots module production source roots
+     * @param deployMappings source folders to deploy folders, first matching is used
+     * @param sourceDeployOutput deploy folder of unmapped source roots
+     * @param deployPathPrefix prefix of all deploy paths
+     * @param autoSourceToDeployOutputMapping
+     * @param deployPathStrategy
+     */
+    public DeployPathResolver(@Nullable String projectBasePath, @NotNull Collection<String> contentRoots,
+        @NotNull Collection<String> sourceRoots, @NotNull Map<String, String> deployMappings,
+        @NotNull String sourceDeployOutput, @Nullable String deployPathPrefix, boolean autoSourceToDeployOutputMapping,
+        @NotNull DeployPathStrategy deployPathStrategy) {
+
+        this.projectBasePath = SegmentPath.of(projectBasePath);
+        this.contentRoots = toDeepestFirst(contentRoots);
+        this.sourceRoots = toDeepestFirst(sourceRoots);
+        this.deployMappings = deployMappings.entrySet().stream()
+            .map(e -> new PathMapping(SegmentPath.of(e.getKey()), SegmentPath.of(e.getValue())))
+            .collect(Collectors.toList());
+        this.sourceDeployOutput = SegmentPath.of(sourceDeployOutput);
+        this.deployPathPrefix = SegmentPath.EMPTY.resolve(deployPathPrefix);
+        this.autoSourceToDeployOutputMapping = autoSourceToDeployOutputMapping;
+        this.deployPathStrategy = deployPathStrategy;
+    }
+
+    /**
+     * Setup from s3upload.properties, with the defaults of known project layouts: maven, Hybris
+     * @param projectBasePath
+     * @param contentRoots module content roots
+     * @param sourceRoots module production source roots
+     * @param customProperties
+     * @return
+     */
+    @NotNull
+    public static DeployPathResolver create(@Nullable String projectBasePath, @NotNull Collection<String> contentRoots,
+        @NotNull Collection<String> sourceRoots, @NotNull Properties customProperties) {
+
+        // src deploy path transformation - search custom mappings from source path to deploy path
+        final Map<String, String> customDeployMappings = new TreeMap<>();
+        DeployPathStrategy defaultDeployPathStrategy = DeployPathStrategy.FROM_SOURCES;
+
+        // known defaults
+        boolean isHybris = new File(projectBasePath, "/bin/custom").exists();
+        if (isHybris) {
+            customDeployMappings.put("/src/", "/webroot/WEB-INF/classes/");
+            defaultDeployPathStrategy = DeployPathStrategy.AFTER_PROJECT_ROOT;
+        }
+
+        // custom source deploy output path
+        final String sourceDeployOutput = customProperties.getProperty(DEPLOY_SOURCE_OUTPUT_KEY,
+            DEFAULT_DEPLOY_SOURCE_OUTPUT);
+
+        // path mappings
+        DEFAULT_SOURCE_ROOTS.forEach(root -> customDeployMappings.put(root, sourceDeployOutput));
+        DEFAULT_WEB_RESOURCES.forEach(root -> customDeployMappings.put(root, DEFAULT_WEB_RESOURCES_OUTPUT));
+
+        PathHelper.populateMapFromProperties(customProperties, DEPLOY_PATH_MAPPINGS_KEY, customDeployMappings,
+            PathHelper::ensureSeparators);
+
+        // deploy strategy
+        String strategy = customProperties.getProperty(DEPLOY_PATH_STRATEGY_KEY);
+        final DeployPathStrategy deployPathStrategy = isNotEmpty(strategy)
+            ? DeployPathStrategy.valueOf(strategy)
+            : defaultDeployPathStrategy;
+
+        // automatic replacement of sources when deploying
+        String autoSourceToDeployOutputMappingSetting = customProperties.getProperty(
+            DEPLOY_AUTO_SOURCE_TO_DEPLOY_MAPPING_KEY);
+        final boolean autoSouceToDeployOutputMapping = isNotEmpty(autoSourceToDeployOutputMappingSetting)
+            ? BooleanUtils.toBoolean(autoSourceToDeployOutputMappingSetting)
+            : true;
+
+        return new DeployPathResolver(projectBasePath, contentRoots, sourceRoots, customDeployMappings,
+            sourceDeployOutput, customProperties.getProperty(DEPLOY_PATH_PREFIX_KEY), autoSouceToDeployOutputMapping,
+            deployPathStrategy);
+    }
+
+    /**
+     * Convert file path to the path of its folder inside deployed project
+     * @param filePath
+     * @return path relative to deployed project, without leading and trailing separators
+     * @throws IllegalArgumentException
+     */
+    @NotNull
+    public String getProjectRelativeDeployPath(@Nullable String filePath) throws IllegalArgumentException {
+        return getFolderDeployPath(SegmentPath.of(filePath).getParent());
+    }
+
+    /**
+     * Convert folder path to its path inside deployed project
+     * @param folderPath
+     * @return path relative to deployed project, without leading and trailing separators
+     * @throws IllegalArgumentException
+     */
+    @NotNull
+    public String getFolderDeployPath(@Nullable String folderPath) throws IllegalArgumentException {
+        return getFolderDeployPath(SegmentPath.of(folderPath));
+    }
+
+    @NotNull
+    private String getFolderDeployPath(@NotNull SegmentPath originalPath) throws IllegalArgumentException {
+        if (originalPath.isEmpty()) {
+            throw new IllegalArgumentException("Could not get deploy originalPath");
+        }
+        return deployPathPrefix.resolve(getProjectRelativeDeployPathNoPrefix(originalPath)).toRelativeString();
+    }
+
+    @NotNull
+    private SegmentPath getProjectRelativeDeployPathNoPrefix(@NotNull SegmentPath originalPath)
+        throws IllegalArgumentException {
+
+        final SegmentPath contentRoot = getContentRoot(originalPath);
+        final SegmentPath sourceRoot = getSourceRoot(originalPath);
+
+        // search custom source - output mapping
+        SegmentPath processedPath = originalPath;
+        int customDeployMappingIndex = -1;
+        for (PathMapping mapping : deployMappings) {
+            customDeployMappingIndex = originalPath.indexOf(mapping.source);
+            if (customDeployMappingIndex >= 0) {
+                processedPath = originalPath.replaceFirst(mapping.source, mapping.target);
+                break;
+            }
+        }
+
+        // deploy path before custom mappings
+        if (deployPathStrategy == DeployPathStrategy.FROM_SOURCES && customDeployMappingIndex >= 0) {
+            return processedPath.fromIndex(customDeployMappingIndex);
+        }
+
+        // auto source to output transformation
+        if (autoSourceToDeployOutputMapping && contentRoot != null && sourceRoot != null) {
+            SegmentPath sourceFolders = sourceRoot.relativize(contentRoot);
+            if (sourceFolders != null && !sourceFolders.isEmpty()) {
+                processedPath = processedPath.replaceFirst(sourceFolders, sourceDeployOutput);
+            }
+        }
+
+        if (deployPathStrategy == DeployPathStrategy.FROM_SOURCES) {
+            if (contentRoot != null && sourceRoot != null && sourceRoot.getDepth() > contentRoot.getDepth()) {
+                return relativizeOrKeep(processedPath, contentRoot);
+            } else {
+                throw new IllegalArgumentException("No sourceRoot found for " + originalPath);
+            }
+        }
+
+        // deploy path after content root - keep modules name
+        if (deployPathStrategy == DeployPathStrategy.FROM_MODULE_NAME) {
+            if (contentRoot != null) {
+                return relativizeOrKeep(processedPath, contentRoot.getParent());
+            } else {
+                throw new IllegalArgumentException("No sourceRoot found for " + originalPath);
+            }
+        }
+
+        // deploy path after project root
+        if (deployPathStrategy == DeployPathStrategy.AFTER_PROJECT_ROOT) {
+            SegmentPath relativePath = processedPath.relativize(projectBasePath);
+            return relativePath != null ? relativePath : SegmentPath.EMPTY;
+        }
+
+        throw new IllegalArgumentException("Could not found base path strategy for: " + originalPath);
+    }
+
+    /**
+     * Deepest content root containing path
+     * @param path
+     * @return
+     */
+    @Nullable
+    public SegmentPath getContentRoot(@NotNull SegmentPath path) {
+        return findRoot(contentRoots, path);
+    }
+
+    /**
+     * Deepest source root containing path
+     * @param path
+     * @return
+     */
+    @Nullable
+    public SegmentPath getSourceRoot(@NotNull SegmentPath path) {
+        return findRoot(sourceRoots, path);
+    }
+
+    @Nullable
+    private static SegmentPath findRoot(@NotNull List<SegmentPath> roots, @NotNull SegmentPath path) {
+        for (SegmentPath root : roots) {
+            if (path.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static SegmentPath relativizeOrKeep(@NotNull SegmentPath path, @NotNull SegmentPath prefix) {
+        SegmentPath relativePath = path.relativize(prefix);
+        return relativePath != null ? relativePath : path;
+    }
+
+    @NotNull
+    private static List<SegmentPath> toDeepestFirst(@NotNull Collection<String> paths) {
+        return paths.stream()
+            .map(SegmentPath::of)
+            .sorted(Comparator.comparingInt(SegmentPath::getDepth).reversed())
+            .collect(Collectors.toList());
+    }
+
+    private static class PathMapping
+    {
+        private final SegmentPath source;
+        private final SegmentPath target;
+
+        PathMapping(SegmentPath source, SegmentPath target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.openmind.intellij.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.openmind.intellij.bean.RemoteObject;
+import com.openmind.intellij.bean.RemotePartition;
+
+
+/**
+ * Listing of a prefix, made of partitions that can be listed again one by one.
+ * Keys uploaded or deleted by the plugin mark their partition as touched, so a refresh only lists those partitions.
+ * Changes done by others are seen only when the whole snapshot expires
+ */
+public class ListingSnapshot
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final String prefix;
+    private final Map<String, RemotePartition> partitions = new ConcurrentHashMap<>();
+    private final Set<String> touchedPrefixes = ConcurrentHashMap.newKeySet();
+    private volatile long createdAt;
+    private volatile boolean modified;
+
+    private ListingSnapshot(@NotNull File file, @NotNull String prefix) {
+        this.file = file;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Load snapshot, empty if the file does not exist, is unreadable or of another prefix
+     * @param file
+     * @param prefix
+     * @return
+     */
+    @NotNull
+    public static ListingSnapshot load(@NotNull File file, @NotNull String prefix) {
+        final ListingSnapshot snapshot = new ListingSnapshot(file, prefix);
+        if (!file.isFile()) {
+            return snapshot;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION || !prefix.equals(input.readUTF())) {
+                return snapshot;
+            }
+            snapshot.createdAt = input.readLong();
+            final int partitionsCount = input.readInt();
+            for (int i = 0; i < partitionsCount; i++) {
+                final String partitionPrefix = input.readUTF();
+                final int depth = input.readInt();
+                final long listedAt = input.readLong();
+                final boolean touched = input.readBoolean();
+                final int objectsCount = input.readInt();
+                final List<RemoteObject> objects = Lists.newArrayListWithCapacity(objectsCount);
+                for (int j = 0; j < objectsCount; j++) {
+                    objects.add(new RemoteObject(input.readUTF(), input.readUTF(), input.readLong(), input.readLong()));
+                }
+                final int subPrefixesCount = input.readInt();
+                final List<String> subPrefixes = Lists.newArrayListWithCapacity(subPrefixesCount);
+                for (int j = 0; j < subPrefixesCount; j++) {
+                    subPrefixes.add(input.readUTF());
+                }
+                snapshot.partitions.put(partitionPrefix,
+                    new RemotePartition(partitionPrefix, depth, objects, subPrefixes, listedAt));
+                if (touched) {
+                    snapshot.touchedPrefixes.add(partitionPrefix);
+                }
+            }
+        } catch (IOException e) {
+            snapshot.invalidate();
+        }
+        return snapshot;
+    }
+
+    @NotNull
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Check if the whole prefix is to be listed again
+     * @param ttlMillis
+     * @return
+     */
+    public boolean isExpired(long ttlMillis) {
+        return !partitions.containsKey(prefix) || System.currentTimeMillis() - createdAt > ttlMillis;
+    }
+
+    /**
+     * Clear before a full listing
+     */
+    public void reset() {
+        partitions.clear();
+        touchedPrefixes.clear();
+        createdAt = System.currentTimeMillis();
+        modified = true;
+    }
+
+    /**
+     * Clear after a failed listing, so the next one is full
+     */
+    public void invalidate() {
+        partitions.clear();
+        touchedPrefixes.clear();
+        createdAt = 0;
+        modified = true;
+    }
+
+    /**
+     * Add or replace a listed partition. Sub-prefixes no longer existing are removed
+     * @param partition
+     */
+    public void put(@NotNull RemotePartition partition) {
+        final RemotePartition previous = partitions.put(partition.getPrefix(), partition);
+        touchedPrefixes.remove(partition.getPrefix());
+        modified = true;
+
+        if (previous != null && !previous.isRecursive()) {
+            final Set<String> removedSubPrefixes = Sets.difference(Sets.newHashSet(previous.getSubPrefixes()),
+                Sets.newHashSet(partition.getSubPrefixes()));
+            if (!removedSubPrefixes.isEmpty()) {
+                partitions.keySet().removeIf(p -> removedSubPrefixes.stream().anyMatch(p::startsWith));
+                touchedPrefixes.removeIf(p -> removedSubPrefixes.stream().anyMatch(p::startsWith));
+            }
+        }
+    }
+
+    /**
+     * Mark the partition containing key as touched. For keys in new sub-prefixes, the nearest listed parent is touched
+     * @param key
+     */
+    public void touched(@NotNull String key) {
+        if (!key.startsWith(prefix)) {
+            return;
+        }
+        String partitionPrefix = prefix;
+        for (int i = key.lastIndexOf('/'); i >= 0 && i >= prefix.length() - 1; i = key.lastIndexOf('/', i - 1)) {
+            if (partitions.containsKey(key.substring(0, i + 1))) {
+                partitionPrefix = key.substring(0, i + 1);
+                break;
+            }
+        }
+        if (partitions.containsKey(partitionPrefix) && touchedPrefixes.add(partitionPrefix)) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Touched partitions and their depth, to be listed again
+     */
+    @NotNull
+    public Map<String, Integer> getTouchedPartitions() {
+        return touchedPrefixes.stream()
+            .map(partitions::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toMap(RemotePartition::getPrefix, RemotePartition::getDepth));
+    }
+
+    /**
+     * Check if a sub-prefix is already listed
+     * @param subPrefix
+     * @return
+     */
+    public boolean isListed(@NotNull String subPrefix) {
+        return partitions.containsKey(subPrefix);
+    }
+
+    public void forEachObject(@NotNull Consumer<RemoteObject> consumer) {
+        partitions.values().forEach(p -> p.getObjects().forEach(consumer));
+    }
+
+    @NotNull
+    public Collection<RemotePartition> getPartitions() {
+        return partitions.values();
+    }
+
+    public int size() {
+        return partitions.values().stream().mapToInt(p -> p.getObjects().size()).sum();
+    }
+
+    /**
+     * Save if modified, replacing the file only when completely written
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        Files.createDirectories(file.getParentFile().toPath());
+        final Path tempFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(prefix);
+            output.writeLong(createdAt);
+            final List<RemotePartition> savedPartitions = Lists.newArrayList(partitions.values());
+            output.writeInt(savedPartitions.size());
+            for (RemotePartition partition : savedPartitions) {
+                output.writeUTF(partition.getPrefix());
+                output.writeInt(partition.getDepth());
+                output.writeLong(partition.getListedAt());
+                output.writeBoolean(touchedPrefixes.contains(partition.getPrefix()));
+                output.writeInt(partition.getObjects().size());
+                for (RemoteObject object : partition.getObjects()) {
+                    output.writeUTF(object.getKey());
+                    output.writeUTF(object.getETag() != null ? object.getETag() : "");
+                    output.writeLong(object.getSize());
+                    output.writeLong(object.getLastModified());
+                }
+                output.writeInt(partition.getSubPrefixes().size());
+                for (String subPrefix : partition.getSubPrefixes()) {
+                    output.writeUTF(subPrefix);
+                }
+            }
+        } catch (IOException e) {
+            modified = true;
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,217 +1,93 @@
 package com.openmind.intellij.service.impl;
 
-import static com.openmind.intellij.helper.FileHelper.COLON;
-import static com.openmind.intellij.helper.FileHelper.COMMA;
-import static com.openmind.intellij.helper.FileHelper.DOT;
-import static com.openmind.intellij.helper.FileHelper.ensureSeparators;
-import static com.openmind.intellij.helper.FileHelper.forceEndingWithSeparator;
-import static com.openmind.intellij.helper.FileHelper.forceNotStartingWithSeparator;
 import static com.openmind.intellij.helper.FileHelper.getProjectProperties;
-import static java.io.File.separator;
-import static org.apache.commons.lang.StringUtils.EMPTY;
-import static org.apache.commons.lang.StringUtils.contains;
-import static org.apache.commons.lang.StringUtils.isEmpty;
-import static org.apache.commons.lang.StringUtils.isNotEmpty;
-import static org.apache.commons.lang.StringUtils.replaceOnce;
-import static org.apache.commons.lang.StringUtils.split;
-import static org.apache.commons.lang.StringUtils.startsWith;
-import static org.apache.commons.lang.StringUtils.substringAfter;
-import static org.apache.commons.lang.StringUtils.substringBeforeLast;
-
-import java.io.File;
+
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.TreeMap;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.apache.commons.lang3.BooleanUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.model.java.JavaModuleSourceRootTypes;
 
-import com.google.common.collect.Maps;
 import com.intellij.openapi.compiler.CompilerPaths;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.openmind.intellij.helper.FileHelper;
+import com.openmind.intellij.bean.SegmentPath;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
 import com.openmind.intellij.service.OutputFileService;
 
 
 public class OutputFileServiceImpl implements OutputFileService {
 
-    // extensions to convert. Key suffix is extension. Eg: java = class
-    private static final String COMPILE_MAPPING_EXTENSION_KEY = "compile.mapping.extension.";
-
-    // paths to convert to find the compiled files. Key suffix is extension. Eg: java = /path1:/path2,/path3:/path4
-    private static final String COMPILE_MAPPING_PATH_KEY = "compile.mapping.path.";
-
-    // search subclasses after value. Key suffix is extension. Eg java = $
-    private static final String COMPILE_MAPPING_SUBCLASSES_KEY = "compile.mapping.subclasses.";
-
-    // paths to convert to deploy. Key suffix is extension. Eg: /path1 = /path2
-    private static final String DEPLOY_PATH_MAPPINGS_KEY = "deploy.path.mappings.";
-
-    // deploy path resolution strategy
-    private static final String DEPLOY_PATH_STRATEGY_KEY = "deploy.path.strategy";
-
-    // deploy path prefix
-    private static final String DEPLOY_PATH_PREFIX_KEY = "deploy.path.prefix";
-
-    // deploy path prefix
-    private static final String DEPLOY_SOURCE_OUTPUT_KEY = "deploy.source.output";
-
-    // deploy path prefix
-    private static final String DEPLOY_AUTO_SOURCE_TO_DEPLOY_MAPPING_KEY = "deploy.auto.source.mapping";
-
-    // maven-war-plugin defaults
-    private static final String DEFAULT_DEPLOY_SOURCE_OUTPUT = "/WEB-INF/classes/";
-    private static final List<String> DEFAULT_SOURCE_ROOTS = Arrays.asList("/src/main/java/", "/src/main/resources/");
-    private static final List<String> DEFAULT_WEB_RESOURCES = Collections.singletonList("/src/main/webapp/");
-
-    // src deploy path transformation - search custom mappings from source path to deploy path
-    private final Map<String,String> customDeployMappings = new TreeMap<>();
-
-    // compilation info
-    private final Map<String, CompiledBehavior> compiledBehaviors = Maps.newLinkedHashMap();
-    {
-        compiledBehaviors.put("java", new CompiledBehavior("class", "$"));
-        compiledBehaviors.put("groovy", new CompiledBehavior("class", "$"));
-    }
-
-    private final Project project;
-
-    private final List<String> moduleContentRoots;
-    private final List<String> moduleSourceRoots;
     private final Module[] modules;
-    private final String deployPathPrefix;
-    private final String sourceDeployOutput;
-    private final boolean autoSouceToDeployOutputMapping;
-    private DeployPathStrategy deployPathStrategy;
-    private DeployPathStrategy defaultDeployPathStrategy = DeployPathStrategy.FROM_SOURCES;
+    private final DeployPathResolver deployPathResolver;
+    private final CompiledPathResolver compiledPathResolver;
+    private final PatchPlanner planner;
 
-    private enum DeployPathStrategy {
 
-        // deploy path starts at source folders
-        FROM_SOURCES,
+    /**
+     * Setup
+     * @param project
+     */
+    public OutputFileServiceImpl(@NotNull Project project) {
+        this(project.getBasePath(),
 
-        // deploy path starts at module names
-        FROM_MODULE_NAME,
+            // module paths
+            Arrays.stream(ProjectRootManager.getInstance(project).getContentRoots())
+                .map(VirtualFile::getCanonicalPath)
+                .collect(Collectors.toList()),
 
-        // deploy path starts after custom path conversion
-        AFTER_PROJECT_ROOT
-    }
+            // sourceroots Eg: .../main/java and .../main/resources
+            ProjectRootManager.getInstance(project).getModuleSourceRoots(JavaModuleSourceRootTypes.PRODUCTION).stream()
+                .map(VirtualFile::getCanonicalPath)
+                .collect(Collectors.toList()),
 
-    // todo  com.intellij.openapi.util.io.FileUtil.toCanonicalPath(java.lang.String)
-    // todo FileUtilRt.toSystemIndependentName()
+            // laod modules
+            ModuleManager.getInstance(project).getModules(),
 
+            getProjectProperties(project));
+    }
 
     /**
-     * Setup
-     * @param project
+     * Setup from a project layout, without the IDE project model. Eg: for benchmarks
+     * @param projectBasePath
+     * @param moduleContentRoots
+     * @param moduleSourceRoots production source roots
+     * @param modules searched when a file has no module, can be empty
+     * @param customProperties content of s3upload.properties
+     * @return
      */
-    public OutputFileServiceImpl(@NotNull Project project) {
-
-        this.project = project;
-        ProjectRootManager projectRootManager = ProjectRootManager.getInstance(project);
-
-        // module paths
-        moduleContentRoots = Arrays.stream(projectRootManager.getContentRoots())
-            .map(VirtualFile::getCanonicalPath)
-            .sorted(Comparator.reverseOrder())
-            .collect(Collectors.toList());
-
-        // sourceroots Eg: .../main/java and .../main/resources
-        moduleSourceRoots = projectRootManager.getModuleSourceRoots(JavaModuleSourceRootTypes.PRODUCTION).stream()
-            .map(VirtualFile::getCanonicalPath)
-            .sorted(Comparator.reverseOrder())
-            .collect(Collectors.toList());
-
-        // laod modules
-        modules = ModuleManager.getInstance(project).getModules();
-
-        addKwownDefaults();
-
-        // load properties
-        Properties customProperties = getProjectProperties(project);
-        customProperties.forEach((k,v) -> {
-            final String key = k.toString();
-
-            // path behavior
-            if (startsWith(key, COMPILE_MAPPING_PATH_KEY) && contains(key, COLON)) {
-                String extension = replaceOnce(key, COMPILE_MAPPING_PATH_KEY, EMPTY);
-                List<String> pathMappings = Arrays.asList(split(v.toString().replaceAll("\\s",""), COMMA));
-
-                Map<String, String> pathMappingsMap = pathMappings.stream()
-                    .map(m -> split(m, COLON))
-                    .collect(Collectors.toMap(m -> ensureSeparators(m[0]), m -> ensureSeparators(m[1]), (m1, m2) -> m2));
-
-                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
-                extensionBehavior.addPathMappings(pathMappingsMap);
-            }
-
-            // extension behavior
-            if (startsWith(key, COMPILE_MAPPING_EXTENSION_KEY)) {
-                String extension = replaceOnce(key, COMPILE_MAPPING_EXTENSION_KEY, EMPTY);
-                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
-                extensionBehavior.setOutputExtension(v.toString());
-            }
-
-            // subclasses behavior
-            if (startsWith(key, COMPILE_MAPPING_SUBCLASSES_KEY)) {
-                String extension = replaceOnce(key, COMPILE_MAPPING_SUBCLASSES_KEY, EMPTY);
-                CompiledBehavior extensionBehavior = getOrCreateExtensionBehavior(extension);
-                extensionBehavior.setSubclassesSeparator(v.toString());
-            }
-        });
-
-        // custom source deploy output path
-        sourceDeployOutput = customProperties.getProperty(DEPLOY_SOURCE_OUTPUT_KEY, DEFAULT_DEPLOY_SOURCE_OUTPUT);
-
-        // path mappings
-        DEFAULT_SOURCE_ROOTS.forEach(root -> customDeployMappings.put(root, sourceDeployOutput));
-        DEFAULT_WEB_RESOURCES.forEach(root -> customDeployMappings.put(root, separator));
-
-        FileHelper.populateMapFromProperties(customProperties, DEPLOY_PATH_MAPPINGS_KEY, customDeployMappings,
-            FileHelper::ensureSeparators);
-
-        // deploy strategy
-        String strategy = customProperties.getProperty(DEPLOY_PATH_STRATEGY_KEY);
-        deployPathStrategy = isNotEmpty(strategy)
-            ? DeployPathStrategy.valueOf(strategy)
-            : defaultDeployPathStrategy;
-
-        // deploy prefix
-        deployPathPrefix = forceNotStartingWithSeparator(forceEndingWithSeparator(
-            customProperties.getProperty(DEPLOY_PATH_PREFIX_KEY), true));
-
-        // automatic replacement of sources when deploying
-        String autoSourceToDeployOutputMappingSetting = customProperties.getProperty(DEPLOY_AUTO_SOURCE_TO_DEPLOY_MAPPING_KEY);
-        autoSouceToDeployOutputMapping = isNotEmpty(autoSourceToDeployOutputMappingSetting)
-            ? BooleanUtils.toBoolean(autoSourceToDeployOutputMappingSetting)
-            : true;
+    @NotNull
+    public static OutputFileServiceImpl create(@Nullable String projectBasePath, @NotNull List<String> moduleContentRoots,
+        @NotNull List<String> moduleSourceRoots, @NotNull Module[] modules, @NotNull Properties customProperties) {
+        return new OutputFileServiceImpl(projectBasePath, moduleContentRoots, moduleSourceRoots, modules,
+            customProperties);
     }
 
+    private OutputFileServiceImpl(@Nullable String projectBasePath, @NotNull List<String> moduleContentRoots,
+        @NotNull List<String> moduleSourceRoots, @NotNull Module[] modules, @NotNull Properties customProperties) {
 
-    private void addKwownDefaults() {
-        boolean isHybris = new File(project.getBasePath(), "/bin/custom").exists();
-        if (isHybris) {
-            customDeployMappings.put("/src/", "/webroot/WEB-INF/classes/");
-            defaultDeployPathStrategy = DeployPathStrategy.AFTER_PROJECT_ROOT;
-        }
+        this.modules = modules;
+        this.deployPathResolver = DeployPathResolver.create(projectBasePath, moduleContentRoots, moduleSourceRoots,
+            customProperties);
+        this.compiledPathResolver = new CompiledPathResolver(deployPathResolver, customProperties);
+        this.planner = new PatchPlanner(deployPathResolver, compiledPathResolver);
     }
 
 
-
     /**
      * Get compiled file or original
      * @param module
@@ -221,50 +97,17 @@ public class OutputFileServiceImpl implements OutputFileService {
     @NotNull
     @Override
     public VirtualFile getCompiledOrOriginalFile(@Nullable Module module, @NotNull VirtualFile originalFile) {
-        module = getModuleOrSearch(module, originalFile);
-
-        // search behavior for specific extension
-        final String originalExtension = originalFile.getExtension();
-        final CompiledBehavior extensionBehavior = getExtensionBehavior(originalExtension);
-        if (extensionBehavior == null) {
-            return originalFile;
-        }
-        final String originalPath = originalFile.getCanonicalPath();
-        String outputPath = null;
-
-        // try custom path conversion
-        Optional<Map.Entry<String, String>> pathToReplace = extensionBehavior.getPathMappings().entrySet().stream()
-            .filter(m -> contains(originalPath, m.getKey()))
-            .findFirst();
-
-        if (pathToReplace.isPresent()) {
-            outputPath = replaceOnce(originalPath, pathToReplace.get().getKey(), pathToReplace.get().getValue());
-        }
-
-        // try automatic module path conversion
-        if (isEmpty(outputPath)) {
-            outputPath = automaticCompilePathConversion(module, originalFile);
-        }
-
-        // no conversion
-        if (isEmpty(outputPath)) {
-            outputPath = originalPath;
-        }
-
-        // replace extension
-        final String outputExtension = extensionBehavior.getOutputExtension();
-        if (isNotEmpty(outputExtension)) {
-            outputPath = replaceOnce(outputPath, DOT + originalExtension, DOT + outputExtension);
-        }
+        ProgressManager.checkCanceled();
+        final SegmentPath outputPath = compiledPathResolver.getOutputPath(
+            SegmentPath.of(originalFile.getCanonicalPath()), () -> getModuleOutputPath(module, originalFile));
 
         // return original
-        if(StringUtils.equals(outputPath, originalPath))
-        {
+        if (outputPath == null) {
             return originalFile;
         }
 
         // return derived file
-        final VirtualFile outputFile = originalFile.getFileSystem().findFileByPath(outputPath);
+        final VirtualFile outputFile = originalFile.getFileSystem().findFileByPath(outputPath.toString());
         if (outputFile != null && outputFile.exists()) {
             return outputFile;
         }
@@ -273,23 +116,22 @@ public class OutputFileServiceImpl implements OutputFileService {
         throw new IllegalArgumentException("Unable to find compiled file: " + outputPath);
     }
 
+    /**
+     * Get compiled file and subclasses with their keys, with the shared planner
+     * @param module module of the file, searched if null
+     * @param originalFile
+     * @param deployedProjectPath key prefix of the deployed project with trailing separator
+     * @param metrics
+     * @return
+     * @throws IllegalArgumentException if the compiled file is missing or the file is not deployable
+     */
     @NotNull
     @Override
-    public List<VirtualFile> findSubclasses(VirtualFile originalFile, VirtualFile outputFile) {
-
-        // find subclasses
-        final CompiledBehavior extensionBehavior = getExtensionBehavior(originalFile.getExtension());
-        if (extensionBehavior == null) {
-            return Collections.emptyList();
-        }
-
-        final String subclassesSeparator = extensionBehavior.getSubclassesSeparator();
-        if (isNotEmpty(subclassesSeparator)) {
-            return Stream.of(outputFile.getParent().getChildren())
-                .filter(f -> f.getName().startsWith(outputFile.getNameWithoutExtension() + subclassesSeparator))
-                .collect(Collectors.toList());
-        }
-        return Collections.emptyList();
+    public List<UploadItem> planUpload(@Nullable Module module, @NotNull VirtualFile originalFile,
+        @NotNull String deployedProjectPath, @NotNull UploadMetrics metrics) throws IllegalArgumentException {
+        ProgressManager.checkCanceled();
+        return planner.plan(originalFile.getCanonicalPath(), () -> getModuleOutputPath(module, originalFile),
+            deployedProjectPath, metrics);
     }
 
 
@@ -303,34 +145,21 @@ public class OutputFileServiceImpl implements OutputFileService {
         return module;
     }
 
+    /**
+     * Output folder of the module of the file, searched if not provided
+     */
     @Nullable
-    private String automaticCompilePathConversion(@Nullable Module module, @NotNull VirtualFile originalFile) {
-
+    private String getModuleOutputPath(@Nullable Module module, @NotNull VirtualFile originalFile) {
+        module = getModuleOrSearch(module, originalFile);
         if (module == null) {
             return null;
         }
-
-        // get output path from module
-        final String moduleOutputPath;
         try {
-            moduleOutputPath = CompilerPaths.getModuleOutputPath(module, false );
+            return CompilerPaths.getModuleOutputPath(module, false );
 
         } catch (Exception e) {
             return null;
         }
-
-        if (isNotEmpty(moduleOutputPath)) {
-
-            // get matching source path
-            final String originalPath = originalFile.getCanonicalPath();
-            Optional<String> sourceRoot = getModuleSourceRoot(originalPath);
-            if (sourceRoot.isPresent()) {
-
-                String pathFromSourceFolder = replaceOnce(originalPath, sourceRoot.get(), EMPTY);
-                return moduleOutputPath + pathFromSourceFolder;
-            }
-        }
-        return null;
     }
 
     /**
@@ -342,153 +171,61 @@ public class OutputFileServiceImpl implements OutputFileService {
     @Override
     @NotNull
     public String getProjectRelativeDeployPath(@NotNull VirtualFile originalFile) throws IllegalArgumentException {
-        return deployPathPrefix + getProjectRelativeDeployPathNoPrefix(originalFile);
+        ProgressManager.checkCanceled();
+        return deployPathResolver.getProjectRelativeDeployPath(originalFile.getCanonicalPath());
     }
 
 
-    @NotNull
-    private String getProjectRelativeDeployPathNoPrefix(@NotNull VirtualFile originalFile) throws IllegalArgumentException {
-
-        String originalPath = substringBeforeLast(originalFile.getCanonicalPath(), separator);
-        if (isEmpty(originalPath)) {
-            throw new IllegalArgumentException("Could not get deploy originalPath");
-        }
-
-        Optional<String> contentRoot = getModuleContentRoot(originalPath);
-        Optional<String> sourceRoot = getModuleSourceRoot(originalPath);
-
-        // search custom source - output mapping
-        String processedPath = originalPath;
-        String srcPath = null;
-        String deployPath;
-
-        Optional<Map.Entry<String, String>> customDeployMapping = customDeployMappings.entrySet().stream()
-            .filter(e -> forceEndingWithSeparator(originalPath, true).contains(e.getKey()))
-            .findFirst();
-        if (customDeployMapping.isPresent()) {
-
-            // custom new path
-            srcPath = StringUtils.substringBeforeLast(customDeployMapping.get().getKey(), separator);
-            deployPath = StringUtils.substringBeforeLast(customDeployMapping.get().getValue(), separator);
-            processedPath = replaceOnce(originalPath, srcPath, deployPath);
-        }
-
-        // deploy path before custom mappings
-        if (deployPathStrategy == DeployPathStrategy.FROM_SOURCES && customDeployMapping.isPresent()) {
-            if (customDeployMapping.isPresent()) {
-                return processedPath.substring(originalPath.indexOf(srcPath) + 1);
+    /**
+     * Check if file has a path inside deployed project
+     * @param originalFile
+     * @return
+     */
+    @Override
+    public boolean isDeployable(@NotNull VirtualFile originalFile) {
+        try {
+            getProjectRelativeDeployPath(originalFile);
+            return true;
 
-            } else {
-                throw new IllegalArgumentException("No custom mapping found for " +originalPath);
-            }
+        } catch (IllegalArgumentException e) {
+            return false;
         }
+    }
 
-        // auto source to output transformation
-        if (autoSouceToDeployOutputMapping && contentRoot.isPresent() && sourceRoot.isPresent()) {
-            String sourceFolders = ensureSeparators(replaceOnce(sourceRoot.get(), contentRoot.get(), EMPTY));
-            processedPath = replaceOnce(processedPath, sourceFolders, sourceDeployOutput);
-        }
 
-        if (deployPathStrategy == DeployPathStrategy.FROM_SOURCES) {
-            if (contentRoot.isPresent() && sourceRoot.isPresent() && sourceRoot.get().length() > contentRoot.get().length()) {
-                String beforeSourceFolders = sourceRoot.get().substring(0, contentRoot.get().length());
-                return replaceOnce(processedPath, beforeSourceFolders + separator, EMPTY);
-            } else {
-                throw new IllegalArgumentException("No sourceRoot found for " + originalPath);
-            }
-        }
+    /**
+     * Get the deploy path of the module output folder: the one of its production source roots
+     * @param module
+     * @return path relative to deployed project
+     * @throws IllegalArgumentException if no source root is deployed or they are deployed to different paths
+     */
+    @Override
+    @NotNull
+    public String getOutputDeployPath(@NotNull Module module) throws IllegalArgumentException {
+        final Set<String> deployPaths = Stream.of(ModuleRootManager.getInstance(module)
+                .getSourceRoots(JavaModuleSourceRootTypes.PRODUCTION))
+            .map(root -> {
+                try {
+                    return deployPathResolver.getFolderDeployPath(root.getCanonicalPath());
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            })
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        // deploy path after content root - keep modules name
-        if (deployPathStrategy == DeployPathStrategy.FROM_MODULE_NAME) {
-            if (contentRoot.isPresent()) {
-                String beforeModuleName = substringBeforeLast(contentRoot.get(), separator);
-                return replaceOnce(processedPath, beforeModuleName + separator, EMPTY);
-            } else {
-                throw new IllegalArgumentException("No sourceRoot found for " + originalPath);
-            }
+        if (deployPaths.isEmpty()) {
+            throw new IllegalArgumentException("No deployed source root in module " + module.getName());
         }
-
-        // deploy path after project root
-        if (deployPathStrategy == DeployPathStrategy.AFTER_PROJECT_ROOT) {
-            return substringAfter(processedPath, project.getBasePath() + separator);
+        if (deployPaths.size() > 1) {
+            throw new IllegalArgumentException("Source roots of module " + module.getName()
+                + " are deployed to different paths: " + String.join(", ", deployPaths));
         }
-
-        throw new IllegalArgumentException("Could not found base path strategy for: " + originalPath);
+        return deployPaths.iterator().next();
     }
 
 
     private Optional<Module> getContainingModule(@NotNull VirtualFile originalFile) {
         return Stream.of(modules).filter(m -> m.getModuleScope().accept(originalFile)).findFirst();
     }
-
-    private Optional<String> getModuleContentRoot(String originalPath)
-    {
-        return moduleContentRoots.stream().filter(r -> startsWith(originalPath, r)).findFirst();
-    }
-
-    private Optional<String> getModuleSourceRoot(String originalPath)
-    {
-        return moduleSourceRoots.stream().filter(s -> startsWith(originalPath, s)).findFirst();
-    }
-
-    @Nullable
-    private CompiledBehavior getExtensionBehavior(@Nullable String key) {
-        return compiledBehaviors.get(key);
-    }
-
-    @NotNull
-    private CompiledBehavior getOrCreateExtensionBehavior(@NotNull String key) {
-        return compiledBehaviors.computeIfAbsent(key, CompiledBehavior::new);
-    }
-
-    private static class CompiledBehavior {
-
-        private String outputExtension;
-
-        private final Map<String, String> pathMappings;
-
-        private String subclassesSeparator;
-
-
-        CompiledBehavior(String outputExtension)
-        {
-            this(outputExtension, null);
-        }
-
-        CompiledBehavior(String outputExtension, String subclassesSeparator) {
-            this.outputExtension = outputExtension;
-            this.pathMappings = Maps.newLinkedHashMap();
-            this.subclassesSeparator = subclassesSeparator;
-        }
-
-        String getOutputExtension()
-        {
-            return outputExtension;
-        }
-
-        void setOutputExtension(String outputExtension)
-        {
-            this.outputExtension = outputExtension;
-        }
-
-        Map<String, String> getPathMappings()
-        {
-            return pathMappings;
-        }
-
-        void addPathMappings(Map<String, String> pathMappings)
-        {
-            this.pathMappings.putAll(pathMappings);
-        }
-
-        String getSubclassesSeparator()
-        {
-            return subclassesSeparator;
-        }
-
-        void setSubclassesSeparator(String subclassesSeparator)
-        {
-            this.subclassesSeparator = subclassesSeparator;
-        }
-    }
 }
@@ -0,0 +1,143 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.Lists;
+import com.openmind.intellij.bean.RemoteObject;
+import com.openmind.intellij.bean.RemotePartition;
+import com.openmind.intellij.bean.UploadMetrics;
+
+
+/**
+ * List big trees with concurrent requests. The first levels are listed with the '/' delimiter to discover
+ * sub-prefixes, then each sub-prefix at the last level is listed with plain pagination in its own task.
+ * Partitions are passed to the consumer as soon as they are listed
+ */
+public class ParallelLister
+{
+    private static final String DELIMITER = "/";
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final int threads;
+    private final BooleanSupplier canceled;
+    private final UploadMetrics metrics;
+
+    /**
+     * @param s3Client
+     * @param bucketName
+     * @param threads
+     * @param canceled
+     * @param metrics operation recording the requests, if any
+     */
+    public ParallelLister(@NotNull AmazonS3 s3Client, @NotNull String bucketName, int threads,
+        @NotNull BooleanSupplier canceled, @Nullable UploadMetrics metrics) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.threads = threads;
+        this.canceled = canceled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * List prefix and wait for completion
+     * @param prefix
+     * @param depth levels listed by sub-prefix
+     * @param consumer called from any thread
+     * @throws CancellationException if canceled
+     */
+    public void list(@NotNull String prefix, int depth, @NotNull Consumer<RemotePartition> consumer)
+        throws CancellationException {
+        list(Collections.singletonMap(prefix, depth), p -> false, consumer);
+    }
+
+    /**
+     * List prefixes concurrently and wait for completion
+     * @param prefixDepths prefixes to list and their depth
+     * @param skipped sub-prefixes not to list
+     * @param consumer called from any thread
+     * @throws CancellationException if canceled
+     */
+    public void list(@NotNull Map<String, Integer> prefixDepths, @NotNull Predicate<String> skipped,
+        @NotNull Consumer<RemotePartition> consumer) throws CancellationException {
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(prefixDepths.entrySet().stream()
+                        .map(e -> new ListPrefixTask(e.getKey(), e.getValue(), skipped, consumer))
+                        .collect(Collectors.toList()));
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private class ListPrefixTask extends RecursiveAction
+    {
+        private final String prefix;
+        private final int depth;
+        private final Predicate<String> skipped;
+        private final Consumer<RemotePartition> consumer;
+
+        ListPrefixTask(String prefix, int depth, Predicate<String> skipped, Consumer<RemotePartition> consumer) {
+            this.prefix = prefix;
+            this.depth = depth;
+            this.skipped = skipped;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            final ListObjectsV2Request request = S3RequestMetrics.tag(new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix), metrics);
+            if (depth > 0) {
+                request.setDelimiter(DELIMITER);
+            }
+
+            final long listedAt = System.currentTimeMillis();
+            final List<RemoteObject> objects = Lists.newArrayList();
+            final List<String> subPrefixes = Lists.newArrayList();
+            ListObjectsV2Result listing;
+            do {
+                if (canceled.getAsBoolean()) {
+                    throw new CancellationException("Listing canceled");
+                }
+                listing = s3Client.listObjectsV2(request);
+                for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                    objects.add(new RemoteObject(summary.getKey(), summary.getETag(), summary.getSize(),
+                        summary.getLastModified() != null ? summary.getLastModified().getTime() : 0));
+                }
+                subPrefixes.addAll(listing.getCommonPrefixes());
+                request.setContinuationToken(listing.getNextContinuationToken());
+            } while (listing.isTruncated());
+
+            consumer.accept(new RemotePartition(prefix, depth, objects, subPrefixes, listedAt));
+
+            invokeAll(subPrefixes.stream()
+                .filter(p -> !skipped.test(p))
+                .map(p -> new ListPrefixTask(p, depth - 1, skipped, consumer))
+                .collect(Collectors.toList()));
+        }
+    }
+}
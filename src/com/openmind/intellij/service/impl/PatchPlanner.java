@@ -0,0 +1,153 @@
+package com.openmind.intellij.service.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.openmind.intellij.bean.ProjectLayout;
+import com.openmind.intellij.bean.SegmentPath;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Stage;
+import com.openmind.intellij.bean.UploadTrace;
+import com.openmind.intellij.helper.PathHelper;
+
+
+/**
+ * Files to upload for a source file: compiled file and subclasses, with their keys.
+ * Independent from the IDE, shared by the plugin, which only finds the module output folder, and the CLI,
+ * which reads it from a described project layout
+ */
+public class PatchPlanner
+{
+    private final ProjectLayout layout;
+    private final DeployPathResolver deployPathResolver;
+    private final CompiledPathResolver compiledPathResolver;
+
+    /**
+     * Plan with the resolvers of a project
+     * @param deployPathResolver
+     * @param compiledPathResolver
+     */
+    public PatchPlanner(@NotNull DeployPathResolver deployPathResolver,
+        @NotNull CompiledPathResolver compiledPathResolver) {
+        this.layout = null;
+        this.deployPathResolver = deployPathResolver;
+        this.compiledPathResolver = compiledPathResolver;
+    }
+
+    /**
+     * Plan on a described project layout, without the IDE
+     * @param layout
+     * @param customProperties content of s3upload.properties
+     */
+    public PatchPlanner(@NotNull ProjectLayout layout, @NotNull Properties customProperties) {
+        this.layout = layout;
+        this.deployPathResolver = DeployPathResolver.create(layout.getBasePath(), layout.getContentRoots(),
+            layout.getSourceRoots(), customProperties);
+        this.compiledPathResolver = new CompiledPathResolver(deployPathResolver, customProperties);
+    }
+
+    /**
+     * Get compiled file and subclasses with their keys, module output folders are read from the layout
+     * @param sourceFile
+     * @param deployedProjectPath key prefix of the deployed project with trailing separator, eg: versions/1.0/patch/
+     * @param metrics
+     * @return
+     * @throws IllegalArgumentException if the compiled file is missing or the file is not deployable
+     */
+    @NotNull
+    public List<UploadItem> plan(@NotNull File sourceFile, @NotNull String deployedProjectPath,
+        @NotNull UploadMetrics metrics) throws IllegalArgumentException {
+        final String sourcePath = sourceFile.getAbsoluteFile().toPath().normalize().toString()
+            .replace(File.separatorChar, SegmentPath.SEPARATOR);
+        return plan(sourcePath, () -> getLayoutOutputPath(sourcePath), deployedProjectPath, metrics);
+    }
+
+    /**
+     * Get compiled file and subclasses with their keys
+     * @param sourcePath canonical path of the source file
+     * @param moduleOutputPath output folder of the module of the file, read only if needed. It can supply null
+     * @param deployedProjectPath key prefix of the deployed project with trailing separator
+     * @param metrics
+     * @return
+     * @throws IllegalArgumentException if the compiled file is missing or the file is not deployable
+     */
+    @NotNull
+    public List<UploadItem> plan(@NotNull String sourcePath, @NotNull Supplier<String> moduleOutputPath,
+        @NotNull String deployedProjectPath, @NotNull UploadMetrics metrics) throws IllegalArgumentException {
+
+        final UploadTrace trace = metrics.getTrace();
+        final SegmentPath originalPath = SegmentPath.of(sourcePath);
+        UploadTrace.Span span = trace.start("outputFile");
+        long startTime = System.nanoTime();
+        final SegmentPath outputPath = compiledPathResolver.getOutputPath(originalPath, moduleOutputPath);
+        final File outputFile = new File(outputPath != null ? outputPath.toString() : sourcePath);
+        final boolean outputExists = outputPath == null || outputFile.isFile();
+        metrics.record(Stage.OUTPUT_FILE, System.nanoTime() - startTime);
+        span.end();
+        if (!outputExists) {
+            throw new IllegalArgumentException("Unable to find compiled file: " + outputPath);
+        }
+
+        span = trace.start("deployPath");
+        startTime = System.nanoTime();
+        final String fullS3DeployPath = deployedProjectPath
+            + deployPathResolver.getProjectRelativeDeployPath(sourcePath);
+        metrics.record(Stage.DEPLOY_PATH, System.nanoTime() - startTime);
+        span.end();
+
+        span = trace.start("subclasses");
+        startTime = System.nanoTime();
+        final List<UploadItem> items = new ArrayList<>();
+        items.add(new UploadItem(outputFile, PathHelper.toS3Key(fullS3DeployPath, outputFile.getName()), sourcePath));
+        final String subclassesPrefix = compiledPathResolver.getSubclassesPrefix(
+            getExtension(originalPath.getName()), getNameWithoutExtension(outputFile.getName()));
+        final File[] subclasses = subclassesPrefix != null && outputFile.getParentFile() != null
+            ? outputFile.getParentFile().listFiles((folder, name) -> name.startsWith(subclassesPrefix))
+            : null;
+        if (subclasses != null) {
+            for (File subclass : subclasses) {
+                items.add(new UploadItem(subclass, PathHelper.toS3Key(fullS3DeployPath, subclass.getName()),
+                    sourcePath));
+            }
+        }
+        metrics.record(Stage.SUBCLASSES, System.nanoTime() - startTime);
+        if (trace.isEnabled()) {
+            span.arg("files", items.size() - 1);
+        }
+        span.end();
+        return items;
+    }
+
+    @Nullable
+    private static String getExtension(@NotNull String name) {
+        final int extensionIndex = name.lastIndexOf('.');
+        return extensionIndex >= 0 ? name.substring(extensionIndex + 1) : null;
+    }
+
+    @NotNull
+    private static String getNameWithoutExtension(@NotNull String name) {
+        final int extensionIndex = name.lastIndexOf('.');
+        return extensionIndex >= 0 ? name.substring(0, extensionIndex) : name;
+    }
+
+    /**
+     * Output folder of the module of a source in the layout
+     * @param sourcePath
+     * @return null without a layout, or if the source is not in a module
+     */
+    @Nullable
+    private String getLayoutOutputPath(@NotNull String sourcePath) {
+        if (layout == null) {
+            return null;
+        }
+        final SegmentPath contentRoot = deployPathResolver.getContentRoot(SegmentPath.of(sourcePath));
+        return contentRoot != null ? layout.getOutputFolder(contentRoot.toString()) : null;
+    }
+}
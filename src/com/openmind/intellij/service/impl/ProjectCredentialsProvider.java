@@ -0,0 +1,104 @@
+package com.openmind.intellij.service.impl;
+
+import static org.apache.commons.lang.StringUtils.isEmpty;
+import static org.apache.commons.lang.StringUtils.isNotEmpty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.openmind.intellij.exception.NotConfiguredPluginException;
+
+
+/**
+ * Credentials of a project, read once from its environment variables. Can be used by any number of clients
+ * and threads, nothing global is changed.
+ * Sometimes Intellij is not finding system vars: then they are read from a shell in background
+ */
+public class ProjectCredentialsProvider implements AWSCredentialsProvider
+{
+    private static final long SHELL_TIMEOUT_SECONDS = 10;
+
+    private final String accessKeyVariable;
+    private final String secretKeyVariable;
+    private volatile CompletableFuture<AWSCredentials> credentials;
+
+    /**
+     * @param accessKeyVariable name of environment variable with the access key
+     * @param secretKeyVariable name of environment variable with the secret key
+     */
+    public ProjectCredentialsProvider(@NotNull String accessKeyVariable, @NotNull String secretKeyVariable) {
+        this.accessKeyVariable = accessKeyVariable;
+        this.secretKeyVariable = secretKeyVariable;
+        refresh();
+    }
+
+    /**
+     * Get credentials, waiting for the shell if still reading them
+     * @return
+     * @throws NotConfiguredPluginException if variables are not set
+     */
+    @Override
+    public AWSCredentials getCredentials() throws NotConfiguredPluginException {
+        try {
+            return credentials.get(SHELL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Reading credentials interrupted");
+
+        } catch (ExecutionException | TimeoutException e) {
+            throw new NotConfiguredPluginException("System Variables " + accessKeyVariable + " and/or "
+                + secretKeyVariable + " not found");
+        }
+    }
+
+    /**
+     * Read variables again
+     */
+    @Override
+    public void refresh() {
+        final String accessKey = System.getenv(accessKeyVariable);
+        final String secretKey = System.getenv(secretKeyVariable);
+        if (isNotEmpty(accessKey) && isNotEmpty(secretKey)) {
+            credentials = CompletableFuture.completedFuture(new BasicAWSCredentials(accessKey, secretKey));
+        } else {
+            credentials = CompletableFuture.supplyAsync(this::readFromShell, AppExecutorUtil.getAppExecutorService());
+        }
+    }
+
+    @NotNull
+    private AWSCredentials readFromShell() {
+        final String[] cmdline = { "sh", "-c", "echo $" + accessKeyVariable + "; echo $" + secretKeyVariable };
+        try {
+            final Process process = Runtime.getRuntime().exec(cmdline);
+            try (BufferedReader stdInput = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                final String accessKey = stdInput.readLine();
+                final String secretKey = stdInput.readLine();
+                process.waitFor(SHELL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (isEmpty(accessKey) || isEmpty(secretKey)) {
+                    throw new IllegalArgumentException("Variables not set in shell");
+                }
+                return new BasicAWSCredentials(accessKey.trim(), secretKey.trim());
+            }
+
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read variables from shell: " + e.getMessage(), e);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Reading credentials interrupted");
+        }
+    }
+}
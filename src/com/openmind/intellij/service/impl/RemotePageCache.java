@@ -0,0 +1,135 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.openmind.intellij.bean.RemotePage;
+
+
+/**
+ * Pages of listings by folder, kept for a while. Pages being loaded are shared, so a prefetched page
+ * is not requested twice. The oldest pages are dropped when full
+ */
+public class RemotePageCache
+{
+    private static final String TOKEN_SEPARATOR = "\n";
+
+    private final long ttlMillis;
+    private final Executor executor;
+    private final PageLoader loader;
+    private final Map<String, CachedPage> pages;
+
+    @FunctionalInterface
+    public interface PageLoader {
+        @NotNull
+        RemotePage load(@NotNull String prefix, @Nullable String continuationToken) throws Exception;
+    }
+
+    public RemotePageCache(long ttlMillis, int maxPages, @NotNull Executor executor, @NotNull PageLoader loader) {
+        this.ttlMillis = ttlMillis;
+        this.executor = executor;
+        this.loader = loader;
+        this.pages = new LinkedHashMap<String, CachedPage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Get page, waiting for it if not cached
+     * @param prefix
+     * @param continuationToken null for the first page
+     * @return
+     * @throws IllegalArgumentException if listing fails
+     */
+    @NotNull
+    public RemotePage get(@NotNull String prefix, @Nullable String continuationToken) throws IllegalArgumentException {
+        final CompletableFuture<RemotePage> page = load(prefix, continuationToken);
+        try {
+            return page.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Listing interrupted");
+
+        } catch (ExecutionException e) {
+            remove(prefix, continuationToken, page);
+            throw new IllegalArgumentException("Error listing " + prefix + ": " + e.getCause().getMessage(),
+                e.getCause());
+        }
+    }
+
+    /**
+     * Start loading page in background, if not cached
+     * @param prefix
+     * @param continuationToken
+     */
+    public void prefetch(@NotNull String prefix, @Nullable String continuationToken) {
+        load(prefix, continuationToken);
+    }
+
+    /**
+     * Drop all pages of a prefix and of its sub-folders, eg: after an upload
+     * @param prefix folder with trailing separator
+     */
+    public synchronized void invalidate(@NotNull String prefix) {
+        pages.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+    }
+
+    @NotNull
+    private synchronized CompletableFuture<RemotePage> load(@NotNull String prefix, @Nullable String continuationToken) {
+        final String cacheKey = toCacheKey(prefix, continuationToken);
+        final CachedPage cached = pages.get(cacheKey);
+        if (cached != null && System.currentTimeMillis() - cached.createdAt < ttlMillis) {
+            return cached.page;
+        }
+        final CompletableFuture<RemotePage> page = CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(prefix, continuationToken);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }, executor);
+        pages.put(cacheKey, new CachedPage(page));
+        return page;
+    }
+
+    private synchronized void remove(@NotNull String prefix, @Nullable String continuationToken,
+        @NotNull CompletableFuture<RemotePage> page) {
+        final String cacheKey = toCacheKey(prefix, continuationToken);
+        final CachedPage cached = pages.get(cacheKey);
+        if (cached != null && cached.page == page) {
+            pages.remove(cacheKey);
+        }
+    }
+
+    @NotNull
+    private static String toCacheKey(@NotNull String prefix, @Nullable String continuationToken) {
+        return prefix + TOKEN_SEPARATOR + (continuationToken != null ? continuationToken : "");
+    }
+
+    private static class CachedPage
+    {
+        private final CompletableFuture<RemotePage> page;
+        private final long createdAt = System.currentTimeMillis();
+
+        CachedPage(CompletableFuture<RemotePage> page) {
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.ide.projectView.ProjectView;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.util.Alarm;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.service.RemoteStatusService;
+
+
+/**
+ * Deploy status of source files for the selected upload config, used by decorations.
+ * Statuses are computed in background and read with a map lookup, so decorations never wait for I/O.
+ * The status of a source is dropped when the source or one of its compiled files changes
+ */
+public class RemoteStatusServiceImpl implements RemoteStatusService, Disposable {
+
+    private static final int REPAINT_DELAY_MILLIS = 500;
+
+    private final Project project;
+    private final Alarm repaintAlarm;
+    private volatile UploadConfig uploadConfig;
+    // the version of a config changes while the IDE is open
+    private volatile String comparedVersion;
+    private volatile Map<VirtualFile, DriftEntry.Status> statuses = new ConcurrentHashMap<>();
+
+    // compared file path to its source
+    private volatile Map<String, VirtualFile> comparedSources = new ConcurrentHashMap<>();
+
+    public RemoteStatusServiceImpl(@NotNull Project project) {
+        this.project = project;
+        this.repaintAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void before(@NotNull List<? extends VFileEvent> events) {
+            }
+
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                invalidate(events);
+            }
+        });
+    }
+
+    /**
+     * Config whose status is shown
+     */
+    @Nullable
+    @Override
+    public UploadConfig getUploadConfig() {
+        return uploadConfig;
+    }
+
+    /**
+     * Status of source file
+     * @param file
+     * @return null if unknown
+     */
+    @Nullable
+    @Override
+    public DriftEntry.Status getStatus(@NotNull VirtualFile file) {
+        return statuses.get(file);
+    }
+
+    /**
+     * Replace all statuses. The status of a source is the worst one of its compiled files
+     * @param uploadConfig
+     * @param entries
+     */
+    @Override
+    public void update(@NotNull UploadConfig uploadConfig, @NotNull Collection<DriftEntry> entries) {
+        final Map<VirtualFile, DriftEntry.Status> newStatuses = new ConcurrentHashMap<>();
+        final Map<String, VirtualFile> newComparedSources = new ConcurrentHashMap<>();
+        final LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+        for (DriftEntry entry : entries) {
+            if (entry.getSourcePath() == null) {
+                continue;
+            }
+            final VirtualFile source = fileSystem.findFileByPath(entry.getSourcePath());
+            if (source != null) {
+                newStatuses.merge(source, entry.getStatus(), (s1, s2) -> s1.compareTo(s2) <= 0 ? s1 : s2);
+                if (entry.getLocalFile() != null) {
+                    newComparedSources.put(FileUtil.toSystemIndependentName(entry.getLocalFile().getPath()), source);
+                }
+            }
+        }
+        this.uploadConfig = uploadConfig;
+        this.comparedVersion = uploadConfig.getVersion();
+        this.statuses = newStatuses;
+        this.comparedSources = newComparedSources;
+        scheduleRepaint();
+    }
+
+    /**
+     * Mark source of uploaded file as identical, without reading S3, if uploaded to the compared config and version
+     * @param uploadConfig
+     * @param item
+     */
+    @Override
+    public void uploaded(@NotNull UploadConfig uploadConfig, @NotNull UploadItem item) {
+        final UploadConfig shownUploadConfig = this.uploadConfig;
+        if (shownUploadConfig == null || item.getSourcePath() == null
+            || !StringUtils.equals(shownUploadConfig.getFileName(), uploadConfig.getFileName())
+            || !StringUtils.equals(comparedVersion, uploadConfig.getVersion())) {
+            return;
+        }
+        final VirtualFile source = LocalFileSystem.getInstance().findFileByPath(item.getSourcePath());
+        if (source == null) {
+            return;
+        }
+        comparedSources.put(FileUtil.toSystemIndependentName(item.getFile().getPath()), source);
+        if (statuses.put(source, DriftEntry.Status.IDENTICAL) != DriftEntry.Status.IDENTICAL) {
+            scheduleRepaint();
+        }
+    }
+
+    /**
+     * Drop statuses of changed sources, and of sources whose compiled files changed
+     * @param events
+     */
+    private void invalidate(@NotNull List<? extends VFileEvent> events) {
+        final Map<VirtualFile, DriftEntry.Status> currentStatuses = statuses;
+        if (currentStatuses.isEmpty()) {
+            return;
+        }
+        boolean changed = false;
+        for (VFileEvent event : events) {
+            final VirtualFile source = comparedSources.get(event.getPath());
+            if (source != null) {
+                changed |= currentStatuses.remove(source) != null;
+            }
+            if (event.getFile() != null) {
+                changed |= currentStatuses.remove(event.getFile()) != null;
+            }
+        }
+        if (changed) {
+            scheduleRepaint();
+        }
+    }
+
+    /**
+     * Repaint project view and editor tabs once for many updates
+     */
+    private void scheduleRepaint() {
+        repaintAlarm.cancelAllRequests();
+        repaintAlarm.addRequest(() -> {
+            if (project.isDisposed()) {
+                return;
+            }
+            ProjectView.getInstance(project).refresh();
+            final FileEditorManagerEx fileEditorManager = FileEditorManagerEx.getInstanceEx(project);
+            for (VirtualFile file : FileEditorManager.getInstance(project).getOpenFiles()) {
+                fileEditorManager.updateFilePresentation(file);
+            }
+        }, REPAINT_DELAY_MILLIS);
+    }
+
+    @Override
+    public void dispose() {
+        statuses = new ConcurrentHashMap<>();
+        comparedSources = new ConcurrentHashMap<>();
+    }
+}
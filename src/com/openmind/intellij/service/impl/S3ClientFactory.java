@@ -0,0 +1,92 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.Properties;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+
+
+/**
+ * Build S3 clients from the aws.* options of s3upload.properties. Independent from the IDE,
+ * so the plugin and the command line connect the same way
+ */
+public class S3ClientFactory
+{
+    public static final String S3_REGION = "aws.region";
+    public static final String S3_ENDPOINT_KEY = "aws.endpoint";
+    public static final String S3_PATH_STYLE_KEY = "aws.path.style";
+    public static final String S3_ACCELERATE_KEY = "aws.accelerate";
+    public static final String S3_DUALSTACK_KEY = "aws.dualstack";
+    private static final String DEFAULT_REGION = "EU_WEST_1";
+
+    /**
+     * Build client in the bucket region, without waiting for "100 continue" before sending small files.
+     * A custom endpoint, eg: an S3 compatible server, replaces the region endpoint
+     * @param customProperties
+     * @param region
+     * @param maxConnections
+     * @param credentialsProvider
+     * @param requestMetrics request handler and retry condition
+     * @return
+     * @throws IllegalArgumentException if endpoint options are not compatible
+     */
+    @NotNull
+    public static AmazonS3 build(@NotNull Properties customProperties, @NotNull String region, int maxConnections,
+        @NotNull AWSCredentialsProvider credentialsProvider, @NotNull S3RequestMetrics requestMetrics)
+        throws IllegalArgumentException {
+
+        final String endpoint = getEndpoint(customProperties);
+        final boolean pathStyle = Boolean.parseBoolean(customProperties.getProperty(S3_PATH_STYLE_KEY));
+        final boolean accelerate = isAccelerated(customProperties);
+        if (accelerate && (endpoint != null || pathStyle)) {
+            throw new IllegalArgumentException(S3_ACCELERATE_KEY + " cannot be used with " + S3_ENDPOINT_KEY
+                + " or " + S3_PATH_STYLE_KEY);
+        }
+
+        final AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+            .withClientConfiguration(S3Uploader.createClientConfiguration(maxConnections)
+                .withRetryPolicy(requestMetrics.toRetryPolicy()))
+            .withCredentials(credentialsProvider)
+            .withRequestHandlers(requestMetrics)
+            .withPathStyleAccessEnabled(pathStyle)
+            .withAccelerateModeEnabled(accelerate)
+            .withDualstackEnabled(Boolean.parseBoolean(customProperties.getProperty(S3_DUALSTACK_KEY)));
+        if (endpoint != null) {
+            builder.withEndpointConfiguration(new EndpointConfiguration(endpoint, region));
+        } else {
+            builder.withRegion(region).withForceGlobalBucketAccessEnabled(true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Custom endpoint, eg: an S3 compatible server
+     * @param customProperties
+     * @return null if not configured
+     */
+    @Nullable
+    public static String getEndpoint(@NotNull Properties customProperties) {
+        return StringUtils.trimToNull(customProperties.getProperty(S3_ENDPOINT_KEY));
+    }
+
+    public static boolean isAccelerated(@NotNull Properties customProperties) {
+        return Boolean.parseBoolean(customProperties.getProperty(S3_ACCELERATE_KEY));
+    }
+
+    /**
+     * Configured region name, eg: eu-west-1
+     * @param customProperties
+     * @return
+     */
+    @NotNull
+    public static String getConfiguredRegion(@NotNull Properties customProperties) {
+        return Regions.valueOf(customProperties.getProperty(S3_REGION, DEFAULT_REGION)).getName();
+    }
+}
@@ -0,0 +1,176 @@
+package com.openmind.intellij.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Counter;
+import com.openmind.intellij.bean.UploadMetrics.Stage;
+
+
+/**
+ * Record requests and retries of a client in the operation that sent them. Requests are tagged with the metrics
+ * of their operation, untagged requests are not recorded. Requests are timed from the first attempt to the
+ * response, retries included. Traced operations get a span by request
+ */
+public class S3RequestMetrics extends RequestHandler2 implements RetryPolicy.RetryCondition
+{
+    private static final HandlerContextKey<Long> START_TIME = new HandlerContextKey<>("S3UploadPlugin.startTime");
+    private static final HandlerContextKey<Integer> RETRIES = new HandlerContextKey<>("S3UploadPlugin.retries");
+
+    /**
+     * Record request in the metrics of an operation. The tag is kept by the requests of multipart uploads
+     * created by the transfer manager
+     * @param request
+     * @param metrics null to not record
+     * @return request
+     */
+    @NotNull
+    public static <T extends AmazonWebServiceRequest> T tag(@NotNull T request, @Nullable UploadMetrics metrics) {
+        if (metrics != null) {
+            request.setRequestMetricCollector(new OperationTag(metrics));
+        }
+        return request;
+    }
+
+    @Nullable
+    private static UploadMetrics getMetrics(@NotNull AmazonWebServiceRequest request) {
+        final RequestMetricCollector collector = request.getRequestMetricCollector();
+        return collector instanceof OperationTag ? ((OperationTag) collector).metrics : null;
+    }
+
+    /**
+     * Default retry policy, counting retries
+     * @return
+     */
+    @NotNull
+    public RetryPolicy toRetryPolicy() {
+        return new RetryPolicy(this, PredefinedRetryPolicies.DEFAULT_BACKOFF_STRATEGY,
+            PredefinedRetryPolicies.DEFAULT_MAX_ERROR_RETRY, true);
+    }
+
+    @Override
+    public boolean shouldRetry(AmazonWebServiceRequest originalRequest, AmazonClientException exception,
+        int retriesAttempted) {
+        final boolean retry = PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION.shouldRetry(originalRequest, exception,
+            retriesAttempted);
+        final UploadMetrics metrics = getMetrics(originalRequest);
+        if (retry && metrics != null) {
+            originalRequest.addHandlerContext(RETRIES, retriesAttempted + 1);
+            metrics.increment(Counter.RETRIES);
+        }
+        return retry;
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        if (getMetrics(request.getOriginalRequest()) != null) {
+            request.addHandlerContext(START_TIME, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        record(request, false, response.getHttpResponse().getStatusCode());
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        record(request, true, e instanceof AmazonServiceException
+            ? ((AmazonServiceException) e).getStatusCode()
+            : e.getClass().getSimpleName());
+    }
+
+    private void record(@NotNull Request<?> request, boolean error, @NotNull Object status) {
+        final Long startTime = request.getHandlerContext(START_TIME);
+        final UploadMetrics metrics = getMetrics(request.getOriginalRequest());
+        if (startTime == null || metrics == null) {
+            return;
+        }
+        final Stage stage = getStage(request);
+        metrics.record(stage, System.nanoTime() - startTime);
+        metrics.increment(Counter.REQUESTS);
+        if (error) {
+            metrics.increment(Counter.REQUEST_ERRORS);
+        }
+        if (metrics.getTrace().isEnabled()) {
+            metrics.getTrace().record(stage.name(), startTime, getTraceArgs(request, status));
+        }
+    }
+
+    @NotNull
+    private static Map<String, Object> getTraceArgs(@NotNull Request<?> request, @NotNull Object status) {
+        final Map<String, Object> args = new LinkedHashMap<>();
+        args.put("key", request.getResourcePath());
+        args.put("size", request.getHeaders().get(Headers.CONTENT_LENGTH));
+        args.put("status", status);
+        final Integer retries = request.getOriginalRequest().getHandlerContext(RETRIES);
+        args.put("retries", retries != null ? retries : 0);
+        return args;
+    }
+
+    @NotNull
+    private static Stage getStage(@NotNull Request<?> request) {
+        final AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        if (originalRequest instanceof CopyObjectRequest || originalRequest instanceof CopyPartRequest) {
+            return Stage.COPY;
+        }
+        if (originalRequest instanceof DeleteObjectsRequest || originalRequest instanceof DeleteObjectRequest) {
+            return Stage.DELETE;
+        }
+        if (originalRequest instanceof ListObjectsV2Request || originalRequest instanceof ListObjectsRequest) {
+            return Stage.LIST;
+        }
+        switch (request.getHttpMethod()) {
+            case PUT:
+                return Stage.PUT;
+            case GET:
+                return Stage.GET;
+            case HEAD:
+                return Stage.HEAD;
+            default:
+                return Stage.OTHER_REQUEST;
+        }
+    }
+
+    /**
+     * Metrics of the operation carried by a request. Disabled, so the SDK does not collect its own metrics
+     */
+    private static class OperationTag extends RequestMetricCollector
+    {
+        private final UploadMetrics metrics;
+
+        OperationTag(@NotNull UploadMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void collectMetrics(Request<?> request, Response<?> response) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.openmind.intellij.service.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+
+
+/**
+ * Upload hashed items to a bucket: a single request with integrity check, big files in parts.
+ * Independent from the IDE, so it can be benchmarked against any S3 compatible server
+ */
+public class S3Uploader
+{
+    public static final long DEFAULT_MULTIPART_THRESHOLD = 16 * 1024 * 1024;
+    public static final String MD5_METADATA = "md5";
+    private static final int CONNECTION_MAX_IDLE_MILLIS = 60 * 1000;
+
+    private final TransferManager transferManager;
+    private final String bucketName;
+    private final long multipartThreshold;
+    private final UploadMetrics metrics;
+
+    /**
+     * @param s3Client
+     * @param bucketName
+     * @param multipartThreshold smaller files are uploaded with a single request
+     * @param metrics operation recording the requests, if any
+     */
+    public S3Uploader(@NotNull AmazonS3 s3Client, @NotNull String bucketName, long multipartThreshold,
+        @Nullable UploadMetrics metrics) {
+        this.transferManager = TransferManagerBuilder.standard()
+            .withS3Client(s3Client)
+            .withMultipartUploadThreshold(multipartThreshold)
+            .build();
+        this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Connections for uploads: kept alive, closed when idle, without waiting for "100 continue"
+     * before sending small files
+     * @param maxConnections
+     * @return
+     */
+    @NotNull
+    public static ClientConfiguration createClientConfiguration(int maxConnections) {
+        return new ClientConfiguration()
+            .withMaxConnections(maxConnections)
+            .withTcpKeepAlive(true)
+            .withConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_MILLIS)
+            .withUseExpectContinue(false);
+    }
+
+    /**
+     * Upload, the hash of the item is checked by S3 and kept in metadata
+     * @param item hashed item
+     * @throws InterruptedException
+     */
+    public void upload(@NotNull UploadItem item) throws InterruptedException {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(item.getLength());
+        metadata.addUserMetadata(MD5_METADATA, item.getMd5Hex());
+        final PutObjectRequest request = S3RequestMetrics.tag(
+            new PutObjectRequest(bucketName, item.getKey(), item.getFile()).withMetadata(metadata), metrics);
+
+        if (item.getLength() < multipartThreshold) {
+            metadata.setContentMD5(item.getMd5Base64());
+            transferManager.getAmazonS3Client().putObject(request);
+        } else {
+            transferManager.upload(request).waitForCompletion();
+        }
+    }
+
+    /**
+     * Stop multipart uploads, the client is not shut down
+     */
+    public void shutdown() {
+        transferManager.shutdownNow(false);
+    }
+}
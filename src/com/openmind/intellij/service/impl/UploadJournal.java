@@ -0,0 +1,127 @@
+package com.openmind.intellij.service.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.openmind.intellij.bean.UploadItem;
+
+
+/**
+ * Hashes of the files uploaded from this machine to a destination, to skip unchanged files.
+ * Kept in memory and saved to a file with a line per key: "md5 key".
+ * Files uploaded by others are not known, so a file is skipped only if its last upload from here had the same content
+ */
+public class UploadJournal
+{
+    private static final char SEPARATOR = ' ';
+
+    private final File file;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    private UploadJournal(@NotNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Load journal, empty if the file does not exist or is unreadable
+     * @param file
+     * @return
+     */
+    @NotNull
+    public static UploadJournal load(@NotNull File file) {
+        final UploadJournal journal = new UploadJournal(file);
+        if (!file.isFile()) {
+            return journal;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separatorIndex = line.indexOf(SEPARATOR);
+                if (separatorIndex > 0) {
+                    journal.hashes.put(line.substring(separatorIndex + 1), line.substring(0, separatorIndex));
+                }
+            }
+        } catch (IOException e) {
+            journal.hashes.clear();
+        }
+        return journal;
+    }
+
+    /**
+     * Check if the item content was the last one uploaded to its key
+     * @param item hashed item
+     * @return
+     */
+    public boolean isUnchanged(@NotNull UploadItem item) {
+        final String md5Hex = item.getMd5Hex();
+        return md5Hex != null && md5Hex.equals(hashes.get(item.getKey()));
+    }
+
+    /**
+     * Record uploaded item
+     * @param item hashed item
+     */
+    public void uploaded(@NotNull UploadItem item) {
+        final String md5Hex = item.getMd5Hex();
+        if (md5Hex != null && !md5Hex.equals(hashes.put(item.getKey(), md5Hex))) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Forget deleted key
+     * @param key
+     */
+    public void removed(@NotNull String key) {
+        if (hashes.remove(key) != null) {
+            modified = true;
+        }
+    }
+
+    @Nullable
+    public String getMd5Hex(@NotNull String key) {
+        return hashes.get(key);
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Save if modified, replacing the file only when completely written
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        Files.createDirectories(file.getParentFile().toPath());
+        final Path tempFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(SEPARATOR);
+                writer.write(entry.getKey());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            modified = true;
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,349 @@
+package com.openmind.intellij.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.collect.Lists;
+import com.openmind.intellij.bean.UploadItem;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Counter;
+import com.openmind.intellij.bean.UploadMetrics.Stage;
+import com.openmind.intellij.bean.UploadReport;
+import com.openmind.intellij.bean.UploadTrace;
+
+
+/**
+ * Staged upload: enumerate, resolve, filter, hash, skip unchanged, upload, report.
+ * Stages run in their own threads and are connected by bounded queues: producers wait for slower consumers,
+ * so memory stays the same whatever the number of files. Nothing is kept by file: duplicate keys are only
+ * skipped within the items of a source, the enumerator has to pass each source once
+ * @param <S> source type, eg: the selected file
+ */
+public class UploadPipeline<S>
+{
+    private static final Object END = new Object();
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final long POLL_MILLIS = 100;
+
+    private final int queueCapacity;
+    private final int resolveThreads;
+    private final int hashThreads;
+    private final int uploadThreads;
+    private final BooleanSupplier canceled;
+    private final UploadMetrics metrics;
+
+    @FunctionalInterface
+    public interface Enumerator<S> {
+        void enumerate(@NotNull Consumer<S> consumer) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Resolver<S> {
+        @NotNull
+        Collection<UploadItem> resolve(@NotNull S source) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Uploader {
+        void upload(@NotNull UploadItem item) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface PipelineStage {
+        void process(@NotNull Object item, @NotNull Consumer<Object> next) throws Exception;
+    }
+
+    public UploadPipeline(int queueCapacity, int resolveThreads, int hashThreads, int uploadThreads,
+        @NotNull BooleanSupplier canceled, @NotNull UploadMetrics metrics) {
+        this.queueCapacity = queueCapacity;
+        this.resolveThreads = resolveThreads;
+        this.hashThreads = hashThreads;
+        this.uploadThreads = uploadThreads;
+        this.canceled = canceled;
+        this.metrics = metrics;
+        metrics.setting("resolveThreads", resolveThreads);
+        metrics.setting("hashThreads", hashThreads);
+        metrics.setting("uploadThreads", uploadThreads);
+        metrics.setting("queueCapacity", queueCapacity);
+    }
+
+    /**
+     * Run all stages and wait for completion
+     * @param enumerator runs in the calling thread, may call its consumer from any thread
+     * @param resolver source to items to upload
+     * @param uploader
+     * @return summary
+     * @throws CancellationException if canceled, or the exception that stopped a canceled stage
+     */
+    @NotNull
+    public UploadReport run(@NotNull Enumerator<S> enumerator, @NotNull Resolver<S> resolver, @NotNull Uploader uploader)
+        throws CancellationException {
+        return run(enumerator, resolver, item -> false, uploader);
+    }
+
+    /**
+     * Run all stages and wait for completion
+     * @param enumerator runs in the calling thread, may call its consumer from any thread
+     * @param resolver source to items to upload
+     * @param unchanged hashed items already uploaded, they are skipped
+     * @param uploader
+     * @return summary
+     * @throws CancellationException if canceled, or the exception that stopped a canceled stage
+     */
+    @NotNull
+    public UploadReport run(@NotNull Enumerator<S> enumerator, @NotNull Resolver<S> resolver,
+        @NotNull Predicate<UploadItem> unchanged, @NotNull Uploader uploader) throws CancellationException {
+
+        final UploadReport report = new UploadReport();
+        // span arguments are built only when tracing
+        final UploadTrace trace = metrics.getTrace();
+        final BlockingQueue<Object> sources = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Object> resolved = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Object> filtered = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Object> hashed = new ArrayBlockingQueue<>(queueCapacity);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(resolveThreads + 1 + hashThreads + uploadThreads,
+            r -> {
+                Thread thread = new Thread(r, "S3UploadPlugin-pipeline");
+                thread.setDaemon(true);
+                return thread;
+            });
+        final List<Future<?>> workers = Lists.newArrayList();
+
+        try {
+            // resolve
+            startStage(executor, workers, report, resolveThreads, sources, resolved, (source, next) -> {
+                @SuppressWarnings("unchecked")
+                S typedSource = (S) source;
+                final UploadTrace.Span span = trace.start("resolve");
+                if (trace.isEnabled()) {
+                    span.arg("source", String.valueOf(source));
+                }
+                final long startTime = System.nanoTime();
+                final Collection<UploadItem> items;
+                try {
+                    items = resolver.resolve(typedSource);
+                } finally {
+                    metrics.record(Stage.RESOLVE, System.nanoTime() - startTime);
+                    span.end();
+                }
+                metrics.add(Counter.FILES_RESOLVED, items.size());
+
+                // skip duplicates of the same source, sources are visited once by the enumerator
+                final Set<String> keys = new HashSet<>();
+                for (UploadItem item : items) {
+                    if (keys.add(item.getKey())) {
+                        next.accept(item);
+                    } else {
+                        report.addSkipped(item, "duplicate key");
+                        metrics.increment(Counter.FILES_SKIPPED);
+                    }
+                }
+            });
+
+            // filter: skip missing files
+            startStage(executor, workers, report, 1, resolved, filtered, (item, next) -> {
+                UploadItem uploadItem = (UploadItem) item;
+                if (!uploadItem.getFile().isFile()) {
+                    report.addSkipped(uploadItem, "missing file");
+                    metrics.increment(Counter.FILES_SKIPPED);
+                    return;
+                }
+                uploadItem.setLength(uploadItem.getFile().length());
+                next.accept(uploadItem);
+            });
+
+            // hash, skip unchanged
+            startStage(executor, workers, report, hashThreads, filtered, hashed, (item, next) -> {
+                UploadItem uploadItem = (UploadItem) item;
+                final UploadTrace.Span span = trace.start("hash");
+                if (trace.isEnabled()) {
+                    span.arg("key", uploadItem.getKey()).arg("size", uploadItem.getLength());
+                }
+                final long startTime = System.nanoTime();
+                try {
+                    uploadItem.setMd5(md5(uploadItem));
+                } finally {
+                    metrics.record(Stage.HASH, System.nanoTime() - startTime);
+                    span.end();
+                }
+                metrics.increment(Counter.FILES_HASHED);
+                if (unchanged.test(uploadItem)) {
+                    report.addSkipped(uploadItem, "unchanged");
+                    metrics.increment(Counter.FILES_SKIPPED);
+                    return;
+                }
+                next.accept(uploadItem);
+            });
+
+            // upload and report
+            startStage(executor, workers, report, uploadThreads, hashed, null, (item, next) -> {
+                UploadItem uploadItem = (UploadItem) item;
+                final UploadTrace.Span span = trace.start("upload");
+                if (trace.isEnabled()) {
+                    span.arg("key", uploadItem.getKey()).arg("size", uploadItem.getLength());
+                }
+                final long startTime = System.nanoTime();
+                try {
+                    uploader.upload(uploadItem);
+                } finally {
+                    metrics.record(Stage.UPLOAD, System.nanoTime() - startTime);
+                    span.end();
+                }
+                metrics.increment(Counter.FILES_UPLOADED);
+                metrics.add(Counter.BYTES_SENT, uploadItem.getLength());
+                report.addUploaded(uploadItem);
+            });
+
+            // enumerate
+            final UploadTrace.Span span = trace.start("enumerate");
+            final long startTime = System.nanoTime();
+            try {
+                enumerator.enumerate(source -> {
+                    metrics.increment(Counter.FILES_ENUMERATED);
+                    put(sources, source);
+                });
+            } finally {
+                metrics.record(Stage.ENUMERATE, System.nanoTime() - startTime);
+                if (trace.isEnabled()) {
+                    span.arg("files", metrics.get(Counter.FILES_ENUMERATED));
+                }
+                span.end();
+                put(sources, END);
+            }
+
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Upload interrupted");
+
+        } catch (ExecutionException e) {
+            throw cancellationOrFailure(e.getCause());
+
+        } catch (Exception e) {
+            throw cancellationOrFailure(e);
+
+        } finally {
+            executor.shutdownNow();
+            report.end();
+        }
+
+        if (canceled.getAsBoolean()) {
+            throw new CancellationException("Upload canceled");
+        }
+        return report;
+    }
+
+    /**
+     * Start stage workers. When all of them are done, the end marker is passed to the next queue.
+     * A failing item is reported and skipped. If canceled, items are consumed without processing,
+     * so producers are never blocked
+     */
+    private void startStage(@NotNull ExecutorService executor, @NotNull List<Future<?>> workers,
+        @NotNull UploadReport report, int threads, @NotNull BlockingQueue<Object> in, @Nullable BlockingQueue<Object> out,
+        @NotNull PipelineStage stage) {
+        final AtomicInteger runningWorkers = new AtomicInteger(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                try {
+                    Object item;
+                    while ((item = in.take()) != END) {
+                        if (canceled.getAsBoolean()) {
+                            continue;
+                        }
+                        try {
+                            stage.process(item, next -> put(out, next));
+
+                        } catch (CancellationException e) {
+                            throw e;
+
+                        } catch (Exception e) {
+                            report.addFailed(String.valueOf(item), e);
+                            metrics.increment(Counter.FILES_FAILED);
+                        }
+                    }
+                    // let other workers of the same stage end
+                    in.put(END);
+
+                } finally {
+                    if (runningWorkers.decrementAndGet() == 0 && out != null) {
+                        out.put(END);
+                    }
+                }
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Cancellation is rethrown as is, eg: ProcessCanceledException of the IDE. Only real failures are wrapped
+     * @param e
+     * @return exception to throw
+     */
+    @NotNull
+    private RuntimeException cancellationOrFailure(@NotNull Throwable e) {
+        if (e instanceof CancellationException || canceled.getAsBoolean() && e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new IllegalArgumentException("Upload failed: " + e.getMessage(), e);
+    }
+
+    /**
+     * Wait for space in the queue
+     * @throws CancellationException if canceled, or the exception that stopped a canceled stage
+     */
+    private void put(@NotNull BlockingQueue<Object> queue, @NotNull Object item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (canceled.getAsBoolean() && item != END) {
+                    throw new CancellationException("Upload canceled");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Upload interrupted");
+        }
+    }
+
+    @NotNull
+    private static byte[] md5(@NotNull UploadItem item) throws IOException {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(item.getFile()), HASH_BUFFER_SIZE)) {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.openmind.intellij.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JPanel;
+import javax.swing.RowFilter;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.openmind.intellij.bean.DriftEntry;
+import com.openmind.intellij.bean.DriftEntry.Status;
+
+
+/**
+ * Result of a comparison with S3. Double click opens the local file
+ */
+public class DriftReportPanel extends JPanel
+{
+    private static final String ALL = "All";
+    private static final String CHANGED = "Not identical";
+    private static final String[] COLUMNS = { "Status", "Key", "Local size", "Remote size" };
+
+    private final Project project;
+    private final List<DriftEntry> entries;
+
+    public DriftReportPanel(@NotNull Project project, @NotNull String title, @NotNull List<DriftEntry> entries) {
+        super(new BorderLayout());
+        this.project = project;
+        this.entries = entries;
+
+        // counts by status
+        final Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        entries.forEach(e -> counts.merge(e.getStatus(), 1, Integer::sum));
+        final StringBuilder summary = new StringBuilder(title);
+        for (Status status : Status.values()) {
+            summary.append("   ").append(status).append(": ").append(counts.getOrDefault(status, 0));
+        }
+
+        final JBTable table = new JBTable(new DriftTableModel());
+        final TableRowSorter<DriftTableModel> sorter = new TableRowSorter<>((DriftTableModel) table.getModel());
+        table.setRowSorter(sorter);
+
+        // status filter, identical files are hidden by default
+        final ComboBox<Object> statusFilter = new ComboBox<>();
+        statusFilter.addItem(CHANGED);
+        statusFilter.addItem(ALL);
+        for (Status status : Status.values()) {
+            statusFilter.addItem(status);
+        }
+        statusFilter.addActionListener(e -> sorter.setRowFilter(toRowFilter(statusFilter.getSelectedItem())));
+        sorter.setRowFilter(toRowFilter(CHANGED));
+
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && table.getSelectedRow() >= 0) {
+                    navigate(entries.get(table.convertRowIndexToModel(table.getSelectedRow())));
+                }
+            }
+        });
+
+        final JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        header.add(statusFilter);
+        header.add(new JBLabel(summary.toString()));
+        add(header, BorderLayout.NORTH);
+        add(new JBScrollPane(table), BorderLayout.CENTER);
+    }
+
+    @NotNull
+    private RowFilter<DriftTableModel, Integer> toRowFilter(Object selected) {
+        return new RowFilter<DriftTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends DriftTableModel, ? extends Integer> entry) {
+                final Status status = entries.get(entry.getIdentifier()).getStatus();
+                return ALL.equals(selected)
+                    || (CHANGED.equals(selected) && status != Status.IDENTICAL)
+                    || status == selected;
+            }
+        };
+    }
+
+    private void navigate(@NotNull DriftEntry entry) {
+        if (entry.getLocalFile() == null) {
+            return;
+        }
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByIoFile(entry.getLocalFile());
+        if (file != null) {
+            new OpenFileDescriptor(project, file).navigate(true);
+        }
+    }
+
+    private class DriftTableModel extends AbstractTableModel
+    {
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column >= 2 ? Long.class : Object.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final DriftEntry entry = entries.get(row);
+            switch (column) {
+                case 0:
+                    return entry.getStatus();
+                case 1:
+                    return entry.getKey();
+                case 2:
+                    return entry.getLocalFile() != null ? entry.getLocalSize() : null;
+                default:
+                    return entry.getStatus() != Status.MISSING && entry.getStatus() != Status.UNKNOWN
+                        ? entry.getRemoteSize()
+                        : null;
+            }
+        }
+    }
+}
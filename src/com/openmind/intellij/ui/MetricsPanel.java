@@ -0,0 +1,230 @@
+package com.openmind.intellij.ui;
+
+import static com.intellij.notification.NotificationType.WARNING;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.datatransfer.StringSelection;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.AbstractTableModel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.openmind.intellij.bean.LatencyHistogram;
+import com.openmind.intellij.bean.UploadMetrics;
+import com.openmind.intellij.bean.UploadMetrics.Counter;
+import com.openmind.intellij.bean.UploadMetrics.Stage;
+import com.openmind.intellij.helper.NotificationHelper;
+import com.openmind.intellij.service.AmazonS3Service;
+import com.openmind.intellij.service.MetricsListener;
+
+
+/**
+ * Metrics of the last operations. Selecting one shows its latencies by stage
+ */
+public class MetricsPanel extends JPanel
+{
+    private static final String[] OPERATION_COLUMNS = { "Operation", "Start", "Duration ms", "Uploaded", "Skipped",
+        "Failed", "MB", "MB/s", "Requests", "Retries" };
+    private static final String[] STAGE_COLUMNS = { "Stage", "Count", "Total ms", "Mean ms", "p50 ms", "p90 ms",
+        "p99 ms", "Max ms" };
+
+    private final List<UploadMetrics> operations = new ArrayList<>();
+    private final List<Stage> stages = new ArrayList<>();
+    private final OperationTableModel operationModel = new OperationTableModel();
+    private final StageTableModel stageModel = new StageTableModel();
+    private final JBTable operationTable = new JBTable(operationModel);
+    private final Project project;
+
+    public MetricsPanel(@NotNull Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        operationTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        operationTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showStages(getSelected());
+            }
+        });
+
+        final JButton copyJson = new JButton("Copy as JSON");
+        copyJson.addActionListener(e -> copyJson(getSelected()));
+
+        final JBSplitter splitter = new JBSplitter(true, 0.5f);
+        splitter.setFirstComponent(new JBScrollPane(operationTable));
+        splitter.setSecondComponent(new JBScrollPane(new JBTable(stageModel)));
+
+        final JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        header.add(copyJson);
+        add(header, BorderLayout.NORTH);
+        add(splitter, BorderLayout.CENTER);
+
+        // metrics are recorded in background, the service reads S3 when created so not in the event thread
+        project.getMessageBus().connect(project).subscribe(MetricsListener.TOPIC,
+            metrics -> ApplicationManager.getApplication().invokeLater(this::reload));
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                AmazonS3Service.getInstance(project);
+                ApplicationManager.getApplication().invokeLater(this::reload);
+            } catch (Exception e) {
+                // plugin disabled
+            }
+        });
+    }
+
+    private void reload() {
+        if (project.isDisposed()) {
+            return;
+        }
+        final UploadMetrics selected = getSelected();
+        operations.clear();
+        operations.addAll(AmazonS3Service.getInstance(project).getRecentMetrics());
+        operationModel.fireTableDataChanged();
+
+        final int index = selected != null ? operations.indexOf(selected) : 0;
+        if (index >= 0 && index < operations.size()) {
+            operationTable.setRowSelectionInterval(index, index);
+        }
+    }
+
+    @Nullable
+    private UploadMetrics getSelected() {
+        final int row = operationTable.getSelectedRow();
+        return row >= 0 && row < operations.size() ? operations.get(row) : null;
+    }
+
+    private void showStages(@Nullable UploadMetrics metrics) {
+        stages.clear();
+        if (metrics != null) {
+            for (Stage stage : Stage.values()) {
+                if (metrics.getHistogram(stage).getCount() > 0) {
+                    stages.add(stage);
+                }
+            }
+        }
+        stageModel.metrics = metrics;
+        stageModel.fireTableDataChanged();
+    }
+
+    private void copyJson(@Nullable UploadMetrics metrics) {
+        if (metrics == null) {
+            return;
+        }
+        try {
+            CopyPasteManager.getInstance().setContents(new StringSelection(metrics.toJson()));
+
+        } catch (IOException e) {
+            NotificationHelper.showEvent(project, "Could not export metrics: " + e.getMessage(), WARNING);
+        }
+    }
+
+    private static String format(double millis) {
+        return String.format("%.1f", millis);
+    }
+
+    private class OperationTableModel extends AbstractTableModel
+    {
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+        @Override
+        public int getRowCount() {
+            return operations.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return OPERATION_COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return OPERATION_COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final UploadMetrics metrics = operations.get(row);
+            switch (column) {
+                case 0:
+                    return metrics.getName();
+                case 1:
+                    return timeFormat.format(new Date(metrics.getStartTime()));
+                case 2:
+                    return metrics.getDurationMillis();
+                case 3:
+                    return metrics.get(Counter.FILES_UPLOADED);
+                case 4:
+                    return metrics.get(Counter.FILES_SKIPPED);
+                case 5:
+                    return metrics.get(Counter.FILES_FAILED);
+                case 6:
+                    return format(metrics.get(Counter.BYTES_SENT) / 1024.0 / 1024.0);
+                case 7:
+                    return format(metrics.getThroughput());
+                case 8:
+                    return metrics.get(Counter.REQUESTS);
+                default:
+                    return metrics.get(Counter.RETRIES);
+            }
+        }
+    }
+
+    private class StageTableModel extends AbstractTableModel
+    {
+        private UploadMetrics metrics;
+
+        @Override
+        public int getRowCount() {
+            return stages.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return STAGE_COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return STAGE_COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final Stage stage = stages.get(row);
+            final LatencyHistogram histogram = metrics.getHistogram(stage);
+            switch (column) {
+                case 0:
+                    return stage;
+                case 1:
+                    return histogram.getCount();
+                case 2:
+                    return format(histogram.getTotalMillis());
+                case 3:
+                    return format(histogram.getMeanMillis());
+                case 4:
+                    return format(histogram.getPercentileMillis(0.5));
+                case 5:
+                    return format(histogram.getPercentileMillis(0.9));
+                case 6:
+                    return format(histogram.getPercentileMillis(0.99));
+                default:
+                    return format(histogram.getMaxMillis());
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.openmind.intellij.ui;
+
+import static org.apache.commons.lang.StringUtils.removeStart;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JTree;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.treeStructure.Tree;
+import com.openmind.intellij.bean.RemoteObject;
+import com.openmind.intellij.bean.RemotePage;
+import com.openmind.intellij.bean.UploadConfig;
+import com.openmind.intellij.service.AmazonS3Service;
+
+
+/**
+ * Tree of deployed files of the current version. Folders are listed a page at a time when expanded,
+ * the next page is loaded when its node is scrolled into view. Double click shows the diff with the local file
+ */
+public class RemoteBrowserPanel extends JPanel
+{
+    private static final String LOADING = "Loading...";
+    private static final String LOAD_MORE = "Load more...";
+
+    private final Project project;
+    private final ComboBox<UploadConfig> uploadConfigs = new ComboBox<>();
+    private final DefaultTreeModel model = new DefaultTreeModel(new MessageNode(LOADING));
+    private final Tree tree = new Tree(model);
+
+    public RemoteBrowserPanel(@NotNull Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        uploadConfigs.setRenderer(new ColoredListCellRenderer<UploadConfig>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends UploadConfig> list, UploadConfig value,
+                int index, boolean selected, boolean hasFocus) {
+                if (value != null) {
+                    append(value.getFileName() + " (" + value.getVersion() + ")");
+                }
+            }
+        });
+        uploadConfigs.addActionListener(e -> showRoot());
+
+        final JButton refresh = new JButton("Refresh", AllIcons.Actions.Refresh);
+        refresh.addActionListener(e -> {
+            if (model.getRoot() instanceof FolderNode) {
+                getService().invalidateRemotePages(((FolderNode) model.getRoot()).prefix);
+            }
+            showRoot();
+        });
+
+        tree.setShowsRootHandles(true);
+        tree.setCellRenderer(new RemoteTreeCellRenderer());
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                final Object node = event.getPath().getLastPathComponent();
+                if (node instanceof FolderNode && !((FolderNode) node).listed) {
+                    ((FolderNode) node).listed = true;
+                    loadPage((FolderNode) node, null);
+                }
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
+            }
+        });
+        tree.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                final TreePath path = tree.getPathForLocation(e.getX(), e.getY());
+                final Object node = path != null ? path.getLastPathComponent() : null;
+                if (node instanceof LoadMoreNode) {
+                    loadMore((LoadMoreNode) node);
+                } else if (node instanceof ObjectNode && e.getClickCount() == 2) {
+                    getService().showRemoteDiff(((ObjectNode) node).remoteObject);
+                }
+            }
+        });
+
+        // next page when scrolled to the end of the loaded ones, a failed page is loaded again only by a click
+        final JBScrollPane scrollPane = new JBScrollPane(tree);
+        scrollPane.getViewport().addChangeListener(e -> {
+            final int lastVisibleRow = tree.getClosestRowForLocation(0,
+                tree.getVisibleRect().y + tree.getVisibleRect().height);
+            final TreePath path = tree.getPathForRow(lastVisibleRow);
+            if (path != null && path.getLastPathComponent() instanceof LoadMoreNode
+                && ((LoadMoreNode) path.getLastPathComponent()).error == null) {
+                loadMore((LoadMoreNode) path.getLastPathComponent());
+            }
+        });
+
+        final JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        header.add(uploadConfigs);
+        header.add(refresh);
+        add(header, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+
+        // configs are read from S3 on first use of the service
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                final List<UploadConfig> configs = getService().getUploadConfigs();
+                ApplicationManager.getApplication().invokeLater(() -> configs.forEach(uploadConfigs::addItem),
+                    ModalityState.any());
+
+            } catch (Exception ex) {
+                ApplicationManager.getApplication().invokeLater(
+                    () -> model.setRoot(new MessageNode("Error: " + ex.getMessage())), ModalityState.any());
+            }
+        });
+    }
+
+    @NotNull
+    private AmazonS3Service getService() {
+        return AmazonS3Service.getInstance(project);
+    }
+
+    private void showRoot() {
+        final UploadConfig uploadConfig = (UploadConfig) uploadConfigs.getSelectedItem();
+        if (uploadConfig == null) {
+            return;
+        }
+        final FolderNode root = new FolderNode(getService().getBrowseRoot(uploadConfig), null);
+        model.setRoot(root);
+        tree.expandPath(new TreePath(root));
+    }
+
+    private void loadMore(@NotNull LoadMoreNode loadMore) {
+        if (!loadMore.loading) {
+            loadMore.loading = true;
+            loadMore.error = null;
+            model.nodeChanged(loadMore);
+            loadPage((FolderNode) loadMore.getParent(), loadMore.continuationToken);
+        }
+    }
+
+    /**
+     * List a page in background, then prefetch the next one
+     * @param folder
+     * @param continuationToken null for the first page
+     */
+    private void loadPage(@NotNull FolderNode folder, @Nullable String continuationToken) {
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            try {
+                final RemotePage page = getService().listRemotePage(folder.prefix, continuationToken);
+                if (page.isTruncated()) {
+                    getService().prefetchRemotePage(folder.prefix, page.getNextContinuationToken());
+                }
+                ApplicationManager.getApplication().invokeLater(() -> addPage(folder, page), ModalityState.any());
+
+            } catch (Exception ex) {
+                ApplicationManager.getApplication().invokeLater(() -> showError(folder, ex), ModalityState.any());
+            }
+        });
+    }
+
+    /**
+     * Replace the loading node of the folder with the page
+     * @param folder
+     * @param page
+     */
+    private void addPage(@NotNull FolderNode folder, @NotNull RemotePage page) {
+        if (folder.getRoot() != model.getRoot()) {
+            return;
+        }
+        removeLastChild(folder);
+        final int firstIndex = folder.getChildCount();
+        for (String subPrefix : page.getSubPrefixes()) {
+            folder.add(new FolderNode(subPrefix, removeStart(subPrefix, folder.prefix)));
+        }
+        for (RemoteObject remoteObject : page.getObjects()) {
+            folder.add(new ObjectNode(remoteObject, removeStart(remoteObject.getKey(), folder.prefix)));
+        }
+        if (page.isTruncated()) {
+            folder.add(new LoadMoreNode(page.getNextContinuationToken()));
+        } else if (folder.getChildCount() == 0) {
+            folder.add(new MessageNode("Empty"));
+        }
+        final int[] indices = new int[folder.getChildCount() - firstIndex];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = firstIndex + i;
+        }
+        model.nodesWereInserted(folder, indices);
+    }
+
+    /**
+     * Show a listing error. A failed next page keeps its "Load more" node, so it can be loaded again
+     * @param folder
+     * @param ex
+     */
+    private void showError(@NotNull FolderNode folder, @NotNull Exception ex) {
+        if (folder.getRoot() != model.getRoot()) {
+            return;
+        }
+        if (folder.getChildCount() > 0 && folder.getLastChild() instanceof LoadMoreNode) {
+            final LoadMoreNode loadMore = (LoadMoreNode) folder.getLastChild();
+            loadMore.loading = false;
+            loadMore.error = ex.getMessage();
+            model.nodeChanged(loadMore);
+            return;
+        }
+        removeLastChild(folder);
+        model.insertNodeInto(new MessageNode("Error: " + ex.getMessage()), folder, folder.getChildCount());
+    }
+
+    private void removeLastChild(@NotNull FolderNode folder) {
+        if (folder.getChildCount() > 0 && folder.getLastChild() instanceof MessageNode) {
+            model.removeNodeFromParent((MessageNode) folder.getLastChild());
+        }
+    }
+
+    private static class FolderNode extends DefaultMutableTreeNode
+    {
+        private final String prefix;
+        private boolean listed;
+
+        FolderNode(@NotNull String prefix, @Nullable String name) {
+            super(name != null ? name : prefix);
+            this.prefix = prefix;
+            add(new MessageNode(LOADING));
+        }
+    }
+
+    private static class ObjectNode extends DefaultMutableTreeNode
+    {
+        private final RemoteObject remoteObject;
+
+        ObjectNode(@NotNull RemoteObject remoteObject, @NotNull String name) {
+            super(name, false);
+            this.remoteObject = remoteObject;
+        }
+    }
+
+    private static class MessageNode extends DefaultMutableTreeNode
+    {
+        MessageNode(@NotNull String message) {
+            super(message, false);
+        }
+    }
+
+    private static class LoadMoreNode extends MessageNode
+    {
+        private final String continuationToken;
+        private boolean loading;
+        private String error;
+
+        LoadMoreNode(@NotNull String continuationToken) {
+            super(LOAD_MORE);
+            this.continuationToken = continuationToken;
+        }
+    }
+
+    private static class RemoteTreeCellRenderer extends ColoredTreeCellRenderer
+    {
+        @Override
+        public void customizeCellRenderer(@NotNull JTree tree, Object value, boolean selected, boolean expanded,
+            boolean leaf, int row, boolean hasFocus) {
+
+            if (value instanceof FolderNode) {
+                setIcon(AllIcons.Nodes.Folder);
+                append(String.valueOf(((FolderNode) value).getUserObject()));
+
+            } else if (value instanceof ObjectNode) {
+                final String name = String.valueOf(((ObjectNode) value).getUserObject());
+                setIcon(FileTypeManager.getInstance().getFileTypeByFileName(name).getIcon());
+                append(name);
+                append("  " + StringUtil.formatFileSize(((ObjectNode) value).remoteObject.getSize()),
+                    SimpleTextAttributes.GRAYED_ATTRIBUTES);
+
+            } else if (value instanceof LoadMoreNode) {
+                final LoadMoreNode loadMore = (LoadMoreNode) value;
+                append(loadMore.loading ? LOADING : LOAD_MORE, SimpleTextAttributes.LINK_ATTRIBUTES);
+                if (!loadMore.loading && loadMore.error != null) {
+                    append("  Error: " + loadMore.error, SimpleTextAttributes.ERROR_ATTRIBUTES);
+                }
+
+            } else if (value instanceof MessageNode) {
+                append(String.valueOf(((MessageNode) value).getUserObject()), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            }
+        }
+    }
+}
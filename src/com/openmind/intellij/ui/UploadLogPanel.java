@@ -0,0 +1,134 @@
+package com.openmind.intellij.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.JPanel;
+import javax.swing.RowFilter;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.openmind.intellij.bean.UploadLog;
+import com.openmind.intellij.bean.UploadLog.Status;
+
+
+/**
+ * Result of each file of the last upload. Rows are rendered by the table only when visible,
+ * so large uploads do not build any text. Double click opens the source file
+ */
+public class UploadLogPanel extends JPanel
+{
+    private static final String ALL = "All";
+    private static final String[] COLUMNS = { "Status", "Key", "Size", "Time (ms)", "Message" };
+
+    private final Project project;
+    private final List<UploadLog.Entry> entries;
+
+    public UploadLogPanel(@NotNull Project project, @NotNull String summary, @NotNull UploadLog log) {
+        super(new BorderLayout());
+        this.project = project;
+        this.entries = log.getEntries();
+
+        final JBTable table = new JBTable(new UploadLogTableModel());
+        final TableRowSorter<UploadLogTableModel> sorter = new TableRowSorter<>((UploadLogTableModel) table.getModel());
+        table.setRowSorter(sorter);
+
+        // status filter
+        final ComboBox<Object> statusFilter = new ComboBox<>();
+        statusFilter.addItem(ALL);
+        for (Status status : Status.values()) {
+            statusFilter.addItem(status);
+        }
+        statusFilter.addActionListener(e -> sorter.setRowFilter(toRowFilter(statusFilter.getSelectedItem())));
+
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && table.getSelectedRow() >= 0) {
+                    navigate(entries.get(table.convertRowIndexToModel(table.getSelectedRow())));
+                }
+            }
+        });
+
+        final JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        header.add(statusFilter);
+        header.add(new JBLabel(log.getDropped() > 0
+            ? summary + "   (" + log.getDropped() + " files not listed)"
+            : summary));
+        add(header, BorderLayout.NORTH);
+        add(new JBScrollPane(table), BorderLayout.CENTER);
+    }
+
+    @NotNull
+    private RowFilter<UploadLogTableModel, Integer> toRowFilter(Object selected) {
+        return new RowFilter<UploadLogTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends UploadLogTableModel, ? extends Integer> entry) {
+                return ALL.equals(selected) || entries.get(entry.getIdentifier()).getStatus() == selected;
+            }
+        };
+    }
+
+    private void navigate(@NotNull UploadLog.Entry entry) {
+        if (entry.getSourcePath() == null) {
+            return;
+        }
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(entry.getSourcePath());
+        if (file != null) {
+            new OpenFileDescriptor(project, file).navigate(true);
+        }
+    }
+
+    private class UploadLogTableModel extends AbstractTableModel
+    {
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 || column == 3 ? Long.class : Object.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final UploadLog.Entry entry = entries.get(row);
+            switch (column) {
+                case 0:
+                    return entry.getStatus();
+                case 1:
+                    return entry.getKey();
+                case 2:
+                    return entry.getStatus() != Status.FAILED ? entry.getLength() : null;
+                case 3:
+                    return entry.getElapsedMillis();
+                default:
+                    return entry.getMessage();
+            }
+        }
+    }
+}